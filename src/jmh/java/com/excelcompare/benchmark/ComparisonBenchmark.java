@@ -0,0 +1,66 @@
+package com.excelcompare.benchmark;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.service.ComparisonService;
+import com.excelcompare.service.ProgressListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ComparisonBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"0.01", "0.2"})
+    private double mismatchRate;
+
+    @Param({"0.0", "0.05"})
+    private double duplicateRate;
+
+    private ComparisonService comparisonService;
+    private List<DocumentMetadata> documentsA;
+    private List<DocumentMetadata> documentsB;
+    private ColumnarManifest manifestA;
+    private ColumnarManifest manifestB;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        comparisonService = new ComparisonService();
+        documentsA = SyntheticManifests.generate(rows, duplicateRate, 42);
+        documentsB = SyntheticManifests.migrate(documentsA, mismatchRate, 7);
+        manifestA = ColumnarManifest.of(documentsA);
+        manifestB = ColumnarManifest.of(documentsB);
+        // Sealed like the manifests ExcelService parses
+        manifestA.trimToSize();
+        manifestB.trimToSize();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        comparisonService.shutdown();
+    }
+
+    @Benchmark
+    public ComparisonResult compareDocuments() {
+        return comparisonService.compareDocuments(documentsA, documentsB);
+    }
+
+    /**
+     * The join alone, on manifests parsed beforehand. With -prof gc, gc.alloc.rate.norm divided by
+     * the row count is what the comparison allocates per row.
+     */
+    @Benchmark
+    public ComparisonResult compareManifests() {
+        return comparisonService.compareManifests(manifestA, manifestB, ProgressListener.NONE);
+    }
+}
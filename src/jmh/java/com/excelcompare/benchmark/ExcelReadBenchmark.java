@@ -0,0 +1,61 @@
+package com.excelcompare.benchmark;
+
+import com.excelcompare.service.ExcelService;
+import com.excelcompare.service.ProgressListener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExcelReadBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean streaming;
+
+    @Param({"xlsx", "csv"})
+    private String format;
+
+    private ExcelService excelService;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        excelService = new ExcelService();
+        ReflectionTestUtils.setField(excelService, "streamingReader", streaming);
+
+        file = Files.createTempFile("benchmark-manifest", "." + format);
+        if (format.equals("csv")) {
+            SyntheticManifests.writeCsv(SyntheticManifests.generate(rows, 0.0, 42), file);
+        } else {
+            SyntheticManifests.writeXlsx(SyntheticManifests.generate(rows, 0.0, 42), file);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void readExcelFile(Blackhole blackhole) throws IOException {
+        excelService.readExcelFile(file, blackhole::consume);
+    }
+
+    @Benchmark
+    public Object readManifest() throws IOException {
+        return excelService.readManifest(file, ProgressListener.NONE);
+    }
+}
@@ -0,0 +1,50 @@
+package com.excelcompare.benchmark;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints the retained heap of a parsed manifest held as document objects and as a
+ * {@link ColumnarManifest}, measured with JOL. Run with:
+ * mvn -Pbenchmarks test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -Xmx4g -Djdk.attach.allowAttachSelf=true -cp target/classes:target/test-classes:$(cat cp.txt)
+ * com.excelcompare.benchmark.ManifestFootprint 1000000
+ */
+public final class ManifestFootprint {
+
+    private ManifestFootprint() {}
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // Parsed rows hold a String of their own for every cell, the generator shares its constants
+        List<DocumentMetadata> documents = new ArrayList<>(rows);
+        String[] values = new String[DocumentField.count()];
+        for (DocumentMetadata generated : SyntheticManifests.generate(rows, 0.0, 42)) {
+            for (DocumentField field : DocumentField.values()) {
+                values[field.ordinal()] = new String(field.get(generated));
+            }
+            documents.add(DocumentField.toDocument(values));
+        }
+
+        ColumnarManifest manifest = ColumnarManifest.of(documents);
+        manifest.trimToSize();
+
+        long documentBytes = GraphLayout.parseInstance(documents).totalSize();
+        long manifestBytes = GraphLayout.parseInstance(manifest).totalSize();
+        System.out.printf("rows: %d%n", rows);
+        System.out.printf("documents: %,d bytes (%.1f per row)%n", documentBytes, (double) documentBytes / rows);
+        System.out.printf("manifest:  %,d bytes (%.1f per row), estimate %,d%n",
+                manifestBytes, (double) manifestBytes / rows, manifest.getRetainedBytes());
+        System.out.printf("ratio: %.1fx%n", (double) documentBytes / manifestBytes);
+        for (DocumentField field : DocumentField.values()) {
+            System.out.printf("  %-18s %,12d bytes, %,d values%n", field.getFieldName(),
+                    GraphLayout.parseInstance(manifest.dictionary(field)).totalSize(), manifest.dictionary(field).size());
+        }
+    }
+}
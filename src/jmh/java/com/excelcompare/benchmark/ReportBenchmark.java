@@ -0,0 +1,67 @@
+package com.excelcompare.benchmark;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.service.ComparisonService;
+import com.excelcompare.service.ProgressListener;
+import com.excelcompare.service.ReportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"0.01", "0.2"})
+    private double mismatchRate;
+
+    private ReportService reportService;
+    private ComparisonResult result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reportService = new ReportService();
+
+        List<DocumentMetadata> documentsA = SyntheticManifests.generate(rows, 0.0, 42);
+        List<DocumentMetadata> documentsB = SyntheticManifests.migrate(documentsA, mismatchRate, 7);
+        ComparisonService comparisonService = new ComparisonService();
+        result = comparisonService.compareDocuments(documentsA, documentsB);
+        comparisonService.shutdown();
+    }
+
+    @Benchmark
+    public void writeCsvReport() throws IOException {
+        reportService.writeCsvReport(result, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeDetailedCsvReport() throws IOException {
+        reportService.writeDetailedCsvReport(result.getMetadataMismatches(), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeXlsxReport() throws IOException {
+        reportService.writeXlsxReport(result, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public boolean writePdfReport() throws IOException {
+        return reportService.writePdfReport("benchmark", result, OutputStream.nullOutputStream(), ProgressListener.NONE);
+    }
+
+    @Benchmark
+    public String generateHtmlSummary() {
+        return reportService.generateHtmlSummary(result);
+    }
+}
@@ -0,0 +1,127 @@
+package com.excelcompare.benchmark;
+
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible document manifests shaped like real migration exports: a few
+ * distinct values for the categorical columns and unique names and claims per document.
+ */
+public final class SyntheticManifests {
+
+    // Header row in DocumentField order, using the names ExcelService recognises
+    private static final String[] HEADERS = {
+            "Policy No", "Document Location", "Folder Hierarchy", "Document Name", "Claim No", "Claimant",
+            "Date of Loss", "Adjustor Name", "Document Type", "Security Type", "Status", "Draft", "Migration"
+    };
+
+    private static final String[] LOCATIONS = {"/claims/archive", "/claims/active", "/underwriting", "/legal"};
+    private static final String[] DOCUMENT_TYPES = {"PDF", "DOCX", "XLSX", "MSG", "TIFF"};
+    private static final String[] SECURITY_TYPES = {"Public", "Internal", "Restricted"};
+    private static final String[] STATUSES = {"Active", "Closed", "Pending"};
+    private static final String[] ADJUSTORS = {"A. Patel", "B. Nguyen", "C. Okafor", "D. Schmidt", "E. Rossi"};
+
+    private SyntheticManifests() {}
+
+    /**
+     * @param duplicateRate fraction of rows that reuse the policy number of an earlier row
+     */
+    public static List<DocumentMetadata> generate(int rows, double duplicateRate, long seed) {
+        Random random = new Random(seed);
+        List<DocumentMetadata> documents = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String policyNo = i > 0 && random.nextDouble() < duplicateRate ?
+                    documents.get(random.nextInt(i)).getPolicyNo() : String.format("POL%08d", i);
+            documents.add(new DocumentMetadata(
+                    policyNo,
+                    pick(random, LOCATIONS),
+                    "/" + (i % 50) + "/" + (i % 7),
+                    "Document_" + i + ".pdf",
+                    "CLM" + (i / 3),
+                    "Claimant " + (i % 1000),
+                    "2023-" + (1 + i % 12) + "-" + (1 + i % 28),
+                    pick(random, ADJUSTORS),
+                    pick(random, DOCUMENT_TYPES),
+                    pick(random, SECURITY_TYPES),
+                    pick(random, STATUSES),
+                    random.nextBoolean() ? "Yes" : "No",
+                    random.nextDouble() < 0.9 ? "Y" : "N"
+            ));
+        }
+        return documents;
+    }
+
+    /**
+     * Copies the documents as the post-migration side, changing one compared field in a
+     * {@code mismatchRate} fraction of them.
+     */
+    public static List<DocumentMetadata> migrate(List<DocumentMetadata> documents, double mismatchRate, long seed) {
+        Random random = new Random(seed);
+        List<DocumentMetadata> migrated = new ArrayList<>(documents.size());
+        for (DocumentMetadata document : documents) {
+            String[] values = new String[DocumentField.count()];
+            for (DocumentField field : DocumentField.values()) {
+                values[field.ordinal()] = field.get(document);
+            }
+            if (random.nextDouble() < mismatchRate) {
+                DocumentField field = DocumentField.COMPARED_FIELDS.get(random.nextInt(DocumentField.COMPARED_FIELDS.size()));
+                values[field.ordinal()] = values[field.ordinal()] + "-changed";
+            }
+            migrated.add(DocumentField.toDocument(values));
+        }
+        return migrated;
+    }
+
+    public static void writeXlsx(List<DocumentMetadata> documents, Path file) throws IOException {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+             OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Documents");
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < HEADERS.length; c++) {
+                header.createCell(c).setCellValue(HEADERS[c]);
+            }
+            for (int r = 0; r < documents.size(); r++) {
+                Row row = sheet.createRow(r + 1);
+                for (DocumentField field : DocumentField.values()) {
+                    row.createCell(field.ordinal()).setCellValue(field.get(documents.get(r)));
+                }
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    public static void writeCsv(List<DocumentMetadata> documents, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(String.join(",", HEADERS));
+            out.write('\n');
+            for (DocumentMetadata document : documents) {
+                for (DocumentField field : DocumentField.values()) {
+                    if (field.ordinal() > 0) {
+                        out.write(',');
+                    }
+                    String value = field.get(document);
+                    out.write(value == null ? "" : '"' + value.replace("\"", "\"\"") + '"');
+                }
+                out.write('\n');
+            }
+        }
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
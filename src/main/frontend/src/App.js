@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { motion, AnimatePresence } from 'framer-motion';
 import FileUploader from './components/FileUploader';
 import StatsDashboard from './components/StatsDashboard';
@@ -7,6 +7,21 @@ import LoadingFallback from './components/LoadingFallback';
 import { excelComparison } from './services/api';
 import './App.css';
 
+const formatStage = (stage) => {
+  switch (stage) {
+    case 'QUEUED':
+      return 'Waiting in queue';
+    case 'PARSING_FILE_A':
+      return 'Reading pre-migration file';
+    case 'PARSING_FILE_B':
+      return 'Reading post-migration file';
+    case 'COMPARING':
+      return 'Comparing documents';
+    default:
+      return 'Finishing';
+  }
+};
+
 function App() {
   const [isLoading, setIsLoading] = useState(false);
   const [comparisonResult, setComparisonResult] = useState(null);
@@ -14,6 +29,37 @@ function App() {
   const [error, setError] = useState(null);
   const [currentStep, setCurrentStep] = useState('upload'); // upload, results
   const [isAppReady, setIsAppReady] = useState(false);
+  const [jobStatus, setJobStatus] = useState(null);
+  const jobIdRef = useRef(null);
+
+  const waitForJob = async (jobId) => {
+    // Poll the job until it reaches a terminal stage
+    for (;;) {
+      const status = await excelComparison.getComparisonJob(jobId);
+      setJobStatus(status);
+
+      if (status.stage === 'COMPLETED') {
+        return status;
+      }
+      if (status.stage === 'FAILED') {
+        throw new Error(status.error || 'Comparison failed');
+      }
+      if (status.stage === 'CANCELLED') {
+        throw new Error('Comparison was cancelled');
+      }
+      await new Promise(resolve => setTimeout(resolve, 1000));
+    }
+  };
+
+  const handleCancel = async () => {
+    if (jobIdRef.current) {
+      try {
+        await excelComparison.cancelComparisonJob(jobIdRef.current);
+      } catch (error) {
+        console.error('Error cancelling comparison:', error);
+      }
+    }
+  };
 
   const handleFilesSelected = async (fileA, fileB) => {
     setIsLoading(true);
@@ -30,14 +76,20 @@ function App() {
         fileB: fileB.name 
       });
 
-      const response = await excelComparison.compareFiles(fileA, fileB);
-      
-      if (!response || !response.result) {
+      const job = await excelComparison.startComparisonJob(fileA, fileB);
+      jobIdRef.current = job.jobId;
+      setJobStatus(job);
+
+      const status = await waitForJob(job.jobId);
+      // Only the summary is loaded here, the result lists are paged in by ComparisonResults
+      const statistics = await excelComparison.getComparisonStatistics(status.comparisonId);
+
+      if (!statistics) {
         throw new Error('Invalid response from server');
       }
 
-      setComparisonResult(response.result);
-      setComparisonId(response.comparisonId);
+      setComparisonResult({ statistics });
+      setComparisonId(status.comparisonId);
       setCurrentStep('results');
       
       console.log('File comparison completed successfully');
@@ -51,7 +103,7 @@ function App() {
       } else if (error.response?.status === 413) {
         errorMessage = 'Files are too large. Please try with smaller files.';
       } else if (error.response?.status === 400) {
-        errorMessage = error.response?.data?.error || 'Invalid file format. Please upload valid Excel files (.xlsx or .xls).';
+        errorMessage = error.response?.data?.error || 'Invalid file format. Please upload valid Excel or delimited files (.xlsx, .xls, .csv or .tsv).';
       } else if (error.response?.status >= 500) {
         errorMessage = 'Server error occurred. Please try again later.';
       } else if (error.response?.data?.error) {
@@ -62,6 +114,8 @@ function App() {
       
       setError(errorMessage);
     } finally {
+      jobIdRef.current = null;
+      setJobStatus(null);
       setIsLoading(false);
     }
   };
@@ -254,6 +308,20 @@ function App() {
                 <p style={{ color: '#6c757d', margin: 0 }}>
                   Analyzing and comparing your Excel files...
                 </p>
+                {jobStatus && (
+                  <div style={{ marginTop: '16px', color: '#6c757d' }}>
+                    <p style={{ margin: '0 0 8px' }}>
+                      {formatStage(jobStatus.stage)} &middot; {Math.round(jobStatus.progress * 100)}%
+                    </p>
+                    <p style={{ margin: '0 0 8px', fontSize: '14px' }}>
+                      {jobStatus.rowsProcessed.toLocaleString()} rows processed
+                      {jobStatus.etaMillis != null && ` · about ${Math.ceil(jobStatus.etaMillis / 1000)}s remaining`}
+                    </p>
+                    <button onClick={handleCancel} className="btn btn-secondary" style={{ marginTop: '8px' }}>
+                      Cancel
+                    </button>
+                  </div>
+                )}
               </motion.div>
             </motion.div>
           )}
@@ -1,37 +1,119 @@
-import React, { useState } from 'react';
+import React, { useState, useEffect, useCallback } from 'react';
 import { motion } from 'framer-motion';
 import { excelComparison } from '../services/api';
 
+const PAGE_SIZE = 50;
+
+const SECTIONS = ['mismatches', 'missing-b', 'missing-a', 'matched'];
+
+// Backend endpoint of each tab
+const SECTION_PATHS = {
+  'mismatches': 'mismatches',
+  'missing-b': 'missing-in-b',
+  'missing-a': 'missing-in-a',
+  'matched': 'matched'
+};
+
+const MISMATCH_SORTS = [
+  { value: '', label: 'Policy No' },
+  { value: 'fieldName', label: 'Field Name' },
+  { value: 'valueA', label: 'Pre-Migration Value' },
+  { value: 'valueB', label: 'Post-Migration Value' }
+];
+
+const DOCUMENT_SORTS = [
+  { value: '', label: 'Policy No' },
+  { value: 'documentName', label: 'Document Name' },
+  { value: 'claimNo', label: 'Claim No' },
+  { value: 'documentType', label: 'Document Type' },
+  { value: 'status', label: 'Status' }
+];
+
+// Only the columns shown in the tables are requested
+const MISMATCH_FIELDS = 'policyNo,fieldName,valueA,valueB,documentA';
+const DOCUMENT_FIELDS = 'policyNo,documentName,claimNo,documentType,status,migration';
+
+const emptyPage = { items: [], totalItems: null, nextCursor: null, loading: false };
+
 const ComparisonResults = ({ comparisonResult, comparisonId }) => {
   const [activeTab, setActiveTab] = useState('mismatches');
   const [selectedField, setSelectedField] = useState('');
-  const [filteredData, setFilteredData] = useState(null);
+  const [appliedField, setAppliedField] = useState('');
+  const [sortBy, setSortBy] = useState({});
+  const [pages, setPages] = useState({});
   const [isExporting, setIsExporting] = useState(false);
 
+  const loadPage = useCallback(async (section, cursor = null) => {
+    setPages(current => ({
+      ...current,
+      [section]: { ...(cursor ? current[section] : emptyPage), loading: true }
+    }));
+
+    try {
+      const page = await excelComparison.getResultPage(comparisonId, SECTION_PATHS[section], {
+        cursor,
+        size: PAGE_SIZE,
+        sort: sortBy[section],
+        fields: section === 'mismatches' ? MISMATCH_FIELDS : DOCUMENT_FIELDS,
+        fieldName: section === 'mismatches' ? appliedField : null
+      });
+
+      setPages(current => ({
+        ...current,
+        [section]: {
+          items: cursor ? [...current[section].items, ...page.items] : page.items,
+          totalItems: page.totalItems,
+          nextCursor: page.nextCursor,
+          loading: false
+        }
+      }));
+    } catch (error) {
+      console.error('Error loading results:', error);
+      setPages(current => ({ ...current, [section]: { ...current[section], loading: false } }));
+    }
+  }, [comparisonId, sortBy, appliedField]);
+
+  // Load the first page of every tab so the tab labels show their counts
+  useEffect(() => {
+    if (comparisonId) {
+      SECTIONS.forEach(section => loadPage(section));
+    }
+  }, [comparisonId, loadPage]);
+
   if (!comparisonResult) {
     console.warn('ComparisonResults: comparisonResult prop is required');
     return null;
   }
 
-  // Defensive extraction with defaults
-  const {
-    metadataMismatches = [],
-    missingInA = [],
-    missingInB = [],
-    matchedDocuments = []
-  } = comparisonResult;
-
-  const handleFilter = async () => {
-    if (selectedField) {
-      try {
-        const data = await excelComparison.getFilteredMismatches(comparisonId, selectedField);
-        setFilteredData(data);
-      } catch (error) {
-        console.error('Error filtering data:', error);
-      }
-    } else {
-      setFilteredData(null);
+  const { statistics = {} } = comparisonResult;
+
+  const pageOf = (section) => pages[section] || emptyPage;
+
+  const handleFilter = () => {
+    setAppliedField(selectedField);
+  };
+
+  const handleSort = (value) => {
+    setSortBy(current => ({ ...current, [activeTab]: value }));
+  };
+
+  const renderLoadMore = (section) => {
+    const page = pageOf(section);
+    if (!page.nextCursor) {
+      return null;
     }
+
+    return (
+      <div className="text-center" style={{ marginTop: '16px' }}>
+        <button
+          onClick={() => loadPage(section, page.nextCursor)}
+          disabled={page.loading}
+          className="btn btn-secondary"
+        >
+          {page.loading ? 'Loading...' : `Load more (${page.items.length} of ${page.totalItems})`}
+        </button>
+      </div>
+    );
   };
 
   const handleExport = async (exportType) => {
@@ -46,9 +128,27 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
           filename = 'comparison_report.csv';
           break;
         case 'detailed-csv':
-          blob = await excelComparison.exportDetailedCsv(comparisonId, selectedField);
+          blob = await excelComparison.exportDetailedCsv(comparisonId, appliedField);
           filename = 'detailed_mismatches.csv';
           break;
+        case 'xlsx':
+          blob = await excelComparison.exportXlsx(comparisonId);
+          filename = 'comparison_report.xlsx';
+          break;
+        case 'pdf': {
+          // The report is written in the background, poll until it can be downloaded
+          let job = await excelComparison.startPdfExport(comparisonId);
+          while (job.stage === 'QUEUED' || job.stage === 'WRITING') {
+            await new Promise(resolve => setTimeout(resolve, 1000));
+            job = await excelComparison.getPdfExport(job.jobId);
+          }
+          if (job.stage !== 'COMPLETED') {
+            throw new Error(job.error || 'PDF report was not written');
+          }
+          blob = await excelComparison.downloadPdfExport(job.jobId);
+          filename = 'comparison_report.pdf';
+          break;
+        }
         case 'html':
           const htmlContent = await excelComparison.exportHtml(comparisonId);
           blob = new Blob([htmlContent], { type: 'text/html' });
@@ -76,9 +176,13 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
   };
 
   const renderMismatches = () => {
-    const mismatches = filteredData ? filteredData.mismatches : metadataMismatches;
-    
-    if (!mismatches || mismatches.length === 0) {
+    const { items: mismatches, loading } = pageOf('mismatches');
+
+    if (mismatches.length === 0) {
+      if (loading) {
+        return <div className="spinner" style={{ margin: '40px auto' }}></div>;
+      }
+
       return (
         <div className="text-center" style={{ padding: '40px', color: '#6c757d' }}>
           <div style={{ fontSize: '48px', marginBottom: '16px' }}>✅</div>
@@ -106,7 +210,7 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
                 key={index}
                 initial={{ opacity: 0, x: -20 }}
                 animate={{ opacity: 1, x: 0 }}
-                transition={{ delay: index * 0.05 }}
+                transition={{ delay: (index % PAGE_SIZE) * 0.05 }}
               >
                 <td><strong>{mismatch.policyNo}</strong></td>
                 <td>
@@ -125,12 +229,19 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
             ))}
           </tbody>
         </table>
+        {renderLoadMore('mismatches')}
       </div>
     );
   };
 
-  const renderMissingDocuments = (documents, title, emptyMessage) => {
-    if (!documents || documents.length === 0) {
+  const renderMissingDocuments = (section, title, emptyMessage) => {
+    const { items: documents, totalItems, loading } = pageOf(section);
+
+    if (documents.length === 0) {
+      if (loading) {
+        return <div className="spinner" style={{ margin: '40px auto' }}></div>;
+      }
+
       return (
         <div className="text-center" style={{ padding: '40px', color: '#6c757d' }}>
           <div style={{ fontSize: '48px', marginBottom: '16px' }}>✅</div>
@@ -141,7 +252,7 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
 
     return (
       <div>
-        <h4 style={{ marginBottom: '20px', color: '#333' }}>{title} ({documents.length})</h4>
+        <h4 style={{ marginBottom: '20px', color: '#333' }}>{title} ({totalItems})</h4>
         <div className="table-responsive">
           <table className="table table-striped">
             <thead>
@@ -160,7 +271,7 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
                   key={index}
                   initial={{ opacity: 0, x: -20 }}
                   animate={{ opacity: 1, x: 0 }}
-                  transition={{ delay: index * 0.05 }}
+                  transition={{ delay: (index % PAGE_SIZE) * 0.05 }}
                 >
                   <td><strong>{doc.policyNo}</strong></td>
                   <td style={{ maxWidth: '200px', wordBreak: 'break-word' }}>
@@ -179,11 +290,14 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
             </tbody>
           </table>
         </div>
+        {renderLoadMore(section)}
       </div>
     );
   };
 
-  const uniqueFields = [...new Set(metadataMismatches.map(m => m.fieldName))];
+  const uniqueFields = Object.keys(statistics.mismatchTypesCounts || {});
+  const sortOptions = activeTab === 'mismatches' ? MISMATCH_SORTS : DOCUMENT_SORTS;
+  const tabCount = (section) => pageOf(section).totalItems ?? '…';
 
   return (
     <motion.div 
@@ -196,6 +310,17 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
           <h2 style={{ color: '#333', margin: 0 }}>Detailed Results</h2>
           
           <div style={{ display: 'flex', gap: '12px', alignItems: 'center' }}>
+            <select
+              value={sortBy[activeTab] || ''}
+              onChange={(e) => handleSort(e.target.value)}
+              className="form-control"
+              style={{ width: '200px' }}
+            >
+              {sortOptions.map(option => (
+                <option key={option.value} value={option.value}>Sort by {option.label}</option>
+              ))}
+            </select>
+
             <select
               value={selectedField}
               onChange={(e) => setSelectedField(e.target.value)}
@@ -230,6 +355,20 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
           >
             Export Detailed CSV
           </button>
+          <button
+            onClick={() => handleExport('xlsx')}
+            disabled={isExporting}
+            className="btn btn-success"
+          >
+            Export Excel Workbook
+          </button>
+          <button
+            onClick={() => handleExport('pdf')}
+            disabled={isExporting}
+            className="btn btn-success"
+          >
+            Export PDF Report
+          </button>
           <button 
             onClick={() => handleExport('html')} 
             disabled={isExporting}
@@ -243,10 +382,10 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
         <div style={{ borderBottom: '2px solid #e9ecef', marginBottom: '24px' }}>
           <div style={{ display: 'flex', gap: '24px' }}>
             {[
-              { key: 'mismatches', label: `Metadata Mismatches (${metadataMismatches.length})` },
-              { key: 'missing-b', label: `Missing in Post-Migration (${missingInB.length})` },
-              { key: 'missing-a', label: `Missing in Pre-Migration (${missingInA.length})` },
-              { key: 'matched', label: `Perfect Matches (${matchedDocuments.length})` }
+              { key: 'mismatches', label: `Metadata Mismatches (${tabCount('mismatches')})` },
+              { key: 'missing-b', label: `Missing in Post-Migration (${tabCount('missing-b')})` },
+              { key: 'missing-a', label: `Missing in Pre-Migration (${tabCount('missing-a')})` },
+              { key: 'matched', label: `Perfect Matches (${tabCount('matched')})` }
             ].map(tab => (
               <button
                 key={tab.key}
@@ -268,19 +407,19 @@ const ComparisonResults = ({ comparisonResult, comparisonId }) => {
           {activeTab === 'mismatches' && renderMismatches()}
           
           {activeTab === 'missing-b' && renderMissingDocuments(
-            missingInB,
+            'missing-b',
             'Documents Missing in Post-Migration File',
             'All documents from pre-migration file were found in post-migration file!'
           )}
           
           {activeTab === 'missing-a' && renderMissingDocuments(
-            missingInA,
+            'missing-a',
             'Documents Missing in Pre-Migration File',
             'No additional documents found in post-migration file!'
           )}
           
           {activeTab === 'matched' && renderMissingDocuments(
-            matchedDocuments,
+            'matched',
             'Documents with Perfect Metadata Match',
             'No documents have perfect metadata matches!'
           )}
@@ -23,7 +23,9 @@ const FileUploader = ({ onFilesSelected, isLoading }) => {
   const dropzoneA = useDropzone({
     accept: {
       'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet': ['.xlsx'],
-      'application/vnd.ms-excel': ['.xls']
+      'application/vnd.ms-excel': ['.xls'],
+      'text/csv': ['.csv'],
+      'text/tab-separated-values': ['.tsv']
     },
     maxFiles: 1,
     onDrop: onDropA,
@@ -34,7 +36,9 @@ const FileUploader = ({ onFilesSelected, isLoading }) => {
   const dropzoneB = useDropzone({
     accept: {
       'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet': ['.xlsx'],
-      'application/vnd.ms-excel': ['.xls']
+      'application/vnd.ms-excel': ['.xls'],
+      'text/csv': ['.csv'],
+      'text/tab-separated-values': ['.tsv']
     },
     maxFiles: 1,
     onDrop: onDropB,
@@ -146,7 +150,7 @@ const FileUploader = ({ onFilesSelected, isLoading }) => {
               }
             </p>
             <p style={{ fontSize: '12px', color: '#adb5bd', marginTop: '8px' }}>
-              Supports .xlsx and .xls files
+              Supports .xlsx, .xls, .csv and .tsv files
             </p>
           </motion.div>
         )}
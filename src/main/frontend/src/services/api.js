@@ -42,11 +42,15 @@ api.interceptors.response.use(
 );
 
 export const excelComparison = {
-  // Upload and compare files
-  compareFiles: async (fileA, fileB) => {
+  // Upload and compare files; each side may be one file or an array of files.
+  // sheets is '*' for every sheet or a comma-separated list of sheet names.
+  compareFiles: async (fileA, fileB, sheets) => {
     const formData = new FormData();
-    formData.append('fileA', fileA);
-    formData.append('fileB', fileB);
+    [].concat(fileA).forEach(file => formData.append('fileA', file));
+    [].concat(fileB).forEach(file => formData.append('fileB', file));
+    if (sheets) {
+      formData.append('sheets', sheets);
+    }
     
     const response = await api.post('/compare/upload', formData, {
       headers: {
@@ -56,12 +60,61 @@ export const excelComparison = {
     return response.data;
   },
 
+  // Start an asynchronous comparison job
+  startComparisonJob: async (fileA, fileB) => {
+    const formData = new FormData();
+    formData.append('fileA', fileA);
+    formData.append('fileB', fileB);
+
+    const response = await api.post('/compare/jobs', formData, {
+      headers: {
+        'Content-Type': 'multipart/form-data',
+      },
+      timeout: 0, // uploads of large files may exceed the default timeout
+    });
+    return response.data;
+  },
+
+  // Get progress of a comparison job
+  getComparisonJob: async (jobId) => {
+    const response = await api.get(`/compare/jobs/${jobId}`);
+    return response.data;
+  },
+
+  // Cancel a comparison job
+  cancelComparisonJob: async (jobId) => {
+    const response = await api.delete(`/compare/jobs/${jobId}`);
+    return response.data;
+  },
+
   // Get comparison result
   getComparisonResult: async (comparisonId) => {
     const response = await api.get(`/compare/result/${comparisonId}`);
     return response.data;
   },
 
+  // Get the statistics summary of a comparison
+  getComparisonStatistics: async (comparisonId) => {
+    const response = await api.get(`/compare/result/${comparisonId}/statistics`);
+    return response.data;
+  },
+
+  // Get one page of a result list: mismatches, missing-in-a, missing-in-b or matched
+  getResultPage: async (comparisonId, section, { cursor, size, sort, fields, fieldName, migrationStatus, documentType, policyPrefix } = {}) => {
+    const params = new URLSearchParams();
+    if (cursor) params.append('cursor', cursor);
+    if (size) params.append('size', size);
+    if (sort) params.append('sort', sort);
+    if (fields) params.append('fields', fields);
+    if (fieldName) params.append('fieldName', fieldName);
+    if (migrationStatus) params.append('migrationStatus', migrationStatus);
+    if (documentType) params.append('documentType', documentType);
+    if (policyPrefix) params.append('policyPrefix', policyPrefix);
+
+    const response = await api.get(`/compare/result/${comparisonId}/${section}?${params}`);
+    return response.data;
+  },
+
   // Get filtered mismatches
   getFilteredMismatches: async (comparisonId, fieldName = null, migrationStatus = null) => {
     const params = new URLSearchParams();
@@ -72,6 +125,16 @@ export const excelComparison = {
     return response.data;
   },
 
+  // Get statistics of stored comparisons summed per day or week
+  getTrends: async (period = 'day', from = null, to = null) => {
+    const params = new URLSearchParams({ period });
+    if (from) params.append('from', from);
+    if (to) params.append('to', to);
+
+    const response = await api.get(`/compare/trends?${params}`);
+    return response.data;
+  },
+
   // Export CSV
   exportCsv: async (comparisonId) => {
     const response = await api.get(`/compare/export/csv/${comparisonId}`, {
@@ -89,6 +152,34 @@ export const excelComparison = {
     return response.data;
   },
 
+  // Export XLSX
+  exportXlsx: async (comparisonId) => {
+    const response = await api.get(`/compare/export/xlsx/${comparisonId}`, {
+      responseType: 'blob',
+    });
+    return response.data;
+  },
+
+  // Start writing the PDF report in the background
+  startPdfExport: async (comparisonId) => {
+    const response = await api.post(`/compare/export/pdf/${comparisonId}`);
+    return response.data;
+  },
+
+  // Get progress of a PDF report
+  getPdfExport: async (jobId) => {
+    const response = await api.get(`/compare/export/pdf/jobs/${jobId}`);
+    return response.data;
+  },
+
+  // Download a completed PDF report
+  downloadPdfExport: async (jobId) => {
+    const response = await api.get(`/compare/export/pdf/jobs/${jobId}/file`, {
+      responseType: 'blob',
+    });
+    return response.data;
+  },
+
   // Export HTML
   exportHtml: async (comparisonId) => {
     const response = await api.get(`/compare/export/html/${comparisonId}`);
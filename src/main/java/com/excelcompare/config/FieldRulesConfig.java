@@ -0,0 +1,23 @@
+package com.excelcompare.config;
+
+import com.excelcompare.service.FieldRules;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Map;
+
+@Configuration
+public class FieldRulesConfig {
+
+    // Rules are read once at startup, so a bad rule stops the application instead of a comparison
+    @Bean
+    public FieldRules fieldRules(Environment environment) {
+        Map<String, String> rules = Binder.get(environment)
+                .bind("comparison.rules", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        return FieldRules.parse(rules);
+    }
+}
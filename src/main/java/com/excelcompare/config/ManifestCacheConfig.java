@@ -0,0 +1,24 @@
+package com.excelcompare.config;
+
+import com.excelcompare.store.ManifestCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class ManifestCacheConfig {
+
+    @Bean
+    public ManifestCache manifestCache(
+            @Value("${comparison.manifest-cache.memory-mb:256}") long memoryMb,
+            @Value("${comparison.manifest-cache.disk.enabled:true}") boolean diskEnabled,
+            @Value("${comparison.manifest-cache.disk.directory:${java.io.tmpdir}/excel-compare-manifests}") String directory,
+            @Value("${comparison.manifest-cache.disk.max-mb:2048}") long diskMaxMb) {
+        return new ManifestCache(
+                memoryMb * 1024 * 1024,
+                diskEnabled ? Path.of(directory) : null,
+                diskMaxMb * 1024 * 1024);
+    }
+}
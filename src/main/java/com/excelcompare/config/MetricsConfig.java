@@ -0,0 +1,69 @@
+package com.excelcompare.config;
+
+import com.excelcompare.service.ComparisonJobService;
+import com.excelcompare.store.ComparisonResultStore;
+import com.excelcompare.store.ManifestCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder resultStoreMetrics(ComparisonResultStore resultStore) {
+        return registry -> {
+            Gauge.builder("comparison.store.entries", resultStore, store -> store.getStatistics().getEntries())
+                    .description("Results held in memory by the result store")
+                    .register(registry);
+            Gauge.builder("comparison.store.weight", resultStore, store -> store.getStatistics().getWeight())
+                    .description("Rows held in memory by the result store")
+                    .register(registry);
+            FunctionCounter.builder("comparison.store.hits", resultStore, store -> store.getStatistics().getHits())
+                    .register(registry);
+            FunctionCounter.builder("comparison.store.misses", resultStore, store -> store.getStatistics().getMisses())
+                    .register(registry);
+            FunctionCounter.builder("comparison.store.evictions", resultStore, store -> store.getStatistics().getEvictions())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder manifestCacheMetrics(ManifestCache manifestCache) {
+        return registry -> {
+            FunctionCounter.builder("comparison.manifests.hits", manifestCache, cache -> cache.getStatistics().getMemoryHits())
+                    .tag("tier", "memory")
+                    .register(registry);
+            FunctionCounter.builder("comparison.manifests.hits", manifestCache, cache -> cache.getStatistics().getDiskHits())
+                    .tag("tier", "disk")
+                    .register(registry);
+            FunctionCounter.builder("comparison.manifests.misses", manifestCache, cache -> cache.getStatistics().getMisses())
+                    .register(registry);
+            FunctionCounter.builder("comparison.manifests.evictions", manifestCache, cache -> cache.getStatistics().getEvictions())
+                    .register(registry);
+            Gauge.builder("comparison.manifests.hit.ratio", manifestCache, cache -> cache.getStatistics().getHitRate())
+                    .description("Share of uploads whose manifest came from the cache")
+                    .register(registry);
+            Gauge.builder("comparison.manifests.memory", manifestCache, cache -> cache.getStatistics().getMemoryBytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("comparison.manifests.disk", manifestCache, cache -> cache.getStatistics().getDiskBytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder comparisonJobMetrics(ComparisonJobService jobService) {
+        return registry -> {
+            Gauge.builder("comparison.jobs.queued", jobService, ComparisonJobService::getQueuedJobCount)
+                    .description("Comparison jobs waiting for a worker")
+                    .register(registry);
+            Gauge.builder("comparison.jobs.running", jobService, ComparisonJobService::getRunningJobCount)
+                    .description("Comparison jobs being processed")
+                    .register(registry);
+        };
+    }
+}
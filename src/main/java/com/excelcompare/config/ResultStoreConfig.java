@@ -0,0 +1,48 @@
+package com.excelcompare.config;
+
+import com.excelcompare.store.CachingComparisonResultStore;
+import com.excelcompare.store.ComparisonResultStore;
+import com.excelcompare.store.FileComparisonResultStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class ResultStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "comparison.store.type", havingValue = "memory", matchIfMissing = true)
+    public ComparisonResultStore cachingComparisonResultStore(
+            @Value("${comparison.store.max-weight:5000000}") long maxWeight,
+            @Value("${comparison.store.ttl-minutes:120}") long ttlMinutes,
+            @Value("${comparison.store.spill.enabled:true}") boolean spillEnabled,
+            @Value("${comparison.store.spill.directory:${java.io.tmpdir}/excel-compare-results}") String spillDirectory,
+            @Value("${comparison.store.spill.retention-hours:24}") long spillRetentionHours,
+            ObjectMapper objectMapper) {
+        return new CachingComparisonResultStore(
+                maxWeight,
+                Duration.ofMinutes(ttlMinutes),
+                spillEnabled ? Path.of(spillDirectory) : null,
+                Duration.ofHours(spillRetentionHours),
+                objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "comparison.store.type", havingValue = "file")
+    public ComparisonResultStore fileComparisonResultStore(
+            @Value("${comparison.store.file.directory:${user.home}/.excel-compare/results}") String directory,
+            @Value("${comparison.store.file.retention-hours:720}") long retentionHours,
+            @Value("${comparison.store.file.open-results:16}") int openResults,
+            ObjectMapper objectMapper) {
+        return new FileComparisonResultStore(
+                Path.of(directory),
+                Duration.ofHours(retentionHours),
+                openResults,
+                objectMapper);
+    }
+}
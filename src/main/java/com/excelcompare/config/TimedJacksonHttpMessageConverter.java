@@ -0,0 +1,52 @@
+package com.excelcompare.config;
+
+import com.excelcompare.metrics.PipelineMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Jackson converter that times how long each response body takes to serialise, tagged by
+ * the type of the body.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final PipelineMetrics metrics;
+
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, PipelineMetrics metrics) {
+        super(objectMapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            metrics.stopSerialization(sample, typeTag(object));
+        }
+    }
+
+    // Collection implementations vary per endpoint, so keep the tag values few and stable
+    private static String typeTag(Object object) {
+        if (object == null) {
+            return "null";
+        }
+        if (object instanceof Map) {
+            return "Map";
+        }
+        if (object instanceof Collection) {
+            return "Collection";
+        }
+        return object.getClass().getSimpleName();
+    }
+}
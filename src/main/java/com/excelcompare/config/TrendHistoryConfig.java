@@ -0,0 +1,31 @@
+package com.excelcompare.config;
+
+import com.excelcompare.store.TrendHistory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+
+@Configuration
+public class TrendHistoryConfig {
+
+    @Bean
+    public TrendHistory trendHistory(
+            @Value("${comparison.trends.persist:false}") boolean persist,
+            @Value("${comparison.trends.file:${user.home}/.excel-compare/trends.ndjson}") String file,
+            @Value("${comparison.trends.retention-days:400}") long retentionDays,
+            @Value("${comparison.trends.zone:}") String zone,
+            ObjectMapper objectMapper) {
+        return new TrendHistory(
+                persist ? Path.of(file) : null,
+                Duration.ofDays(retentionDays),
+                zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone),
+                objectMapper,
+                Clock.systemDefaultZone());
+    }
+}
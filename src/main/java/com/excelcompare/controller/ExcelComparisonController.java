@@ -1,11 +1,39 @@
 package com.excelcompare.controller;
 
+import com.excelcompare.dto.ComparisonJobStatus;
 import com.excelcompare.dto.ComparisonResult;
 import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.dto.ComparisonResult.SheetRowCount;
+import com.excelcompare.dto.ManifestCacheStatistics;
+import com.excelcompare.dto.MismatchTable;
+import com.excelcompare.dto.NormalizedComparisonResult;
+import com.excelcompare.dto.ResultFilter;
+import com.excelcompare.dto.ReportJobStatus;
+import com.excelcompare.dto.ResultPage;
+import com.excelcompare.dto.ResultSection;
+import com.excelcompare.dto.ResultStoreStatistics;
+import com.excelcompare.dto.StatisticsSnapshot;
+import com.excelcompare.dto.TrendBucket;
+import com.excelcompare.metrics.PipelineMetrics;
 import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.service.ComparisonJob;
+import com.excelcompare.service.ComparisonJobService;
 import com.excelcompare.service.ComparisonService;
+import com.excelcompare.service.DocumentSpool;
 import com.excelcompare.service.ExcelService;
+import com.excelcompare.service.IncrementalComparisonService;
+import com.excelcompare.service.ManifestIngestionService;
+import com.excelcompare.service.ParseExecutor;
+import com.excelcompare.service.ReportJob;
+import com.excelcompare.service.ReportJobService;
 import com.excelcompare.service.ReportService;
+import com.excelcompare.service.ResultQueryService;
+import com.excelcompare.service.ResultStreamService;
+import com.excelcompare.service.SheetSelection;
+import com.excelcompare.store.ComparisonResultStore;
+import com.excelcompare.store.ManifestCache;
+import com.excelcompare.store.ResultIndex;
+import com.excelcompare.store.TrendHistory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -13,10 +41,20 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/compare")
@@ -31,81 +69,322 @@ public class ExcelComparisonController {
     @Autowired
     private ReportService reportService;
 
-    // Store comparison results temporarily (in production, use proper storage)
-    private Map<String, ComparisonResult> comparisonResults = new HashMap<>();
-    private String lastComparisonId = null;
+    @Autowired
+    private ComparisonJobService comparisonJobService;
+
+    @Autowired
+    private ParseExecutor parseExecutor;
+
+    @Autowired
+    private ManifestIngestionService manifestIngestionService;
+
+    @Autowired
+    private IncrementalComparisonService incrementalComparisonService;
+
+    @Autowired
+    private ResultQueryService resultQueryService;
+
+    @Autowired
+    private ResultStreamService resultStreamService;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private ComparisonResultStore resultStore;
+
+    @Autowired
+    private ManifestCache manifestCache;
+
+    @Autowired
+    private TrendHistory trendHistory;
+
+    private volatile String lastComparisonId = null;
 
+    /**
+     * Compares one or more files per side. By default only the first sheet of each workbook is
+     * read; {@code sheets} selects every sheet ({@code *}) or the sheets with the given names.
+     */
     @PostMapping("/upload")
     public ResponseEntity<?> compareFiles(
-            @RequestParam("fileA") MultipartFile fileA,
-            @RequestParam("fileB") MultipartFile fileB) {
+            @RequestParam("fileA") List<MultipartFile> filesA,
+            @RequestParam("fileB") List<MultipartFile> filesB,
+            @RequestParam(required = false) String sheets) {
         
         try {
             // Validate files
-            if (!excelService.isValidExcelFile(fileA) || !excelService.isValidExcelFile(fileB)) {
+            if (!filesA.stream().allMatch(excelService::isValidExcelFile)
+                    || !filesB.stream().allMatch(excelService::isValidExcelFile)) {
                 return ResponseEntity.badRequest()
-                        .body(Map.of("error", "Please upload valid Excel files (.xlsx or .xls)"));
+                        .body(Map.of("error", "Please upload valid Excel or delimited files (.xlsx, .xls, .csv or .tsv)"));
             }
 
-            // Read Excel files
-            List<DocumentMetadata> documentsA = excelService.readExcelFile(fileA);
-            List<DocumentMetadata> documentsB = excelService.readExcelFile(fileB);
-
-            if (documentsA.isEmpty() && documentsB.isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "Both files appear to be empty or have no valid data"));
+            SheetSelection selection = SheetSelection.parse(sheets);
+            ComparisonResult result;
+            metrics.comparisonStarted();
+            try (DocumentSpool documentsA = comparisonService.createSpool();
+                 DocumentSpool documentsB = comparisonService.createSpool()) {
+                List<SheetRowCount> sheetsA;
+                List<SheetRowCount> sheetsB;
+                if (filesA.size() == 1 && filesB.size() == 1 && selection.isFirstOnly()) {
+                    // Read both Excel files at once, spilling to disk if they outgrow the memory budget
+                    parseExecutor.invokeAll(List.of(
+                            () -> readInto(filesA.get(0), documentsA),
+                            () -> readInto(filesB.get(0), documentsB)));
+                    sheetsA = List.of(new SheetRowCount(filesA.get(0).getOriginalFilename(), null, documentsA.size()));
+                    sheetsB = List.of(new SheetRowCount(filesB.get(0).getOriginalFilename(), null, documentsB.size()));
+                } else {
+                    // One task per sheet, merged into a single manifest per side
+                    List<List<SheetRowCount>> counts = manifestIngestionService.readSheets(
+                            List.of(filesA, filesB), selection, List.of(documentsA, documentsB));
+                    sheetsA = counts.get(0);
+                    sheetsB = counts.get(1);
+                }
+
+                if (documentsA.size() == 0 && documentsB.size() == 0) {
+                    return ResponseEntity.badRequest()
+                            .body(Map.of("error", "Both files appear to be empty or have no valid data"));
+                }
+
+                // Perform comparison
+                result = comparisonService.compareDocuments(documentsA, documentsB);
+                result.getStatistics().setSheetsA(sheetsA);
+                result.getStatistics().setSheetsB(sheetsB);
+            } finally {
+                metrics.comparisonFinished();
             }
 
-            // Perform comparison
-            ComparisonResult result = comparisonService.compareDocuments(documentsA, documentsB);
-
             // Store result for later export
-            String comparisonId = String.valueOf(System.currentTimeMillis());
-            comparisonResults.put(comparisonId, result);
-            lastComparisonId = comparisonId;
+            String comparisonId = storeResult(result);
 
-            // Return results with comparison ID
+            // Return the summary with the comparison ID, the result lists are fetched page by page
             Map<String, Object> response = new HashMap<>();
             response.put("comparisonId", comparisonId);
-            response.put("result", result);
+            response.put("statistics", result.getStatistics());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error processing files: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/incremental")
+    public ResponseEntity<?> compareIncrementally(
+            @RequestParam("fileA") MultipartFile fileA,
+            @RequestParam("fileB") MultipartFile fileB,
+            @RequestParam(required = false) String baselineId) {
+
+        if (!excelService.isValidExcelFile(fileA) || !excelService.isValidExcelFile(fileB)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Please upload valid Excel or delimited files (.xlsx, .xls, .csv or .tsv)"));
+        }
+
+        metrics.comparisonStarted();
+        try {
+            return ResponseEntity.ok(incrementalComparisonService.compare(fileA, fileB, baselineId, this::storeResult));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error processing files: " + e.getMessage()));
+        } finally {
+            metrics.comparisonFinished();
+        }
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitComparisonJob(
+            @RequestParam("fileA") MultipartFile fileA,
+            @RequestParam("fileB") MultipartFile fileB) {
+
+        if (!excelService.isValidExcelFile(fileA) || !excelService.isValidExcelFile(fileB)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Please upload valid Excel or delimited files (.xlsx, .xls, .csv or .tsv)"));
+        }
+
+        try {
+            ComparisonJob job = comparisonJobService.submit(fileA, fileB, this::storeResult);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toStatus());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many comparisons are queued, please try again later"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Error processing files: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ComparisonJobStatus> getComparisonJob(@PathVariable String jobId) {
+        return comparisonJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<ComparisonJobStatus> cancelComparisonJob(@PathVariable String jobId) {
+        return comparisonJobService.cancel(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the whole result. Mismatches refer to a table holding each pair of documents once,
+     * {@code normalized=false} repeats both documents in every mismatch instead.
+     */
     @GetMapping("/result/{comparisonId}")
-    public ResponseEntity<?> getComparisonResult(@PathVariable String comparisonId) {
-        ComparisonResult result = comparisonResults.get(comparisonId);
+    public ResponseEntity<?> getComparisonResult(
+            @PathVariable String comparisonId,
+            @RequestParam(defaultValue = "true") boolean normalized) {
+        ComparisonResult result = resultStore.find(comparisonId).orElse(null);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(normalized ? NormalizedComparisonResult.of(result) : result);
+    }
+
+    /**
+     * Streams the whole result with chunked transfer, statistics first and then every list element by
+     * element. {@code format=ndjson} writes one JSON object per line instead of a single document.
+     */
+    @GetMapping("/result/{comparisonId}/stream")
+    public ResponseEntity<StreamingResponseBody> streamComparisonResult(
+            @PathVariable String comparisonId,
+            @RequestParam(defaultValue = "json") String format) {
+        ComparisonResult result = resultStore.find(comparisonId).orElse(null);
         if (result == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(result);
+
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"json".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = ndjson
+                ? outputStream -> resultStreamService.writeNdjson(result, outputStream)
+                : outputStream -> resultStreamService.writeJson(result, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping("/result/{comparisonId}/statistics")
+    public ResponseEntity<?> getComparisonStatistics(@PathVariable String comparisonId) {
+        return resultStore.find(comparisonId)
+                .map(result -> ResponseEntity.ok(result.getStatistics()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/result/{comparisonId}/mismatches")
+    public ResponseEntity<?> getMismatchPage(
+            @PathVariable String comparisonId,
+            ResultFilter filter,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return getResultPage(comparisonId, ResultSection.MISMATCHES, filter, sort, fields, cursor, size);
+    }
+
+    @GetMapping("/result/{comparisonId}/missing-in-a")
+    public ResponseEntity<?> getMissingInAPage(
+            @PathVariable String comparisonId,
+            ResultFilter filter,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return getResultPage(comparisonId, ResultSection.MISSING_IN_A, filter, sort, fields, cursor, size);
+    }
+
+    @GetMapping("/result/{comparisonId}/missing-in-b")
+    public ResponseEntity<?> getMissingInBPage(
+            @PathVariable String comparisonId,
+            ResultFilter filter,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return getResultPage(comparisonId, ResultSection.MISSING_IN_B, filter, sort, fields, cursor, size);
+    }
+
+    @GetMapping("/result/{comparisonId}/matched")
+    public ResponseEntity<?> getMatchedPage(
+            @PathVariable String comparisonId,
+            ResultFilter filter,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return getResultPage(comparisonId, ResultSection.MATCHED, filter, sort, fields, cursor, size);
+    }
+
+    private ResponseEntity<?> getResultPage(String comparisonId, ResultSection section, ResultFilter filter,
+                                            String sort, String fields, String cursor, Integer size) {
+        ResultIndex index = resultStore.findIndexed(comparisonId).orElse(null);
+        if (index == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            ResultPage page = resultQueryService.query(
+                    comparisonId, index, section, filter, sort, fields, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/result/{comparisonId}/count")
+    public ResponseEntity<?> getResultCounts(@PathVariable String comparisonId, ResultFilter filter) {
+        ResultIndex index = resultStore.findIndexed(comparisonId).orElse(null);
+        if (index == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Sections the filter does not apply to are left out instead of failing the request
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (ResultSection section : ResultSection.values()) {
+            try {
+                counts.put(section.name(), index.count(section, filter));
+            } catch (IllegalArgumentException e) {
+                // Not applicable to this section
+            }
+        }
+        return ResponseEntity.ok(counts);
     }
 
     @GetMapping("/result/{comparisonId}/filter")
     public ResponseEntity<?> getFilteredMismatches(
             @PathVariable String comparisonId,
             @RequestParam(required = false) String fieldName,
-            @RequestParam(required = false) String migrationStatus) {
-        
-        ComparisonResult result = comparisonResults.get(comparisonId);
-        if (result == null) {
+            @RequestParam(required = false) String migrationStatus,
+            @RequestParam(defaultValue = "true") boolean normalized) {
+
+        ResultIndex index = resultStore.findIndexed(comparisonId).orElse(null);
+        if (index == null) {
             return ResponseEntity.notFound().build();
         }
+        ComparisonResult result = index.getResult();
 
-        List<DocumentMismatch> filteredMismatches = comparisonService.filterMismatches(
-                result.getMetadataMismatches(), fieldName);
+        // Answered from the index, the returned lists are views over the stored result
+        List<DocumentMismatch> filteredMismatches = ResultIndex.rowsAt(result.getMetadataMismatches(),
+                index.select(ResultSection.MISMATCHES, new ResultFilter(fieldName, null, null, null)));
 
         Map<String, Object> response = new HashMap<>();
-        response.put("mismatches", filteredMismatches);
+        response.put("mismatches", normalized ? MismatchTable.of(filteredMismatches) : filteredMismatches);
         
         if (migrationStatus != null) {
-            List<DocumentMetadata> filteredDocs = comparisonService.filterByMigrationStatus(
-                    result.getMatchedDocuments(), migrationStatus);
+            List<DocumentMetadata> filteredDocs = ResultIndex.rowsAt(result.getMatchedDocuments(),
+                    index.select(ResultSection.MATCHED, new ResultFilter(null, migrationStatus, null, null)));
             response.put("filteredDocuments", filteredDocs);
         }
 
@@ -113,60 +392,126 @@ public class ExcelComparisonController {
     }
 
     @GetMapping("/export/csv/{comparisonId}")
-    public ResponseEntity<byte[]> exportCsv(@PathVariable String comparisonId) {
-        try {
-            ComparisonResult result = comparisonResults.get(comparisonId);
-            if (result == null) {
-                return ResponseEntity.notFound().build();
-            }
-
-            byte[] csvData = reportService.generateCsvReport(result);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "comparison_report.csv");
+    public ResponseEntity<StreamingResponseBody> exportCsv(@PathVariable String comparisonId) {
+        ComparisonResult result = resultStore.find(comparisonId).orElse(null);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(csvData);
+        // Rows are written straight to the response as they are generated
+        StreamingResponseBody body = outputStream -> reportService.writeCsvReport(result, outputStream);
 
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        return ResponseEntity.ok()
+                .headers(csvHeaders("comparison_report.csv"))
+                .body(body);
     }
 
     @GetMapping("/export/csv/detailed/{comparisonId}")
-    public ResponseEntity<byte[]> exportDetailedCsv(
+    public ResponseEntity<StreamingResponseBody> exportDetailedCsv(
             @PathVariable String comparisonId,
             @RequestParam(required = false) String fieldName) {
-        try {
-            ComparisonResult result = comparisonResults.get(comparisonId);
-            if (result == null) {
-                return ResponseEntity.notFound().build();
-            }
+        ResultIndex index = resultStore.findIndexed(comparisonId).orElse(null);
+        if (index == null) {
+            return ResponseEntity.notFound().build();
+        }
 
-            List<DocumentMismatch> mismatches = fieldName != null ?
-                    comparisonService.filterMismatches(result.getMetadataMismatches(), fieldName) :
-                    result.getMetadataMismatches();
+        List<DocumentMismatch> mismatches = ResultIndex.rowsAt(index.getResult().getMetadataMismatches(),
+                index.select(ResultSection.MISMATCHES, new ResultFilter(fieldName, null, null, null)));
 
-            byte[] csvData = reportService.generateDetailedCsvReport(mismatches);
+        StreamingResponseBody body = outputStream -> reportService.writeDetailedCsvReport(mismatches, outputStream);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "detailed_mismatches.csv");
+        return ResponseEntity.ok()
+                .headers(csvHeaders("detailed_mismatches.csv"))
+                .body(body);
+    }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(csvData);
+    @GetMapping("/export/xlsx/{comparisonId}")
+    public ResponseEntity<StreamingResponseBody> exportXlsx(@PathVariable String comparisonId) {
+        ComparisonResult result = resultStore.find(comparisonId).orElse(null);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body = outputStream -> reportService.writeXlsxReport(result, outputStream);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentDispositionFormData("attachment", "comparison_report.xlsx");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    /**
+     * Queues the PDF report of a stored result; poll the returned job and download the report
+     * once it is completed.
+     */
+    @PostMapping("/export/pdf/{comparisonId}")
+    public ResponseEntity<?> submitPdfReport(@PathVariable String comparisonId) {
+        ComparisonResult result = resultStore.find(comparisonId).orElse(null);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
 
+        try {
+            ReportJob job = reportJobService.submitPdf(comparisonId, result);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toStatus());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many reports are queued, please try again later"));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error queueing report: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export/pdf/jobs/{jobId}")
+    public ResponseEntity<ReportJobStatus> getPdfReportJob(@PathVariable String jobId) {
+        return reportJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/export/pdf/jobs/{jobId}")
+    public ResponseEntity<ReportJobStatus> cancelPdfReportJob(@PathVariable String jobId) {
+        return reportJobService.cancel(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/export/pdf/jobs/{jobId}/file")
+    public ResponseEntity<?> downloadPdfReport(@PathVariable String jobId) {
+        ReportJob job = reportJobService.getJob(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
         }
+        if (job.getStage() != ReportJob.Stage.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.toStatus());
+        }
+
+        StreamingResponseBody body = outputStream -> Files.copy(job.getFile(), outputStream);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", "comparison_report.pdf");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    private HttpHeaders csvHeaders(String filename) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.setContentDispositionFormData("attachment", filename);
+        return headers;
     }
 
     @GetMapping("/export/html/{comparisonId}")
     public ResponseEntity<String> exportHtml(@PathVariable String comparisonId) {
-        ComparisonResult result = comparisonResults.get(comparisonId);
+        ComparisonResult result = resultStore.find(comparisonId).orElse(null);
         if (result == null) {
             return ResponseEntity.notFound().build();
         }
@@ -181,6 +526,69 @@ public class ExcelComparisonController {
                 .body(htmlContent);
     }
 
+    private DocumentSpool readInto(MultipartFile file, DocumentSpool documents) throws IOException {
+        excelService.readExcelFile(file, documents::add);
+        return documents;
+    }
+
+    private String storeResult(ComparisonResult result) {
+        String comparisonId = resultStore.save(result);
+        trendHistory.record(comparisonId, result.getStatistics(), Instant.now());
+        lastComparisonId = comparisonId;
+        return comparisonId;
+    }
+
+    /**
+     * Statistics of stored comparisons summed per {@code day} or {@code week}, answered from
+     * rollups kept up to date as comparisons are stored. Bounds are ISO dates and inclusive.
+     */
+    @GetMapping("/trends")
+    public ResponseEntity<?> getTrends(
+            @RequestParam(defaultValue = "day") String period,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            TrendHistory.Period rollup = TrendHistory.Period.valueOf(period.trim().toUpperCase(Locale.ROOT));
+            List<TrendBucket> buckets = trendHistory.getRollup(rollup, parseDate(from), parseDate(to));
+            return ResponseEntity.ok(buckets);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid trend query: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/trends/snapshots")
+    public ResponseEntity<?> getTrendSnapshots(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            List<StatisticsSnapshot> snapshots = trendHistory.getSnapshots(parseDate(from), parseDate(to));
+            return ResponseEntity.ok(snapshots);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid trend query: " + e.getMessage()));
+        }
+    }
+
+    private static LocalDate parseDate(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/store/stats")
+    public ResponseEntity<ResultStoreStatistics> getStoreStatistics() {
+        return ResponseEntity.ok(resultStore.getStatistics());
+    }
+
+    @GetMapping("/manifest-cache/stats")
+    public ResponseEntity<ManifestCacheStatistics> getManifestCacheStatistics() {
+        return ResponseEntity.ok(manifestCache.getStatistics());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
         return ResponseEntity.ok(Map.of("status", "UP", "service", "Excel Comparator"));
@@ -0,0 +1,51 @@
+package com.excelcompare.dto;
+
+public class ComparisonJobStatus {
+    private String jobId;
+    private String stage;
+    private long rowsProcessed;
+    private double progress;
+    private long elapsedMillis;
+    private Long etaMillis;
+    private String comparisonId;
+    private String error;
+
+    public ComparisonJobStatus() {}
+
+    public ComparisonJobStatus(String jobId, String stage, long rowsProcessed, double progress,
+                               long elapsedMillis, Long etaMillis, String comparisonId, String error) {
+        this.jobId = jobId;
+        this.stage = stage;
+        this.rowsProcessed = rowsProcessed;
+        this.progress = progress;
+        this.elapsedMillis = elapsedMillis;
+        this.etaMillis = etaMillis;
+        this.comparisonId = comparisonId;
+        this.error = error;
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getStage() { return stage; }
+    public void setStage(String stage) { this.stage = stage; }
+
+    public long getRowsProcessed() { return rowsProcessed; }
+    public void setRowsProcessed(long rowsProcessed) { this.rowsProcessed = rowsProcessed; }
+
+    public double getProgress() { return progress; }
+    public void setProgress(double progress) { this.progress = progress; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public Long getEtaMillis() { return etaMillis; }
+    public void setEtaMillis(Long etaMillis) { this.etaMillis = etaMillis; }
+
+    public String getComparisonId() { return comparisonId; }
+    public void setComparisonId(String comparisonId) { this.comparisonId = comparisonId; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -10,6 +10,7 @@ public class ComparisonResult {
     private List<DocumentMetadata> missingInA;
     private List<DocumentMismatch> metadataMismatches;
     private List<DocumentMetadata> matchedDocuments;
+    private List<DuplicateGroup> duplicateGroups;
 
     public ComparisonResult() {}
 
@@ -39,6 +40,9 @@ public class ComparisonResult {
     public List<DocumentMetadata> getMatchedDocuments() { return matchedDocuments; }
     public void setMatchedDocuments(List<DocumentMetadata> matchedDocuments) { this.matchedDocuments = matchedDocuments; }
 
+    public List<DuplicateGroup> getDuplicateGroups() { return duplicateGroups; }
+    public void setDuplicateGroups(List<DuplicateGroup> duplicateGroups) { this.duplicateGroups = duplicateGroups; }
+
     public static class ComparisonStatistics {
         private int totalDocumentsA;
         private int totalDocumentsB;
@@ -47,6 +51,12 @@ public class ComparisonResult {
         private int metadataMismatches;
         private int unmatchedDocuments;
         private Map<String, Integer> mismatchTypesCounts;
+        // Fields that identify a document on both sides, and how many keys have more than one row on a side
+        private List<String> matchKey;
+        private int duplicateGroups;
+        // Rows read from each sheet, when the sides were read sheet by sheet
+        private List<SheetRowCount> sheetsA;
+        private List<SheetRowCount> sheetsB;
 
         public ComparisonStatistics() {}
 
@@ -83,6 +93,66 @@ public class ComparisonResult {
 
         public Map<String, Integer> getMismatchTypesCounts() { return mismatchTypesCounts; }
         public void setMismatchTypesCounts(Map<String, Integer> mismatchTypesCounts) { this.mismatchTypesCounts = mismatchTypesCounts; }
+
+        public List<String> getMatchKey() { return matchKey; }
+        public void setMatchKey(List<String> matchKey) { this.matchKey = matchKey; }
+
+        public int getDuplicateGroups() { return duplicateGroups; }
+        public void setDuplicateGroups(int duplicateGroups) { this.duplicateGroups = duplicateGroups; }
+
+        public List<SheetRowCount> getSheetsA() { return sheetsA; }
+        public void setSheetsA(List<SheetRowCount> sheetsA) { this.sheetsA = sheetsA; }
+
+        public List<SheetRowCount> getSheetsB() { return sheetsB; }
+        public void setSheetsB(List<SheetRowCount> sheetsB) { this.sheetsB = sheetsB; }
+    }
+
+    public static class SheetRowCount {
+        private String fileName;
+        private String sheetName;
+        private int rows;
+
+        public SheetRowCount() {}
+
+        public SheetRowCount(String fileName, String sheetName, int rows) {
+            this.fileName = fileName;
+            this.sheetName = sheetName;
+            this.rows = rows;
+        }
+
+        // Getters and Setters
+        public String getFileName() { return fileName; }
+        public void setFileName(String fileName) { this.fileName = fileName; }
+
+        public String getSheetName() { return sheetName; }
+        public void setSheetName(String sheetName) { this.sheetName = sheetName; }
+
+        public int getRows() { return rows; }
+        public void setRows(int rows) { this.rows = rows; }
+    }
+
+    public static class DuplicateGroup {
+        private Map<String, String> key;
+        private int rowsA;
+        private int rowsB;
+
+        public DuplicateGroup() {}
+
+        public DuplicateGroup(Map<String, String> key, int rowsA, int rowsB) {
+            this.key = key;
+            this.rowsA = rowsA;
+            this.rowsB = rowsB;
+        }
+
+        // Getters and Setters
+        public Map<String, String> getKey() { return key; }
+        public void setKey(Map<String, String> key) { this.key = key; }
+
+        public int getRowsA() { return rowsA; }
+        public void setRowsA(int rowsA) { this.rowsA = rowsA; }
+
+        public int getRowsB() { return rowsB; }
+        public void setRowsB(int rowsB) { this.rowsB = rowsB; }
     }
 
     public static class DocumentMismatch {
@@ -0,0 +1,61 @@
+package com.excelcompare.dto;
+
+import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
+
+import java.util.List;
+
+public class IncrementalComparisonResult {
+    private String comparisonId;
+    private String baselineId;
+    private ComparisonStatistics statistics;
+    private List<String> newlyFixed;
+    private List<String> newlyBroken;
+    private int changedPolicies;
+    private int reusedPolicies;
+    private boolean fileAReused;
+    private boolean fileBReused;
+
+    public IncrementalComparisonResult() {}
+
+    public IncrementalComparisonResult(String comparisonId, String baselineId, ComparisonStatistics statistics,
+                                       List<String> newlyFixed, List<String> newlyBroken, int changedPolicies,
+                                       int reusedPolicies, boolean fileAReused, boolean fileBReused) {
+        this.comparisonId = comparisonId;
+        this.baselineId = baselineId;
+        this.statistics = statistics;
+        this.newlyFixed = newlyFixed;
+        this.newlyBroken = newlyBroken;
+        this.changedPolicies = changedPolicies;
+        this.reusedPolicies = reusedPolicies;
+        this.fileAReused = fileAReused;
+        this.fileBReused = fileBReused;
+    }
+
+    // Getters and Setters
+    public String getComparisonId() { return comparisonId; }
+    public void setComparisonId(String comparisonId) { this.comparisonId = comparisonId; }
+
+    public String getBaselineId() { return baselineId; }
+    public void setBaselineId(String baselineId) { this.baselineId = baselineId; }
+
+    public ComparisonStatistics getStatistics() { return statistics; }
+    public void setStatistics(ComparisonStatistics statistics) { this.statistics = statistics; }
+
+    public List<String> getNewlyFixed() { return newlyFixed; }
+    public void setNewlyFixed(List<String> newlyFixed) { this.newlyFixed = newlyFixed; }
+
+    public List<String> getNewlyBroken() { return newlyBroken; }
+    public void setNewlyBroken(List<String> newlyBroken) { this.newlyBroken = newlyBroken; }
+
+    public int getChangedPolicies() { return changedPolicies; }
+    public void setChangedPolicies(int changedPolicies) { this.changedPolicies = changedPolicies; }
+
+    public int getReusedPolicies() { return reusedPolicies; }
+    public void setReusedPolicies(int reusedPolicies) { this.reusedPolicies = reusedPolicies; }
+
+    public boolean isFileAReused() { return fileAReused; }
+    public void setFileAReused(boolean fileAReused) { this.fileAReused = fileAReused; }
+
+    public boolean isFileBReused() { return fileBReused; }
+    public void setFileBReused(boolean fileBReused) { this.fileBReused = fileBReused; }
+}
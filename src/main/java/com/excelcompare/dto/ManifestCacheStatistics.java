@@ -0,0 +1,67 @@
+package com.excelcompare.dto;
+
+public class ManifestCacheStatistics {
+    private int memoryEntries;
+    private long memoryBytes;
+    private long maxMemoryBytes;
+    private int diskEntries;
+    private long diskBytes;
+    private long maxDiskBytes;
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+
+    public ManifestCacheStatistics() {}
+
+    public ManifestCacheStatistics(int memoryEntries, long memoryBytes, long maxMemoryBytes,
+                                   int diskEntries, long diskBytes, long maxDiskBytes,
+                                   long memoryHits, long diskHits, long misses, long evictions) {
+        this.memoryEntries = memoryEntries;
+        this.memoryBytes = memoryBytes;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskEntries = diskEntries;
+        this.diskBytes = diskBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.memoryHits = memoryHits;
+        this.diskHits = diskHits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public double getHitRate() {
+        long lookups = memoryHits + diskHits + misses;
+        return lookups == 0 ? 0.0 : (double) (memoryHits + diskHits) / lookups;
+    }
+
+    // Getters and Setters
+    public int getMemoryEntries() { return memoryEntries; }
+    public void setMemoryEntries(int memoryEntries) { this.memoryEntries = memoryEntries; }
+
+    public long getMemoryBytes() { return memoryBytes; }
+    public void setMemoryBytes(long memoryBytes) { this.memoryBytes = memoryBytes; }
+
+    public long getMaxMemoryBytes() { return maxMemoryBytes; }
+    public void setMaxMemoryBytes(long maxMemoryBytes) { this.maxMemoryBytes = maxMemoryBytes; }
+
+    public int getDiskEntries() { return diskEntries; }
+    public void setDiskEntries(int diskEntries) { this.diskEntries = diskEntries; }
+
+    public long getDiskBytes() { return diskBytes; }
+    public void setDiskBytes(long diskBytes) { this.diskBytes = diskBytes; }
+
+    public long getMaxDiskBytes() { return maxDiskBytes; }
+    public void setMaxDiskBytes(long maxDiskBytes) { this.maxDiskBytes = maxDiskBytes; }
+
+    public long getMemoryHits() { return memoryHits; }
+    public void setMemoryHits(long memoryHits) { this.memoryHits = memoryHits; }
+
+    public long getDiskHits() { return diskHits; }
+    public void setDiskHits(long diskHits) { this.diskHits = diskHits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+}
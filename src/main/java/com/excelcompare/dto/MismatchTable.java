@@ -0,0 +1,127 @@
+package com.excelcompare.dto;
+
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Mismatches in normalised form. Every pair of mismatching documents is held once in a shared
+ * document table, however many of its fields differ, and a mismatch refers to its field by
+ * ordinal and to its documents by their position in the table. The values that differ are
+ * read from the documents.
+ */
+public class MismatchTable {
+    private static final List<String> FIELD_NAMES = Arrays.stream(DocumentField.values())
+            .map(DocumentField::getFieldName).toList();
+
+    // Field names by ordinal
+    private List<String> fields;
+    private List<DocumentMetadata> documents;
+    private List<MismatchReference> mismatches;
+
+    public MismatchTable() {}
+
+    public MismatchTable(List<String> fields, List<DocumentMetadata> documents, List<MismatchReference> mismatches) {
+        this.fields = fields;
+        this.documents = documents;
+        this.mismatches = mismatches;
+    }
+
+    /**
+     * Mismatches of the same pair of documents share table entries when they follow each other,
+     * as they do in a comparison result.
+     */
+    public static MismatchTable of(List<DocumentMismatch> mismatches) {
+        List<DocumentMetadata> documents = new ArrayList<>();
+        List<MismatchReference> references = new ArrayList<>(mismatches.size());
+        DocumentMismatch last = null;
+        for (DocumentMismatch mismatch : mismatches) {
+            if (!samePair(last, mismatch)) {
+                documents.add(mismatch.getDocumentA());
+                documents.add(mismatch.getDocumentB());
+            }
+            last = mismatch;
+            references.add(new MismatchReference(DocumentField.fromFieldName(mismatch.getFieldName()).ordinal(),
+                    documents.size() - 2, documents.size() - 1));
+        }
+        return new MismatchTable(FIELD_NAMES, documents, references);
+    }
+
+    /**
+     * @return whether both mismatches are between documents with the same values, so they can share table entries
+     */
+    public static boolean samePair(DocumentMismatch previous, DocumentMismatch mismatch) {
+        return previous != null && sameDocument(previous.getDocumentA(), mismatch.getDocumentA())
+                && sameDocument(previous.getDocumentB(), mismatch.getDocumentB());
+    }
+
+    private static boolean sameDocument(DocumentMetadata a, DocumentMetadata b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        // DocumentMetadata.equals compares the policy number only
+        for (DocumentField field : DocumentField.values()) {
+            if (!Objects.equals(field.get(a), field.get(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the mismatches, sharing one document object per table entry
+     */
+    public List<DocumentMismatch> toMismatches() {
+        List<DocumentMismatch> result = new ArrayList<>(mismatches.size());
+        for (MismatchReference reference : mismatches) {
+            DocumentField field = DocumentField.fromFieldName(fields.get(reference.getField()));
+            DocumentMetadata documentA = documents.get(reference.getDocumentA());
+            DocumentMetadata documentB = documents.get(reference.getDocumentB());
+            result.add(new DocumentMismatch(documentA.getPolicyNo(), field.getFieldName(),
+                    field.get(documentA), field.get(documentB), documentA, documentB));
+        }
+        return result;
+    }
+
+    // Getters and Setters
+    public List<String> getFields() { return fields; }
+    public void setFields(List<String> fields) { this.fields = fields; }
+
+    public List<DocumentMetadata> getDocuments() { return documents; }
+    public void setDocuments(List<DocumentMetadata> documents) { this.documents = documents; }
+
+    public List<MismatchReference> getMismatches() { return mismatches; }
+    public void setMismatches(List<MismatchReference> mismatches) { this.mismatches = mismatches; }
+
+    public static class MismatchReference {
+        private int field;
+        private int documentA;
+        private int documentB;
+
+        public MismatchReference() {}
+
+        public MismatchReference(int field, int documentA, int documentB) {
+            this.field = field;
+            this.documentA = documentA;
+            this.documentB = documentB;
+        }
+
+        // Getters and Setters
+        public int getField() { return field; }
+        public void setField(int field) { this.field = field; }
+
+        public int getDocumentA() { return documentA; }
+        public void setDocumentA(int documentA) { this.documentA = documentA; }
+
+        public int getDocumentB() { return documentB; }
+        public void setDocumentB(int documentB) { this.documentB = documentB; }
+    }
+}
@@ -0,0 +1,59 @@
+package com.excelcompare.dto;
+
+import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
+import com.excelcompare.dto.ComparisonResult.DuplicateGroup;
+import com.excelcompare.model.DocumentMetadata;
+
+import java.util.List;
+
+/**
+ * A {@link ComparisonResult} with its mismatches as a {@link MismatchTable}, the form results are
+ * served and spilled in.
+ */
+public class NormalizedComparisonResult {
+    private ComparisonStatistics statistics;
+    private List<DocumentMetadata> missingInB;
+    private List<DocumentMetadata> missingInA;
+    private MismatchTable metadataMismatches;
+    private List<DocumentMetadata> matchedDocuments;
+    private List<DuplicateGroup> duplicateGroups;
+
+    public NormalizedComparisonResult() {}
+
+    public static NormalizedComparisonResult of(ComparisonResult result) {
+        NormalizedComparisonResult normalized = new NormalizedComparisonResult();
+        normalized.statistics = result.getStatistics();
+        normalized.missingInB = result.getMissingInB();
+        normalized.missingInA = result.getMissingInA();
+        normalized.metadataMismatches = MismatchTable.of(result.getMetadataMismatches());
+        normalized.matchedDocuments = result.getMatchedDocuments();
+        normalized.duplicateGroups = result.getDuplicateGroups();
+        return normalized;
+    }
+
+    public ComparisonResult toResult() {
+        ComparisonResult result = new ComparisonResult(statistics, missingInB, missingInA,
+                metadataMismatches.toMismatches(), matchedDocuments);
+        result.setDuplicateGroups(duplicateGroups);
+        return result;
+    }
+
+    // Getters and Setters
+    public ComparisonStatistics getStatistics() { return statistics; }
+    public void setStatistics(ComparisonStatistics statistics) { this.statistics = statistics; }
+
+    public List<DocumentMetadata> getMissingInB() { return missingInB; }
+    public void setMissingInB(List<DocumentMetadata> missingInB) { this.missingInB = missingInB; }
+
+    public List<DocumentMetadata> getMissingInA() { return missingInA; }
+    public void setMissingInA(List<DocumentMetadata> missingInA) { this.missingInA = missingInA; }
+
+    public MismatchTable getMetadataMismatches() { return metadataMismatches; }
+    public void setMetadataMismatches(MismatchTable metadataMismatches) { this.metadataMismatches = metadataMismatches; }
+
+    public List<DocumentMetadata> getMatchedDocuments() { return matchedDocuments; }
+    public void setMatchedDocuments(List<DocumentMetadata> matchedDocuments) { this.matchedDocuments = matchedDocuments; }
+
+    public List<DuplicateGroup> getDuplicateGroups() { return duplicateGroups; }
+    public void setDuplicateGroups(List<DuplicateGroup> duplicateGroups) { this.duplicateGroups = duplicateGroups; }
+}
@@ -0,0 +1,51 @@
+package com.excelcompare.dto;
+
+public class ReportJobStatus {
+    private String jobId;
+    private String comparisonId;
+    private String format;
+    private String stage;
+    private double progress;
+    private long elapsedMillis;
+    private boolean truncated;
+    private String error;
+
+    public ReportJobStatus() {}
+
+    public ReportJobStatus(String jobId, String comparisonId, String format, String stage, double progress,
+                           long elapsedMillis, boolean truncated, String error) {
+        this.jobId = jobId;
+        this.comparisonId = comparisonId;
+        this.format = format;
+        this.stage = stage;
+        this.progress = progress;
+        this.elapsedMillis = elapsedMillis;
+        this.truncated = truncated;
+        this.error = error;
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getComparisonId() { return comparisonId; }
+    public void setComparisonId(String comparisonId) { this.comparisonId = comparisonId; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getStage() { return stage; }
+    public void setStage(String stage) { this.stage = stage; }
+
+    public double getProgress() { return progress; }
+    public void setProgress(double progress) { this.progress = progress; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public boolean isTruncated() { return truncated; }
+    public void setTruncated(boolean truncated) { this.truncated = truncated; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
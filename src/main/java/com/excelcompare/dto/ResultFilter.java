@@ -0,0 +1,35 @@
+package com.excelcompare.dto;
+
+/**
+ * Filters on the lists of a stored result, bound from request parameters. Blank values
+ * do not filter. {@code fieldName} applies to mismatches only, {@code migrationStatus}
+ * and {@code documentType} to document lists only.
+ */
+public class ResultFilter {
+    private String fieldName;
+    private String migrationStatus;
+    private String documentType;
+    private String policyPrefix;
+
+    public ResultFilter() {}
+
+    public ResultFilter(String fieldName, String migrationStatus, String documentType, String policyPrefix) {
+        this.fieldName = fieldName;
+        this.migrationStatus = migrationStatus;
+        this.documentType = documentType;
+        this.policyPrefix = policyPrefix;
+    }
+
+    // Getters and Setters
+    public String getFieldName() { return fieldName; }
+    public void setFieldName(String fieldName) { this.fieldName = fieldName; }
+
+    public String getMigrationStatus() { return migrationStatus; }
+    public void setMigrationStatus(String migrationStatus) { this.migrationStatus = migrationStatus; }
+
+    public String getDocumentType() { return documentType; }
+    public void setDocumentType(String documentType) { this.documentType = documentType; }
+
+    public String getPolicyPrefix() { return policyPrefix; }
+    public void setPolicyPrefix(String policyPrefix) { this.policyPrefix = policyPrefix; }
+}
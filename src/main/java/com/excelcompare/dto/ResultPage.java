@@ -0,0 +1,32 @@
+package com.excelcompare.dto;
+
+import java.util.List;
+
+public class ResultPage {
+    private List<?> items;
+    private int totalItems;
+    private int pageSize;
+    private String nextCursor;
+
+    public ResultPage() {}
+
+    public ResultPage(List<?> items, int totalItems, int pageSize, String nextCursor) {
+        this.items = items;
+        this.totalItems = totalItems;
+        this.pageSize = pageSize;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<?> getItems() { return items; }
+    public void setItems(List<?> items) { this.items = items; }
+
+    public int getTotalItems() { return totalItems; }
+    public void setTotalItems(int totalItems) { this.totalItems = totalItems; }
+
+    public int getPageSize() { return pageSize; }
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
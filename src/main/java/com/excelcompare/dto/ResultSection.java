@@ -0,0 +1,8 @@
+package com.excelcompare.dto;
+
+/**
+ * The lists of a {@link ComparisonResult}.
+ */
+public enum ResultSection {
+    MISMATCHES, MISSING_IN_A, MISSING_IN_B, MATCHED
+}
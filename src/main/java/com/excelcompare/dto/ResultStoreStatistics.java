@@ -0,0 +1,46 @@
+package com.excelcompare.dto;
+
+public class ResultStoreStatistics {
+    private int entries;
+    private long weight;
+    private long maxWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long spilledReads;
+
+    public ResultStoreStatistics() {}
+
+    public ResultStoreStatistics(int entries, long weight, long maxWeight, long hits, long misses,
+                                 long evictions, long spilledReads) {
+        this.entries = entries;
+        this.weight = weight;
+        this.maxWeight = maxWeight;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.spilledReads = spilledReads;
+    }
+
+    // Getters and Setters
+    public int getEntries() { return entries; }
+    public void setEntries(int entries) { this.entries = entries; }
+
+    public long getWeight() { return weight; }
+    public void setWeight(long weight) { this.weight = weight; }
+
+    public long getMaxWeight() { return maxWeight; }
+    public void setMaxWeight(long maxWeight) { this.maxWeight = maxWeight; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    public long getSpilledReads() { return spilledReads; }
+    public void setSpilledReads(long spilledReads) { this.spilledReads = spilledReads; }
+}
@@ -0,0 +1,69 @@
+package com.excelcompare.dto;
+
+import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The statistics of one stored comparison at the time it finished, kept in the trend history.
+ */
+public class StatisticsSnapshot {
+    private String comparisonId;
+    private long timestamp;
+    private int totalDocumentsA;
+    private int totalDocumentsB;
+    private int successfulMigrations;
+    private int failedMigrations;
+    private int metadataMismatches;
+    private int unmatchedDocuments;
+    private int duplicateGroups;
+    private Map<String, Integer> mismatchTypesCounts;
+
+    public StatisticsSnapshot() {}
+
+    public StatisticsSnapshot(String comparisonId, long timestamp, ComparisonStatistics statistics) {
+        this.comparisonId = comparisonId;
+        this.timestamp = timestamp;
+        this.totalDocumentsA = statistics.getTotalDocumentsA();
+        this.totalDocumentsB = statistics.getTotalDocumentsB();
+        this.successfulMigrations = statistics.getSuccessfulMigrations();
+        this.failedMigrations = statistics.getFailedMigrations();
+        this.metadataMismatches = statistics.getMetadataMismatches();
+        this.unmatchedDocuments = statistics.getUnmatchedDocuments();
+        this.duplicateGroups = statistics.getDuplicateGroups();
+        this.mismatchTypesCounts = statistics.getMismatchTypesCounts() == null
+                ? new TreeMap<>() : new TreeMap<>(statistics.getMismatchTypesCounts());
+    }
+
+    // Getters and Setters
+    public String getComparisonId() { return comparisonId; }
+    public void setComparisonId(String comparisonId) { this.comparisonId = comparisonId; }
+
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+
+    public int getTotalDocumentsA() { return totalDocumentsA; }
+    public void setTotalDocumentsA(int totalDocumentsA) { this.totalDocumentsA = totalDocumentsA; }
+
+    public int getTotalDocumentsB() { return totalDocumentsB; }
+    public void setTotalDocumentsB(int totalDocumentsB) { this.totalDocumentsB = totalDocumentsB; }
+
+    public int getSuccessfulMigrations() { return successfulMigrations; }
+    public void setSuccessfulMigrations(int successfulMigrations) { this.successfulMigrations = successfulMigrations; }
+
+    public int getFailedMigrations() { return failedMigrations; }
+    public void setFailedMigrations(int failedMigrations) { this.failedMigrations = failedMigrations; }
+
+    public int getMetadataMismatches() { return metadataMismatches; }
+    public void setMetadataMismatches(int metadataMismatches) { this.metadataMismatches = metadataMismatches; }
+
+    public int getUnmatchedDocuments() { return unmatchedDocuments; }
+    public void setUnmatchedDocuments(int unmatchedDocuments) { this.unmatchedDocuments = unmatchedDocuments; }
+
+    public int getDuplicateGroups() { return duplicateGroups; }
+    public void setDuplicateGroups(int duplicateGroups) { this.duplicateGroups = duplicateGroups; }
+
+    public Map<String, Integer> getMismatchTypesCounts() { return mismatchTypesCounts; }
+    public void setMismatchTypesCounts(Map<String, Integer> mismatchTypesCounts) { this.mismatchTypesCounts = mismatchTypesCounts; }
+}
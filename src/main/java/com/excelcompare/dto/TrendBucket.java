@@ -0,0 +1,93 @@
+package com.excelcompare.dto;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The statistics of every comparison stored within one day or week, summed. Averages per
+ * comparison are the sums divided by {@code comparisons}.
+ */
+public class TrendBucket {
+    // ISO date of the first day of the period
+    private String periodStart;
+    private int comparisons;
+    private long totalDocumentsA;
+    private long totalDocumentsB;
+    private long successfulMigrations;
+    private long failedMigrations;
+    private long metadataMismatches;
+    private long unmatchedDocuments;
+    private long duplicateGroups;
+    private Map<String, Long> mismatchTypesCounts = new TreeMap<>();
+    private String lastComparisonId;
+
+    public TrendBucket() {}
+
+    public TrendBucket(String periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public void add(StatisticsSnapshot snapshot) {
+        comparisons++;
+        totalDocumentsA += snapshot.getTotalDocumentsA();
+        totalDocumentsB += snapshot.getTotalDocumentsB();
+        successfulMigrations += snapshot.getSuccessfulMigrations();
+        failedMigrations += snapshot.getFailedMigrations();
+        metadataMismatches += snapshot.getMetadataMismatches();
+        unmatchedDocuments += snapshot.getUnmatchedDocuments();
+        duplicateGroups += snapshot.getDuplicateGroups();
+        if (snapshot.getMismatchTypesCounts() != null) {
+            snapshot.getMismatchTypesCounts().forEach((field, count) -> mismatchTypesCounts.merge(field, (long) count, Long::sum));
+        }
+        lastComparisonId = snapshot.getComparisonId();
+    }
+
+    public TrendBucket copy() {
+        TrendBucket copy = new TrendBucket(periodStart);
+        copy.comparisons = comparisons;
+        copy.totalDocumentsA = totalDocumentsA;
+        copy.totalDocumentsB = totalDocumentsB;
+        copy.successfulMigrations = successfulMigrations;
+        copy.failedMigrations = failedMigrations;
+        copy.metadataMismatches = metadataMismatches;
+        copy.unmatchedDocuments = unmatchedDocuments;
+        copy.duplicateGroups = duplicateGroups;
+        copy.mismatchTypesCounts = new TreeMap<>(mismatchTypesCounts);
+        copy.lastComparisonId = lastComparisonId;
+        return copy;
+    }
+
+    // Getters and Setters
+    public String getPeriodStart() { return periodStart; }
+    public void setPeriodStart(String periodStart) { this.periodStart = periodStart; }
+
+    public int getComparisons() { return comparisons; }
+    public void setComparisons(int comparisons) { this.comparisons = comparisons; }
+
+    public long getTotalDocumentsA() { return totalDocumentsA; }
+    public void setTotalDocumentsA(long totalDocumentsA) { this.totalDocumentsA = totalDocumentsA; }
+
+    public long getTotalDocumentsB() { return totalDocumentsB; }
+    public void setTotalDocumentsB(long totalDocumentsB) { this.totalDocumentsB = totalDocumentsB; }
+
+    public long getSuccessfulMigrations() { return successfulMigrations; }
+    public void setSuccessfulMigrations(long successfulMigrations) { this.successfulMigrations = successfulMigrations; }
+
+    public long getFailedMigrations() { return failedMigrations; }
+    public void setFailedMigrations(long failedMigrations) { this.failedMigrations = failedMigrations; }
+
+    public long getMetadataMismatches() { return metadataMismatches; }
+    public void setMetadataMismatches(long metadataMismatches) { this.metadataMismatches = metadataMismatches; }
+
+    public long getUnmatchedDocuments() { return unmatchedDocuments; }
+    public void setUnmatchedDocuments(long unmatchedDocuments) { this.unmatchedDocuments = unmatchedDocuments; }
+
+    public long getDuplicateGroups() { return duplicateGroups; }
+    public void setDuplicateGroups(long duplicateGroups) { this.duplicateGroups = duplicateGroups; }
+
+    public Map<String, Long> getMismatchTypesCounts() { return mismatchTypesCounts; }
+    public void setMismatchTypesCounts(Map<String, Long> mismatchTypesCounts) { this.mismatchTypesCounts = mismatchTypesCounts; }
+
+    public String getLastComparisonId() { return lastComparisonId; }
+    public void setLastComparisonId(String lastComparisonId) { this.lastComparisonId = lastComparisonId; }
+}
@@ -0,0 +1,93 @@
+package com.excelcompare.metrics;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters of the parse, compare, export and serialisation stages. Services that are created
+ * with {@code new}, as in unit tests, fall back to {@link #NONE}, whose meters record nothing.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final PipelineMetrics NONE = new PipelineMetrics(new CompositeMeterRegistry());
+
+    private final MeterRegistry registry;
+    private final Counter parsedRows;
+    private final Counter parsedBytes;
+    private final AtomicInteger activeComparisons = new AtomicInteger();
+
+    // Throughput of the most recently completed parse
+    private volatile double rowsPerSecond;
+    private volatile double bytesPerSecond;
+
+    @Autowired
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.parsedRows = Counter.builder("excel.parse.rows")
+                .description("Data rows read from uploaded workbooks")
+                .register(registry);
+        this.parsedBytes = Counter.builder("excel.parse.bytes")
+                .description("Bytes of uploaded workbooks read")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("excel.parse.rows.per.second", this, metrics -> metrics.rowsPerSecond)
+                .description("Rows per second of the most recent parse")
+                .register(registry);
+        Gauge.builder("excel.parse.bytes.per.second", this, metrics -> metrics.bytesPerSecond)
+                .description("Bytes per second of the most recent parse")
+                .register(registry);
+        Gauge.builder("comparison.active", activeComparisons, AtomicInteger::get)
+                .description("Comparisons currently being parsed or compared")
+                .register(registry);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    public void recordParse(String reader, long nanos, long rows, long bytes) {
+        timer("excel.parse", "Time to read one workbook", "reader", reader).record(nanos, TimeUnit.NANOSECONDS);
+        parsedRows.increment(rows);
+        parsedBytes.increment(bytes);
+
+        double seconds = nanos / 1e9;
+        if (seconds > 0) {
+            rowsPerSecond = rows / seconds;
+            bytesPerSecond = bytes / seconds;
+        }
+    }
+
+    public void stopComparison(Timer.Sample sample, boolean spilled) {
+        sample.stop(timer("comparison.compare", "Time to compare two manifests", "spilled", String.valueOf(spilled)));
+    }
+
+    public void stopReport(Timer.Sample sample, String report) {
+        sample.stop(timer("report.generate", "Time to generate a report", "report", report));
+    }
+
+    public void stopSerialization(Timer.Sample sample, String type) {
+        sample.stop(timer("http.response.serialization", "Time to serialise a JSON response body", "type", type));
+    }
+
+    public void comparisonStarted() {
+        activeComparisons.incrementAndGet();
+    }
+
+    public void comparisonFinished() {
+        activeComparisons.decrementAndGet();
+    }
+
+    private Timer timer(String name, String description, String tagKey, String tagValue) {
+        return Timer.builder(name)
+                .description(description)
+                .tag(tagKey, tagValue)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,234 @@
+package com.excelcompare.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column-oriented, dictionary-encoded store of a parsed manifest. Each column keeps a
+ * {@link ValueDictionary} and an int array of codes, so low-cardinality columns such as
+ * status or document type cost four bytes per row and rows compare by code.
+ */
+public class ColumnarManifest {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ValueDictionary[] dictionaries = new ValueDictionary[DocumentField.count()];
+    private final int[][] codes = new int[DocumentField.count()][];
+    private int size;
+
+    public ColumnarManifest() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ColumnarManifest(int expectedRows) {
+        for (int field = 0; field < dictionaries.length; field++) {
+            dictionaries[field] = new ValueDictionary();
+            codes[field] = new int[Math.max(expectedRows, 16)];
+        }
+    }
+
+    public static ColumnarManifest of(List<DocumentMetadata> documents) {
+        ColumnarManifest manifest = new ColumnarManifest(documents.size());
+        documents.forEach(manifest::add);
+        return manifest;
+    }
+
+    public void add(DocumentMetadata doc) {
+        ensureCapacity();
+        for (DocumentField field : DocumentField.values()) {
+            codes[field.ordinal()][size] = dictionaries[field.ordinal()].encode(field.get(doc));
+        }
+        size++;
+    }
+
+    /**
+     * @param values one value per field, indexed by {@link DocumentField} ordinal
+     */
+    public void add(String[] values) {
+        ensureCapacity();
+        for (int field = 0; field < codes.length; field++) {
+            codes[field][size] = dictionaries[field].encode(values[field]);
+        }
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int code(int row, DocumentField field) {
+        return codes[field.ordinal()][row];
+    }
+
+    public String value(int row, DocumentField field) {
+        return dictionaries[field.ordinal()].decode(codes[field.ordinal()][row]);
+    }
+
+    public ValueDictionary dictionary(DocumentField field) {
+        return dictionaries[field.ordinal()];
+    }
+
+    /**
+     * Direct access to the code column of a field for tight loops. Only the first
+     * {@link #size()} entries are valid.
+     */
+    public int[] codes(DocumentField field) {
+        return codes[field.ordinal()];
+    }
+
+    public DocumentMetadata toDocument(int row) {
+        DocumentMetadata doc = new DocumentMetadata();
+        for (DocumentField field : DocumentField.values()) {
+            field.set(doc, value(row, field));
+        }
+        return doc;
+    }
+
+    public RowView row(int row) {
+        return new RowView(row);
+    }
+
+    public long getRetainedBytes() {
+        long bytes = 4L * codes.length * codes[0].length;
+        for (ValueDictionary dictionary : dictionaries) {
+            bytes += dictionary.getRetainedBytes();
+        }
+        return bytes;
+    }
+
+    public void trimToSize() {
+        for (int field = 0; field < codes.length; field++) {
+            codes[field] = Arrays.copyOf(codes[field], Math.max(size, 1));
+            dictionaries[field].seal(size);
+        }
+    }
+
+    /**
+     * Writes the manifest in a compact binary form: per field the dictionary values followed by
+     * one code per row, each code taking one, two or four bytes depending on the dictionary size.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int field = 0; field < codes.length; field++) {
+            ValueDictionary dictionary = dictionaries[field];
+            out.writeInt(dictionary.size());
+            for (int code = 0; code < dictionary.size(); code++) {
+                writeString(out, dictionary.decode(code));
+            }
+
+            int width = codeWidth(dictionary.size());
+            int[] column = codes[field];
+            for (int row = 0; row < size; row++) {
+                if (width == 1) {
+                    out.writeByte(column[row]);
+                } else if (width == 2) {
+                    out.writeShort(column[row]);
+                } else {
+                    out.writeInt(column[row]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a manifest written by {@link #writeTo(DataOutput)}.
+     */
+    public static ColumnarManifest readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Corrupt manifest: negative row count");
+        }
+        ColumnarManifest manifest = new ColumnarManifest(size);
+        for (int field = 0; field < manifest.codes.length; field++) {
+            int dictionarySize = in.readInt();
+            ValueDictionary dictionary = manifest.dictionaries[field];
+            for (int code = 0; code < dictionarySize; code++) {
+                // Values were written distinct and in code order, so they get their old codes back
+                dictionary.encode(readString(in));
+            }
+            if (dictionary.size() != dictionarySize) {
+                throw new IOException("Corrupt manifest: duplicate dictionary values");
+            }
+
+            int width = codeWidth(dictionarySize);
+            int[] column = manifest.codes[field];
+            for (int row = 0; row < size; row++) {
+                int code = width == 1 ? in.readUnsignedByte() : width == 2 ? in.readUnsignedShort() : in.readInt();
+                if (code < 0 || code >= dictionarySize) {
+                    throw new IOException("Corrupt manifest: code out of range");
+                }
+                column[row] = code;
+            }
+            dictionary.seal(size);
+        }
+        manifest.size = size;
+        return manifest;
+    }
+
+    private static int codeWidth(int dictionarySize) {
+        return dictionarySize <= 1 << 8 ? 1 : dictionarySize <= 1 << 16 ? 2 : 4;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity() {
+        if (size == codes[0].length) {
+            for (int field = 0; field < codes.length; field++) {
+                codes[field] = Arrays.copyOf(codes[field], size + (size >> 1) + 1);
+            }
+        }
+    }
+
+    /**
+     * Read-only view of one row that decodes values on access instead of copying them.
+     */
+    public class RowView {
+        private final int row;
+
+        RowView(int row) {
+            this.row = row;
+        }
+
+        public int getRow() { return row; }
+
+        public String get(DocumentField field) { return value(row, field); }
+
+        public String getPolicyNo() { return get(DocumentField.POLICY_NO); }
+        public String getDocumentLocation() { return get(DocumentField.DOCUMENT_LOCATION); }
+        public String getFolderHierarchy() { return get(DocumentField.FOLDER_HIERARCHY); }
+        public String getDocumentName() { return get(DocumentField.DOCUMENT_NAME); }
+        public String getClaimNo() { return get(DocumentField.CLAIM_NO); }
+        public String getClaimant() { return get(DocumentField.CLAIMANT); }
+        public String getDateOfLoss() { return get(DocumentField.DATE_OF_LOSS); }
+        public String getAdjustorName() { return get(DocumentField.ADJUSTOR_NAME); }
+        public String getDocumentType() { return get(DocumentField.DOCUMENT_TYPE); }
+        public String getSecurityType() { return get(DocumentField.SECURITY_TYPE); }
+        public String getStatus() { return get(DocumentField.STATUS); }
+        public String getDraft() { return get(DocumentField.DRAFT); }
+        public String getMigration() { return get(DocumentField.MIGRATION); }
+
+        public DocumentMetadata toDocument() { return ColumnarManifest.this.toDocument(row); }
+    }
+}
@@ -0,0 +1,72 @@
+package com.excelcompare.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The columns of a document manifest, in a fixed order that doubles as the column ordinal
+ * of {@link ColumnarManifest}.
+ */
+public enum DocumentField {
+    POLICY_NO("policyNo", DocumentMetadata::getPolicyNo, DocumentMetadata::setPolicyNo),
+    DOCUMENT_LOCATION("documentLocation", DocumentMetadata::getDocumentLocation, DocumentMetadata::setDocumentLocation),
+    FOLDER_HIERARCHY("folderHierarchy", DocumentMetadata::getFolderHierarchy, DocumentMetadata::setFolderHierarchy),
+    DOCUMENT_NAME("documentName", DocumentMetadata::getDocumentName, DocumentMetadata::setDocumentName),
+    CLAIM_NO("claimNo", DocumentMetadata::getClaimNo, DocumentMetadata::setClaimNo),
+    CLAIMANT("claimant", DocumentMetadata::getClaimant, DocumentMetadata::setClaimant),
+    DATE_OF_LOSS("dateOfLoss", DocumentMetadata::getDateOfLoss, DocumentMetadata::setDateOfLoss),
+    ADJUSTOR_NAME("adjustorName", DocumentMetadata::getAdjustorName, DocumentMetadata::setAdjustorName),
+    DOCUMENT_TYPE("documentType", DocumentMetadata::getDocumentType, DocumentMetadata::setDocumentType),
+    SECURITY_TYPE("securityType", DocumentMetadata::getSecurityType, DocumentMetadata::setSecurityType),
+    STATUS("status", DocumentMetadata::getStatus, DocumentMetadata::setStatus),
+    DRAFT("draft", DocumentMetadata::getDraft, DocumentMetadata::setDraft),
+    MIGRATION("migration", DocumentMetadata::getMigration, DocumentMetadata::setMigration);
+
+    private static final DocumentField[] VALUES = values();
+
+    // Fields compared between the two files, in the order mismatches are reported
+    public static final List<DocumentField> COMPARED_FIELDS = List.copyOf(Arrays.asList(VALUES).subList(1, VALUES.length));
+
+    private final String fieldName;
+    private final Function<DocumentMetadata, String> getter;
+    private final BiConsumer<DocumentMetadata, String> setter;
+
+    DocumentField(String fieldName, Function<DocumentMetadata, String> getter,
+                  BiConsumer<DocumentMetadata, String> setter) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public String getFieldName() { return fieldName; }
+
+    public String get(DocumentMetadata doc) { return getter.apply(doc); }
+
+    public void set(DocumentMetadata doc, String value) { setter.accept(doc, value); }
+
+    public static int count() { return VALUES.length; }
+
+    public static DocumentField ofOrdinal(int ordinal) { return VALUES[ordinal]; }
+
+    public static DocumentField fromFieldName(String fieldName) {
+        for (DocumentField field : VALUES) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + fieldName);
+    }
+
+    /**
+     * @param values one value per field, indexed by ordinal
+     */
+    public static DocumentMetadata toDocument(String[] values) {
+        DocumentMetadata doc = new DocumentMetadata();
+        for (DocumentField field : VALUES) {
+            field.set(doc, values[field.ordinal()]);
+        }
+        return doc;
+    }
+}
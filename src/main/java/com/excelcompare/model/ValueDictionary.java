@@ -0,0 +1,382 @@
+package com.excelcompare.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Assigns a dense int code to every distinct value of one column so rows can store codes
+ * instead of String references. Equal values always share a code.
+ * <p>
+ * While values are added, codes are found through an open-addressing table of ints. Once the
+ * column is complete, {@link #seal(int)} drops that table; lookups by value then go through a
+ * {@link Lookup} built for the occasion. A column with many distinct values, such as policy
+ * numbers or document names, is also packed into one byte array with an offset per value, so
+ * it keeps no String objects. Packing needs every value to be Latin-1, a column holding other
+ * characters keeps its Strings. Values are compared, sorted and looked up by code without being
+ * decoded, so joins over packed columns create no Strings for them.
+ */
+public class ValueDictionary {
+
+    // String header, backing array header and the reference to the String
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16 + 4;
+
+    // Columns with at least one distinct value per this many rows are packed when sealed
+    private static final int PACK_ROWS_PER_VALUE = 8;
+
+    private String[] values = new String[16];
+    private int[] table = new int[32];
+    private int size;
+    private long valueBytes;
+
+    // Set instead of values once packed; value i is packed[offsets[i] .. offsets[i + 1])
+    private byte[] packed;
+    private int[] offsets;
+    private int nullCode = -1;
+
+    public int encode(String value) {
+        if (table == null) {
+            unseal();
+        }
+
+        int mask = table.length - 1;
+        for (int slot = hash(value) & mask; ; slot = (slot + 1) & mask) {
+            int code = table[slot] - 1;
+            if (code < 0) {
+                break;
+            }
+            if (value == null ? values[code] == null : value.equals(values[code])) {
+                return code;
+            }
+        }
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        valueBytes += value == null ? 0 : value.length();
+        insert(table, hash(value), size);
+        size++;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return size - 1;
+    }
+
+    public String decode(int code) {
+        if (values != null) {
+            return values[code];
+        }
+        if (code == nullCode) {
+            return null;
+        }
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("Code: " + code + ", size: " + size);
+        }
+        return new String(packed, offsets[code], offsets[code + 1] - offsets[code], StandardCharsets.ISO_8859_1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ends adding values: drops the lookup table and packs the values if the column holds many
+     * of them. Adding another value afterwards rebuilds both.
+     *
+     * @param rows the number of rows of the column
+     */
+    public void seal(int rows) {
+        if (table == null) {
+            return;
+        }
+        table = null;
+        values = Arrays.copyOf(values, size);
+        if ((long) size * PACK_ROWS_PER_VALUE < rows || !isLatin1()) {
+            return;
+        }
+
+        byte[] bytes = new byte[(int) valueBytes];
+        int[] starts = new int[size + 1];
+        int position = 0;
+        for (int code = 0; code < size; code++) {
+            starts[code] = position;
+            String value = values[code];
+            if (value == null) {
+                nullCode = code;
+                continue;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                bytes[position++] = (byte) value.charAt(i);
+            }
+        }
+        starts[size] = position;
+        packed = bytes;
+        offsets = starts;
+        values = null;
+    }
+
+    public boolean isPacked() {
+        return packed != null;
+    }
+
+    /**
+     * Returns an index of the values by content for finding codes of values from elsewhere.
+     * While values are still added it shares the dictionary's own table; after {@link #seal(int)}
+     * it is built on the spot and should be dropped once done with.
+     */
+    public Lookup lookup() {
+        if (table != null) {
+            return new Lookup(table);
+        }
+        int[] lookupTable = new int[tableSize(size)];
+        for (int code = 0; code < size; code++) {
+            insert(lookupTable, hashOf(code), code);
+        }
+        return new Lookup(lookupTable);
+    }
+
+    /**
+     * @return the distinct values in natural order, {@code null} first
+     */
+    public String[] sortedValues() {
+        String[] sorted = new String[size];
+        for (int code = 0; code < size; code++) {
+            sorted[code] = decode(code);
+        }
+        Arrays.sort(sorted, Comparator.nullsFirst(Comparator.naturalOrder()));
+        return sorted;
+    }
+
+    /**
+     * Compares a value of this dictionary with a value of another in natural order, {@code null}
+     * first, without decoding either.
+     */
+    public int compare(int code, ValueDictionary other, int otherCode) {
+        boolean isNull = isNull(code);
+        boolean otherIsNull = other.isNull(otherCode);
+        if (isNull || otherIsNull) {
+            return isNull == otherIsNull ? 0 : isNull ? -1 : 1;
+        }
+        if (packed == null && other.packed == null) {
+            return values[code].compareTo(other.values[otherCode]);
+        }
+        int length = length(code);
+        int otherLength = other.length(otherCode);
+        for (int i = 0; i < Math.min(length, otherLength); i++) {
+            int result = charAt(code, i) - other.charAt(otherCode, i);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return length - otherLength;
+    }
+
+    /**
+     * @return whether the value has no leading or trailing whitespace, so {@link String#trim()}
+     * returns it unchanged; {@code false} for {@code null}
+     */
+    public boolean isTrimmed(int code) {
+        if (isNull(code)) {
+            return false;
+        }
+        int length = length(code);
+        return length == 0 || charAt(code, 0) > ' ' && charAt(code, length - 1) > ' ';
+    }
+
+    /**
+     * @return every code, ordered by value like {@link #sortedValues()}
+     */
+    public int[] sortedCodes() {
+        int[] codes = new int[size];
+        Arrays.setAll(codes, code -> code);
+        sortCodes(codes, new int[size], 0, size);
+        return codes;
+    }
+
+    public long getRetainedBytes() {
+        long bytes = table == null ? 0 : 4L * table.length;
+        if (packed != null) {
+            return bytes + packed.length + 4L * offsets.length;
+        }
+        return bytes + (long) STRING_OVERHEAD_BYTES * values.length + valueBytes;
+    }
+
+    private void sortCodes(int[] codes, int[] buffer, int from, int to) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int code = codes[i];
+                int j = i - 1;
+                while (j >= from && compare(codes[j], this, code) > 0) {
+                    codes[j + 1] = codes[j];
+                    j--;
+                }
+                codes[j + 1] = code;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortCodes(codes, buffer, from, middle);
+        sortCodes(codes, buffer, middle, to);
+        System.arraycopy(codes, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < middle && compare(buffer[left], this, buffer[right]) <= 0) {
+                codes[i] = buffer[left++];
+            } else {
+                codes[i] = buffer[right++];
+            }
+        }
+    }
+
+    private boolean isNull(int code) {
+        return packed == null ? values[code] == null : code == nullCode;
+    }
+
+    private int length(int code) {
+        return packed == null ? values[code].length() : offsets[code + 1] - offsets[code];
+    }
+
+    private char charAt(int code, int index) {
+        return packed == null ? values[code].charAt(index) : (char) (packed[offsets[code] + index] & 0xFF);
+    }
+
+    private boolean isLatin1() {
+        for (int code = 0; code < size; code++) {
+            String value = values[code];
+            if (value != null) {
+                for (int i = 0; i < value.length(); i++) {
+                    if (value.charAt(i) > 0xFF) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void unseal() {
+        if (packed != null) {
+            String[] unpacked = new String[size];
+            for (int code = 0; code < size; code++) {
+                unpacked[code] = decode(code);
+            }
+            values = unpacked;
+            packed = null;
+            offsets = null;
+            nullCode = -1;
+        }
+        values = Arrays.copyOf(values, Math.max(16, size * 2));
+        rehash(tableSize(size));
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int code = 0; code < size; code++) {
+            insert(table, hash(values[code]), code);
+        }
+    }
+
+    private static void insert(int[] table, int hash, int code) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        // Slots hold the code plus one, so zero marks an empty slot
+        table[slot] = code + 1;
+    }
+
+    private static int tableSize(int values) {
+        // At most half full
+        return Math.max(32, Integer.highestOneBit(Math.max(values, 1) * 4 - 1));
+    }
+
+    private int hashOf(int code) {
+        if (packed == null || code == nullCode) {
+            return hash(values == null ? null : values[code]);
+        }
+        // Same as String.hashCode, since a Latin-1 String hashes its chars and they equal the bytes
+        int h = 0;
+        for (int i = offsets[code]; i < offsets[code + 1]; i++) {
+            h = 31 * h + (packed[i] & 0xFF);
+        }
+        return spread(h);
+    }
+
+    private static int hash(String value) {
+        return value == null ? 0 : spread(value.hashCode());
+    }
+
+    private static int spread(int h) {
+        return (h ^ (h >>> 16)) * 0x9E3779B9;
+    }
+
+    private boolean matches(int code, String value) {
+        if (packed == null) {
+            return value == null ? values[code] == null : value.equals(values[code]);
+        }
+        if (value == null || code == nullCode) {
+            return value == null && code == nullCode;
+        }
+        int start = offsets[code];
+        if (offsets[code + 1] - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if ((packed[start + i] & 0xFF) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the codes of values by content without creating objects per lookup.
+     */
+    public final class Lookup {
+        private final int[] table;
+
+        private Lookup(int[] table) {
+            this.table = table;
+        }
+
+        /**
+         * @return the code of the value, or -1 if the dictionary does not hold it
+         */
+        public int find(String value) {
+            int mask = table.length - 1;
+            for (int slot = hash(value) & mask; ; slot = (slot + 1) & mask) {
+                int code = table[slot] - 1;
+                if (code < 0) {
+                    return -1;
+                }
+                if (matches(code, value)) {
+                    return code;
+                }
+            }
+        }
+
+        /**
+         * Finds a value of another dictionary without decoding it.
+         *
+         * @return the code of the value in this dictionary, or -1 if it does not hold it
+         */
+        public int find(ValueDictionary other, int otherCode) {
+            if (other.packed == null) {
+                return find(other.values[otherCode]);
+            }
+            int mask = table.length - 1;
+            for (int slot = other.hashOf(otherCode) & mask; ; slot = (slot + 1) & mask) {
+                int code = table[slot] - 1;
+                if (code < 0) {
+                    return -1;
+                }
+                if (compare(code, other, otherCode) == 0) {
+                    return code;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
+import com.excelcompare.dto.ComparisonResult.DuplicateGroup;
+import com.excelcompare.model.DocumentField;
+
+import java.util.*;
+
+/**
+ * Collects the outcome of one or more joined shards or partitions and derives the statistics
+ * once every part has been processed. Each worker fills its own accumulator, so no locking is
+ * needed until they are merged.
+ */
+class ComparisonAccumulator {
+
+    final DocumentList missingInB = new DocumentList();
+    final DocumentList missingInA = new DocumentList();
+    final MismatchList metadataMismatches = new MismatchList();
+    final DocumentList matchedDocuments = new DocumentList();
+    final List<DuplicateGroup> duplicateGroups = new ArrayList<>();
+    int totalDocumentsA;
+    int totalDocumentsB;
+    int successfulMigrations;
+    int failedMigrations;
+
+    void merge(ComparisonAccumulator other) {
+        missingInB.append(other.missingInB);
+        missingInA.append(other.missingInA);
+        metadataMismatches.append(other.metadataMismatches);
+        matchedDocuments.append(other.matchedDocuments);
+        duplicateGroups.addAll(other.duplicateGroups);
+        totalDocumentsA += other.totalDocumentsA;
+        totalDocumentsB += other.totalDocumentsB;
+        successfulMigrations += other.successfulMigrations;
+        failedMigrations += other.failedMigrations;
+    }
+
+    ComparisonResult toResult(MatchKey matchKey) {
+        // Sort by policy number, then every other field, so repeated runs produce identical, diffable output
+        missingInB.sortByDocument();
+        missingInA.sortByDocument();
+        matchedDocuments.sortByDocument();
+        metadataMismatches.sortByDocument();
+        duplicateGroups.sort(Comparator.comparing(group -> new ArrayList<>(group.getKey().values()),
+                ComparisonAccumulator::compareValues));
+
+        ComparisonStatistics statistics = calculateStatistics();
+        statistics.setMatchKey(matchKey.getFieldNames());
+        statistics.setDuplicateGroups(duplicateGroups.size());
+
+        ComparisonResult result = new ComparisonResult(statistics, missingInB, missingInA, metadataMismatches, matchedDocuments);
+        result.setDuplicateGroups(duplicateGroups);
+        return result;
+    }
+
+    private ComparisonStatistics calculateStatistics() {
+        // Count mismatch types
+        int[] fieldCounts = new int[DocumentField.count()];
+        for (int i = 0; i < metadataMismatches.size(); i++) {
+            fieldCounts[metadataMismatches.field(i).ordinal()]++;
+        }
+        Map<String, Integer> mismatchTypesCounts = new TreeMap<>();
+        for (DocumentField field : DocumentField.values()) {
+            if (fieldCounts[field.ordinal()] > 0) {
+                mismatchTypesCounts.put(field.getFieldName(), fieldCounts[field.ordinal()]);
+            }
+        }
+
+        int unmatchedDocuments = missingInA.size() + missingInB.size();
+
+        return new ComparisonStatistics(
+                totalDocumentsA,
+                totalDocumentsB,
+                successfulMigrations,
+                failedMigrations,
+                metadataMismatches.size(),
+                unmatchedDocuments,
+                mismatchTypesCounts
+        );
+    }
+
+    private static int compareValues(List<String> a, List<String> b) {
+        Comparator<String> values = Comparator.nullsFirst(Comparator.naturalOrder());
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            int result = values.compare(a.get(i), b.get(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+}
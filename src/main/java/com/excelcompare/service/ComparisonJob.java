@@ -0,0 +1,133 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonJobStatus;
+
+import java.nio.file.Path;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one asynchronous comparison. Written by the worker thread and read by status
+ * requests, so every mutable field is volatile or atomic.
+ */
+public class ComparisonJob implements ProgressListener {
+
+    public enum Stage { QUEUED, PARSING_FILE_A, PARSING_FILE_B, COMPARING, COMPLETED, FAILED, CANCELLED }
+
+    // Share of the total work assigned to the comparison stage; parsing splits the rest by file size
+    private static final double COMPARE_WEIGHT = 0.2;
+
+    private final String id;
+    private final Path fileA;
+    private final Path fileB;
+    private final double parseWeightA;
+    private final long createdAt = System.currentTimeMillis();
+    private final AtomicLong rowsProcessed = new AtomicLong();
+
+    private volatile Stage stage = Stage.QUEUED;
+    private volatile double stageProgress;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String comparisonId;
+    private volatile String error;
+    private volatile boolean cancelled;
+    private volatile Future<?> future;
+
+    ComparisonJob(String id, Path fileA, long sizeA, Path fileB, long sizeB) {
+        this.id = id;
+        this.fileA = fileA;
+        this.fileB = fileB;
+        long totalSize = sizeA + sizeB;
+        this.parseWeightA = totalSize > 0 ? (1 - COMPARE_WEIGHT) * sizeA / totalSize : (1 - COMPARE_WEIGHT) / 2;
+    }
+
+    public String getId() { return id; }
+
+    public Stage getStage() { return stage; }
+
+    public boolean isFinished() {
+        return stage == Stage.COMPLETED || stage == Stage.FAILED || stage == Stage.CANCELLED;
+    }
+
+    public long getFinishedAt() { return finishedAt; }
+
+    public long getCreatedAt() { return createdAt; }
+
+    @Override
+    public void onProgress(double fraction) {
+        stageProgress = fraction;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public ComparisonJobStatus toStatus() {
+        long now = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        long elapsed = startedAt > 0 ? now - startedAt : 0;
+        double progress = getProgress();
+
+        Long eta = null;
+        if (stage == Stage.COMPLETED) {
+            eta = 0L;
+        } else if (!isFinished() && progress > 0.01) {
+            eta = (long) (elapsed * (1 - progress) / progress);
+        }
+
+        return new ComparisonJobStatus(id, stage.name(), rowsProcessed.get(), progress,
+                elapsed, eta, comparisonId, error);
+    }
+
+    private double getProgress() {
+        double parseWeightB = 1 - COMPARE_WEIGHT - parseWeightA;
+        switch (stage) {
+            case PARSING_FILE_A:
+                return parseWeightA * stageProgress;
+            case PARSING_FILE_B:
+                return parseWeightA + parseWeightB * stageProgress;
+            case COMPARING:
+                return 1 - COMPARE_WEIGHT + COMPARE_WEIGHT * stageProgress;
+            case COMPLETED:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    Path getFileA() { return fileA; }
+
+    Path getFileB() { return fileB; }
+
+    void setFuture(Future<?> future) { this.future = future; }
+
+    Future<?> getFuture() { return future; }
+
+    void cancel() { cancelled = true; }
+
+    void rowProcessed() { rowsProcessed.incrementAndGet(); }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+    }
+
+    void enterStage(Stage stage) {
+        this.stageProgress = 0;
+        this.stage = stage;
+    }
+
+    void complete(String comparisonId) {
+        this.comparisonId = comparisonId;
+        finish(Stage.COMPLETED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(Stage.FAILED);
+    }
+
+    void finish(Stage stage) {
+        finishedAt = System.currentTimeMillis();
+        enterStage(stage);
+    }
+}
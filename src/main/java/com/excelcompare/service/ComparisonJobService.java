@@ -0,0 +1,191 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs parse and compare stages of uploaded comparisons on a bounded worker pool so HTTP
+ * requests return immediately and clients poll for progress.
+ */
+@Service
+public class ComparisonJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ComparisonJobService.class);
+
+    @Autowired
+    private ExcelService excelService;
+
+    @Autowired
+    private ComparisonService comparisonService;
+
+    @Autowired
+    private PipelineMetrics metrics = PipelineMetrics.NONE;
+
+    @Value("${comparison.jobs.workers:2}")
+    private int workers;
+
+    @Value("${comparison.jobs.queue-capacity:10}")
+    private int queueCapacity;
+
+    // How long finished jobs stay queryable before their status is dropped
+    @Value("${comparison.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, ComparisonJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "comparison-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(ComparisonJob::cancel);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Copies both uploads to temporary files and queues the comparison.
+     *
+     * @param resultHandler stores the finished result and returns its comparison id
+     * @throws RejectedExecutionException if the worker queue is full
+     */
+    public ComparisonJob submit(MultipartFile fileA, MultipartFile fileB,
+                                Function<ComparisonResult, String> resultHandler) throws IOException {
+        pruneFinishedJobs();
+
+        // Multipart temp files disappear with the request, so move them somewhere the worker owns
+        Path pathA = excelService.spoolToTempFile(fileA);
+        Path pathB;
+        try {
+            pathB = excelService.spoolToTempFile(fileB);
+        } catch (IOException e) {
+            Files.deleteIfExists(pathA);
+            throw e;
+        }
+
+        ComparisonJob job = new ComparisonJob(UUID.randomUUID().toString(), pathA, fileA.getSize(), pathB, fileB.getSize());
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, resultHandler)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteFiles(job);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<ComparisonJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public int getQueuedJobCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getRunningJobCount() {
+        return executor.getActiveCount();
+    }
+
+    public Optional<ComparisonJob> cancel(String jobId) {
+        ComparisonJob job = jobs.get(jobId);
+        if (job == null || job.isFinished()) {
+            return Optional.ofNullable(job);
+        }
+
+        job.cancel();
+        Future<?> future = job.getFuture();
+        if (future != null && future.cancel(true) && job.getStage() == ComparisonJob.Stage.QUEUED) {
+            // The worker never picked the job up, so clean up here and free its place in the queue
+            executor.purge();
+            deleteFiles(job);
+            job.finish(ComparisonJob.Stage.CANCELLED);
+        }
+        return Optional.of(job);
+    }
+
+    private void run(ComparisonJob job, Function<ComparisonResult, String> resultHandler) {
+        job.start();
+        metrics.comparisonStarted();
+        try (DocumentSpool documentsA = comparisonService.createSpool();
+             DocumentSpool documentsB = comparisonService.createSpool()) {
+            job.enterStage(ComparisonJob.Stage.PARSING_FILE_A);
+            excelService.readExcelFile(job.getFileA(), doc -> {
+                job.rowProcessed();
+                documentsA.add(doc);
+            }, job);
+
+            job.enterStage(ComparisonJob.Stage.PARSING_FILE_B);
+            excelService.readExcelFile(job.getFileB(), doc -> {
+                job.rowProcessed();
+                documentsB.add(doc);
+            }, job);
+
+            if (documentsA.size() == 0 && documentsB.size() == 0) {
+                job.fail("Both files appear to be empty or have no valid data");
+                return;
+            }
+
+            job.enterStage(ComparisonJob.Stage.COMPARING);
+            ComparisonResult result = comparisonService.compareDocuments(documentsA, documentsB, job);
+            if (job.isCancelled()) {
+                throw new CancellationException();
+            }
+            job.complete(resultHandler.apply(result));
+        } catch (CancellationException e) {
+            job.finish(ComparisonJob.Stage.CANCELLED);
+        } catch (Exception e) {
+            if (job.isCancelled()) {
+                job.finish(ComparisonJob.Stage.CANCELLED);
+            } else {
+                log.error("Comparison job {} failed", job.getId(), e);
+                job.fail("Error processing files: " + e.getMessage());
+            }
+        } finally {
+            metrics.comparisonFinished();
+            deleteFiles(job);
+        }
+    }
+
+
+    private void deleteFiles(ComparisonJob job) {
+        try {
+            Files.deleteIfExists(job.getFileA());
+            Files.deleteIfExists(job.getFileB());
+        } catch (IOException e) {
+            log.warn("Unable to delete temporary files of job {}", job.getId(), e);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < cutoff);
+    }
+}
@@ -1,132 +1,200 @@
 package com.excelcompare.service;
 
 import com.excelcompare.dto.ComparisonResult;
-import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
 import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.metrics.PipelineMetrics;
+import com.excelcompare.model.ColumnarManifest;
 import com.excelcompare.model.DocumentMetadata;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
 public class ComparisonService {
 
+    // Memory allowed for both sides of a comparison before documents are spilled to disk
+    @Value("${comparison.spill.memory-budget-mb:256}")
+    private long spillMemoryBudgetMb = 256;
+
+    @Value("${comparison.spill.partitions:64}")
+    private int spillPartitions = 64;
+
+    // Worker threads used to compare shards of the match key space, 0 means one per core
+    @Value("${comparison.parallelism:0}")
+    private int parallelism = 0;
+
+    // Below this many rows the comparison stays on the calling thread
+    @Value("${comparison.parallel-threshold:10000}")
+    private int parallelThreshold = 10000;
+
+    // Comma-separated fields that identify a document on both sides, always including policyNo
+    @Value("${comparison.match-key:policyNo}")
+    private String matchKey = "policyNo";
+
+    @Autowired(required = false)
+    private FieldRules fieldRules = FieldRules.DEFAULT;
+
+    @Autowired
+    private PipelineMetrics metrics = PipelineMetrics.NONE;
+
+    private volatile ForkJoinPool comparisonPool;
+
+    public DocumentSpool createSpool() {
+        return new DocumentSpool(spillPartitions, spillMemoryBudgetMb * 1024 * 1024 / 2);
+    }
+
+    public MatchKey getMatchKey() {
+        return MatchKey.parse(matchKey);
+    }
+
+    public FieldRules getFieldRules() {
+        return fieldRules;
+    }
+
     public ComparisonResult compareDocuments(List<DocumentMetadata> documentsA, List<DocumentMetadata> documentsB) {
-        // Create maps for quick lookup by policy number
-        Map<String, DocumentMetadata> mapA = documentsA.stream()
-                .collect(Collectors.toMap(DocumentMetadata::getPolicyNo, doc -> doc, (existing, replacement) -> existing));
-        
-        Map<String, DocumentMetadata> mapB = documentsB.stream()
-                .collect(Collectors.toMap(DocumentMetadata::getPolicyNo, doc -> doc, (existing, replacement) -> existing));
-
-        // Find missing documents
-        List<DocumentMetadata> missingInB = findMissingDocuments(mapA, mapB);
-        List<DocumentMetadata> missingInA = findMissingDocuments(mapB, mapA);
-
-        // Find metadata mismatches for common documents
-        List<DocumentMismatch> metadataMismatches = new ArrayList<>();
-        List<DocumentMetadata> matchedDocuments = new ArrayList<>();
-
-        for (String policyNo : mapA.keySet()) {
-            if (mapB.containsKey(policyNo)) {
-                DocumentMetadata docA = mapA.get(policyNo);
-                DocumentMetadata docB = mapB.get(policyNo);
-                
-                List<DocumentMismatch> mismatches = compareDocumentFields(docA, docB);
-                metadataMismatches.addAll(mismatches);
-                
-                if (mismatches.isEmpty()) {
-                    matchedDocuments.add(docA);
-                }
-            }
+        return compareDocuments(documentsA, documentsB, ProgressListener.NONE);
+    }
+
+    public ComparisonResult compareDocuments(List<DocumentMetadata> documentsA, List<DocumentMetadata> documentsB,
+                                             ProgressListener listener) {
+        return compareManifests(ColumnarManifest.of(documentsA), ColumnarManifest.of(documentsB), listener);
+    }
+
+    public ComparisonResult compareManifests(ColumnarManifest documentsA, ColumnarManifest documentsB,
+                                             ProgressListener listener) {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            return joinManifests(documentsA, documentsB, listener);
+        } finally {
+            metrics.stopComparison(sample, false);
         }
+    }
 
-        // Calculate statistics
-        ComparisonStatistics statistics = calculateStatistics(documentsA, documentsB, 
-                missingInA, missingInB, metadataMismatches, matchedDocuments);
+    private ComparisonResult joinManifests(ColumnarManifest documentsA, ColumnarManifest documentsB,
+                                           ProgressListener listener) {
+        MatchKey key = getMatchKey();
+        ManifestJoin join = new ManifestJoin(documentsA, documentsB, key, fieldRules);
 
-        return new ComparisonResult(statistics, missingInB, missingInA, metadataMismatches, matchedDocuments);
+        if (documentsA.size() + documentsB.size() < parallelThreshold) {
+            ComparisonAccumulator accumulator = join.join(0, 1);
+            listener.onProgress(1.0);
+            return accumulator.toResult(key);
+        }
+
+        // Shard the match key space so every shard can be joined independently
+        int shardCount = getParallelism() * 4;
+        List<Callable<ComparisonAccumulator>> tasks = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int shard = i;
+            tasks.add(() -> join.join(shard, shardCount));
+        }
+        return runShards(tasks, key, listener);
     }
 
-    private List<DocumentMetadata> findMissingDocuments(Map<String, DocumentMetadata> sourceMap, 
-                                                       Map<String, DocumentMetadata> targetMap) {
-        return sourceMap.keySet().stream()
-                .filter(policyNo -> !targetMap.containsKey(policyNo))
-                .map(sourceMap::get)
-                .collect(Collectors.toList());
+    public ComparisonResult compareDocuments(DocumentSpool documentsA, DocumentSpool documentsB) throws IOException {
+        return compareDocuments(documentsA, documentsB, ProgressListener.NONE);
     }
 
-    private List<DocumentMismatch> compareDocumentFields(DocumentMetadata docA, DocumentMetadata docB) {
-        List<DocumentMismatch> mismatches = new ArrayList<>();
-        String policyNo = docA.getPolicyNo();
-
-        // Compare each field
-        compareField(mismatches, policyNo, "documentLocation", docA.getDocumentLocation(), docB.getDocumentLocation(), docA, docB);
-        compareField(mismatches, policyNo, "folderHierarchy", docA.getFolderHierarchy(), docB.getFolderHierarchy(), docA, docB);
-        compareField(mismatches, policyNo, "documentName", docA.getDocumentName(), docB.getDocumentName(), docA, docB);
-        compareField(mismatches, policyNo, "claimNo", docA.getClaimNo(), docB.getClaimNo(), docA, docB);
-        compareField(mismatches, policyNo, "claimant", docA.getClaimant(), docB.getClaimant(), docA, docB);
-        compareField(mismatches, policyNo, "dateOfLoss", docA.getDateOfLoss(), docB.getDateOfLoss(), docA, docB);
-        compareField(mismatches, policyNo, "adjustorName", docA.getAdjustorName(), docB.getAdjustorName(), docA, docB);
-        compareField(mismatches, policyNo, "documentType", docA.getDocumentType(), docB.getDocumentType(), docA, docB);
-        compareField(mismatches, policyNo, "securityType", docA.getSecurityType(), docB.getSecurityType(), docA, docB);
-        compareField(mismatches, policyNo, "status", docA.getStatus(), docB.getStatus(), docA, docB);
-        compareField(mismatches, policyNo, "draft", docA.getDraft(), docB.getDraft(), docA, docB);
-        compareField(mismatches, policyNo, "migration", docA.getMigration(), docB.getMigration(), docA, docB);
-
-        return mismatches;
+    public ComparisonResult compareDocuments(DocumentSpool documentsA, DocumentSpool documentsB,
+                                             ProgressListener listener) throws IOException {
+        if (!documentsA.isSpilled() && !documentsB.isSpilled()) {
+            return compareManifests(documentsA.getBufferedDocuments(), documentsB.getBufferedDocuments(), listener);
+        }
+        if (documentsA.getPartitionCount() != documentsB.getPartitionCount()) {
+            throw new IllegalArgumentException("Both spools must use the same number of partitions");
+        }
+
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            // Once either side is on disk, partition both and join the partition pairs in parallel
+            documentsA.spill();
+            documentsB.spill();
+            // Partition tasks only read, the files are completed here before any of them starts
+            documentsA.finishWriting();
+            documentsB.finishWriting();
+
+            // Partitions follow the policy number, which is part of every match key
+            MatchKey key = getMatchKey();
+            List<Callable<ComparisonAccumulator>> tasks = new ArrayList<>(documentsA.getPartitionCount());
+            for (int i = 0; i < documentsA.getPartitionCount(); i++) {
+                int partition = i;
+                tasks.add(() -> new ManifestJoin(documentsA.readPartition(partition), documentsB.readPartition(partition),
+                        key, fieldRules).join(0, 1));
+            }
+            return runShards(tasks, key, listener);
+        } finally {
+            metrics.stopComparison(sample, true);
+        }
     }
 
-    private void compareField(List<DocumentMismatch> mismatches, String policyNo, String fieldName, 
-                            String valueA, String valueB, DocumentMetadata docA, DocumentMetadata docB) {
-        // Normalize values for comparison (handle null, empty, and whitespace)
-        String normalizedA = normalizeValue(valueA);
-        String normalizedB = normalizeValue(valueB);
+    private ComparisonResult runShards(List<Callable<ComparisonAccumulator>> tasks, MatchKey key,
+                                       ProgressListener listener) {
+        AtomicInteger completed = new AtomicInteger();
+        List<Callable<ComparisonAccumulator>> trackedTasks = new ArrayList<>(tasks.size());
+        for (Callable<ComparisonAccumulator> task : tasks) {
+            trackedTasks.add(() -> {
+                if (listener.isCancelled()) {
+                    throw new CancellationException("Comparison was cancelled");
+                }
+                ComparisonAccumulator accumulator = task.call();
+                listener.onProgress((double) completed.incrementAndGet() / tasks.size());
+                return accumulator;
+            });
+        }
 
-        if (!normalizedA.equals(normalizedB)) {
-            mismatches.add(new DocumentMismatch(policyNo, fieldName, valueA, valueB, docA, docB));
+        // Each shard fills its own accumulator, so results are merged afterwards without locking
+        ComparisonAccumulator merged = new ComparisonAccumulator();
+        try {
+            for (Future<ComparisonAccumulator> future : getComparisonPool().invokeAll(trackedTasks)) {
+                merged.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Comparison was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw (CancellationException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw (UncheckedIOException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException("Comparison failed: " + e.getCause().getMessage(), e.getCause());
         }
+        return merged.toResult(key);
     }
 
-    private String normalizeValue(String value) {
-        return value == null ? "" : value.trim();
+    private int getParallelism() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
     }
 
-    private ComparisonStatistics calculateStatistics(List<DocumentMetadata> documentsA, 
-                                                   List<DocumentMetadata> documentsB,
-                                                   List<DocumentMetadata> missingInA,
-                                                   List<DocumentMetadata> missingInB,
-                                                   List<DocumentMismatch> metadataMismatches,
-                                                   List<DocumentMetadata> matchedDocuments) {
-        
-        // Count successful and failed migrations based on Migration field
-        int successfulMigrations = (int) documentsB.stream()
-                .filter(doc -> "Y".equalsIgnoreCase(doc.getMigration()))
-                .count();
-        
-        int failedMigrations = (int) documentsB.stream()
-                .filter(doc -> !"Y".equalsIgnoreCase(doc.getMigration()))
-                .count();
-
-        // Count mismatch types
-        Map<String, Integer> mismatchTypesCounts = metadataMismatches.stream()
-                .collect(Collectors.groupingBy(
-                    DocumentMismatch::getFieldName,
-                    Collectors.collectingAndThen(Collectors.counting(), Math::toIntExact)
-                ));
-
-        int unmatchedDocuments = missingInA.size() + missingInB.size();
-
-        return new ComparisonStatistics(
-                documentsA.size(),
-                documentsB.size(),
-                successfulMigrations,
-                failedMigrations,
-                metadataMismatches.size(),
-                unmatchedDocuments,
-                mismatchTypesCounts
-        );
+    private ForkJoinPool getComparisonPool() {
+        if (comparisonPool == null) {
+            synchronized (this) {
+                if (comparisonPool == null) {
+                    comparisonPool = new ForkJoinPool(getParallelism());
+                }
+            }
+        }
+        return comparisonPool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (comparisonPool != null) {
+            comparisonPool.shutdownNow();
+        }
     }
 
     public List<DocumentMismatch> filterMismatches(List<DocumentMismatch> mismatches, String fieldName) {
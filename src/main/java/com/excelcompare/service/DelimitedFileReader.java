@@ -0,0 +1,328 @@
+package com.excelcompare.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reads CSV and TSV manifests through memory-mapped windows of the file.
+ * <p>
+ * Rows are scanned as byte offsets into the mapped window and only the columns mapped to a
+ * document field are ever decoded. Each column remembers the last value it decoded, so runs of
+ * repeated values such as status or document type reuse one String instead of allocating a new
+ * one per cell. Quoted cells follow RFC 4180 and may contain delimiters, doubled quotes and line
+ * breaks. The file is expected to be UTF-8, a leading byte order mark is skipped.
+ */
+class DelimitedFileReader {
+
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+    private static final int PROGRESS_INTERVAL = 4096;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final byte delimiter;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+
+    // Cells of the current row as offsets into the window
+    private int cellCount;
+    private int[] cellStarts = new int[32];
+    private int[] cellEnds = new int[32];
+    private boolean[] cellEscaped = new boolean[32];
+
+    private byte[][] lastBytes = new byte[0][];
+    private String[] lastValues = new String[0];
+
+    private DelimitedFileReader(FileChannel channel, byte delimiter, int windowSize) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.delimiter = delimiter;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Workbooks are zip (xlsx) or OLE2 (xls) containers, anything else is read as delimited text.
+     */
+    static boolean isDelimited(Path path) throws IOException {
+        byte[] magic = new byte[4];
+        int read;
+        try (InputStream in = Files.newInputStream(path)) {
+            read = in.readNBytes(magic, 0, magic.length);
+        }
+        if (read < magic.length) {
+            return true;
+        }
+        boolean zip = magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+        boolean ole2 = magic[0] == (byte) 0xD0 && magic[1] == (byte) 0xCF && magic[2] == 0x11 && magic[3] == (byte) 0xE0;
+        return !zip && !ole2;
+    }
+
+    /**
+     * @param columnsOf maps the header cells to the column of every field, -1 for unmapped fields
+     * @param rowConsumer receives the values of each data row; the array is reused between rows
+     */
+    static void read(Path path, int fieldCount, Function<List<String>, int[]> columnsOf,
+                     Consumer<String[]> rowConsumer, ProgressListener listener) throws IOException {
+        read(path, fieldCount, columnsOf, rowConsumer, listener, WINDOW_SIZE);
+    }
+
+    static void read(Path path, int fieldCount, Function<List<String>, int[]> columnsOf,
+                     Consumer<String[]> rowConsumer, ProgressListener listener, int windowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return;
+            }
+            new DelimitedFileReader(channel, detectDelimiter(path), windowSize)
+                    .read(fieldCount, columnsOf, rowConsumer, listener);
+        }
+    }
+
+    private void read(int fieldCount, Function<List<String>, int[]> columnsOf,
+                      Consumer<String[]> rowConsumer, ProgressListener listener) throws IOException {
+        map(0, Math.min(fileSize, windowSize));
+        int position = hasByteOrderMark() ? 3 : 0;
+
+        int[] columns = null;
+        String[] values = new String[fieldCount];
+        long rows = 0;
+        while (windowStart + position < fileSize) {
+            int next = parseRow(position);
+            if (next < 0) {
+                // The row runs past the window, so map a new one starting at the row
+                remap(position);
+                position = 0;
+                continue;
+            }
+
+            boolean blank = cellCount == 1 && cellStarts[0] == cellEnds[0];
+            if (!blank) {
+                if (columns == null) {
+                    columns = columnsOf.apply(headers());
+                    int columnCount = 0;
+                    for (int column : columns) {
+                        columnCount = Math.max(columnCount, column + 1);
+                    }
+                    lastBytes = new byte[columnCount][];
+                    lastValues = new String[columnCount];
+                } else {
+                    if (listener.isCancelled()) {
+                        throw new CancellationException("Reading was cancelled");
+                    }
+                    for (int field = 0; field < fieldCount; field++) {
+                        int column = columns[field];
+                        values[field] = column >= 0 && column < cellCount ? value(column) : "";
+                    }
+                    rowConsumer.accept(values);
+                    if (++rows % PROGRESS_INTERVAL == 0) {
+                        listener.onProgress((double) (windowStart + next) / fileSize);
+                    }
+                }
+            }
+            position = next;
+        }
+        listener.onProgress(1.0);
+    }
+
+    /**
+     * Records the cells of the row starting at {@code from}.
+     *
+     * @return the position after the row, or -1 if the row does not end inside the window
+     */
+    private int parseRow(int from) {
+        boolean lastWindow = windowStart + windowLimit == fileSize;
+        cellCount = 0;
+        int p = from;
+        while (true) {
+            int start;
+            int end;
+            boolean escaped = false;
+            if (p < windowLimit && window.get(p) == '"') {
+                start = ++p;
+                while (true) {
+                    if (p >= windowLimit) {
+                        if (!lastWindow) {
+                            return -1;
+                        }
+                        // Unterminated quote, keep what there is
+                        end = p;
+                        break;
+                    }
+                    if (window.get(p) == '"') {
+                        if (p + 1 >= windowLimit && !lastWindow) {
+                            return -1;
+                        }
+                        if (p + 1 < windowLimit && window.get(p + 1) == '"') {
+                            escaped = true;
+                            p += 2;
+                            continue;
+                        }
+                        end = p++;
+                        break;
+                    }
+                    p++;
+                }
+                // Skip anything between the closing quote and the delimiter
+                while (p < windowLimit && window.get(p) != delimiter && window.get(p) != '\n' && window.get(p) != '\r') {
+                    p++;
+                }
+            } else {
+                start = p;
+                while (p < windowLimit && window.get(p) != delimiter && window.get(p) != '\n') {
+                    p++;
+                }
+                end = p;
+                if (end > start && window.get(end - 1) == '\r') {
+                    end--;
+                }
+            }
+            addCell(start, end, escaped);
+
+            if (p >= windowLimit) {
+                return lastWindow ? p : -1;
+            }
+            byte b = window.get(p);
+            if (b == delimiter) {
+                p++;
+                continue;
+            }
+            if (b == '\r') {
+                if (++p >= windowLimit) {
+                    return lastWindow ? p : -1;
+                }
+                if (window.get(p) != '\n') {
+                    return p;
+                }
+            }
+            return p + 1;
+        }
+    }
+
+    private void addCell(int start, int end, boolean escaped) {
+        if (cellCount == cellStarts.length) {
+            cellStarts = Arrays.copyOf(cellStarts, cellCount * 2);
+            cellEnds = Arrays.copyOf(cellEnds, cellCount * 2);
+            cellEscaped = Arrays.copyOf(cellEscaped, cellCount * 2);
+        }
+        cellStarts[cellCount] = start;
+        cellEnds[cellCount] = end;
+        cellEscaped[cellCount] = escaped;
+        cellCount++;
+    }
+
+    private List<String> headers() {
+        List<String> headers = new ArrayList<>(cellCount);
+        for (int cell = 0; cell < cellCount; cell++) {
+            headers.add(decode(cell));
+        }
+        return headers;
+    }
+
+    private String value(int column) {
+        if (cellEscaped[column]) {
+            return decode(column);
+        }
+
+        int start = cellStarts[column];
+        int length = cellEnds[column] - start;
+        byte[] previous = lastBytes[column];
+        if (previous != null && previous.length == length && sameBytes(start, previous)) {
+            return lastValues[column];
+        }
+
+        byte[] bytes = new byte[length];
+        window.get(start, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        lastBytes[column] = bytes;
+        lastValues[column] = value;
+        return value;
+    }
+
+    private boolean sameBytes(int start, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (window.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int cell) {
+        int start = cellStarts[cell];
+        byte[] bytes = new byte[cellEnds[cell] - start];
+        window.get(start, bytes);
+        if (!cellEscaped[cell]) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Collapse doubled quotes
+        int length = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[length++] = bytes[i];
+            if (bytes[i] == '"' && i + 1 < bytes.length && bytes[i + 1] == '"') {
+                i++;
+            }
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void remap(int rowStart) throws IOException {
+        long start = windowStart + rowStart;
+        long size = Math.min(fileSize - start, windowSize);
+        if (rowStart == 0) {
+            // A single row fills the whole window, so the window has to grow
+            if (windowLimit >= MAX_WINDOW_SIZE) {
+                throw new IOException("Row at byte " + start + " is too long to read");
+            }
+            size = Math.min(fileSize - start, Math.min((long) windowLimit * 2, MAX_WINDOW_SIZE));
+        }
+        map(start, size);
+    }
+
+    private void map(long start, long size) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        windowLimit = (int) size;
+    }
+
+    private boolean hasByteOrderMark() {
+        return windowLimit >= 3 && window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB
+                && window.get(2) == (byte) 0xBF;
+    }
+
+    /**
+     * Tab-separated if the header line has more tabs than commas, comma-separated otherwise.
+     */
+    private static byte detectDelimiter(Path path) throws IOException {
+        int tabs = 0;
+        int commas = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] head = in.readNBytes(64 * 1024);
+            for (byte b : head) {
+                if (b == '\n') {
+                    break;
+                }
+                if (b == '\t') {
+                    tabs++;
+                } else if (b == ',') {
+                    commas++;
+                }
+            }
+        }
+        return tabs > commas ? (byte) '\t' : (byte) ',';
+    }
+}
@@ -0,0 +1,73 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.store.ResultColumns;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A list of reported documents held as references to manifest rows. A join records a row
+ * instead of building a {@link DocumentMetadata}; documents are only created when the list is
+ * read, for instance while the result is serialised.
+ */
+final class DocumentList extends AbstractList<DocumentMetadata> implements RandomAccess, ResultColumns.Documents {
+
+    private final RowList rows = new RowList();
+
+    void addRow(ColumnarManifest source, int row) {
+        rows.add(source, row);
+    }
+
+    @Override
+    public boolean add(DocumentMetadata document) {
+        rows.add(document);
+        return true;
+    }
+
+    void ensureCapacity(int capacity) {
+        rows.ensureCapacity(capacity);
+    }
+
+    /**
+     * Moves every document of the other list to the end of this one, leaving the other list empty.
+     */
+    void append(DocumentList other) {
+        rows.append(other.rows);
+    }
+
+    /**
+     * Sorts by policy number and then every other field, see {@link RowList#sortedOrder()}.
+     */
+    void sortByDocument() {
+        rows.reorder(rows.sortedOrder());
+    }
+
+    @Override
+    public String policyNo(int index) {
+        return value(index, DocumentField.POLICY_NO);
+    }
+
+    @Override
+    public String value(int index, DocumentField field) {
+        if (index < 0 || index >= rows.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + rows.size());
+        }
+        return rows.value(index, field);
+    }
+
+    @Override
+    public DocumentMetadata get(int index) {
+        if (index < 0 || index >= rows.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + rows.size());
+        }
+        return rows.toDocument(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+}
@@ -0,0 +1,221 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+/**
+ * Collects the documents of one side of a comparison. Documents are kept in a compact
+ * {@link ColumnarManifest} until its footprint exceeds the memory budget; after that every
+ * document is hash-partitioned by policy number into a temporary spill file so partitions can
+ * be joined one pair at a time.
+ */
+public class DocumentSpool implements Closeable {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final int partitionCount;
+    private final long memoryBudgetBytes;
+    private ColumnarManifest bufferedDocuments = new ColumnarManifest();
+    private int size;
+
+    private Path spillDirectory;
+    private DataOutputStream[] partitionWriters;
+
+    public DocumentSpool(int partitionCount, long memoryBudgetBytes) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount must be at least 1");
+        }
+        this.partitionCount = partitionCount;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    public void add(DocumentMetadata doc) {
+        size++;
+        try {
+            if (isSpilled()) {
+                write(doc);
+                return;
+            }
+
+            bufferedDocuments.add(doc);
+            if (bufferedDocuments.getRetainedBytes() > memoryBudgetBytes) {
+                spill();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spill documents to disk", e);
+        }
+    }
+
+    /**
+     * Appends every row of a manifest read elsewhere, such as one sheet of a workbook.
+     */
+    public void addAll(ColumnarManifest manifest) {
+        String[] values = new String[DocumentField.count()];
+        try {
+            for (int row = 0; row < manifest.size(); row++) {
+                size++;
+                int manifestRow = row;
+                if (isSpilled()) {
+                    write(field -> manifest.value(manifestRow, field));
+                    continue;
+                }
+
+                for (DocumentField field : DocumentField.values()) {
+                    values[field.ordinal()] = manifest.value(row, field);
+                }
+                bufferedDocuments.add(values);
+                if (bufferedDocuments.getRetainedBytes() > memoryBudgetBytes) {
+                    spill();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spill documents to disk", e);
+        }
+    }
+
+    public int size() { return size; }
+
+    public int getPartitionCount() { return partitionCount; }
+
+    public boolean isSpilled() { return spillDirectory != null; }
+
+    public ColumnarManifest getBufferedDocuments() {
+        if (isSpilled()) {
+            throw new IllegalStateException("Documents have been spilled to disk, read them by partition");
+        }
+        return bufferedDocuments;
+    }
+
+    /**
+     * Moves all buffered documents to the partition files. Further documents are written
+     * straight to disk.
+     */
+    public void spill() throws IOException {
+        if (isSpilled()) {
+            return;
+        }
+
+        spillDirectory = Files.createTempDirectory("excel-compare-spill-");
+        partitionWriters = new DataOutputStream[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitionWriters[i] = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(partitionFile(i)), WRITE_BUFFER_SIZE));
+        }
+
+        ColumnarManifest buffered = bufferedDocuments;
+        for (int row = 0; row < buffered.size(); row++) {
+            int bufferedRow = row;
+            write(field -> buffered.value(bufferedRow, field));
+        }
+        bufferedDocuments = null;
+    }
+
+    /**
+     * Ends every partition file; the spool accepts no more documents after this. Call it once,
+     * on the thread that wrote the documents, before partitions are read.
+     */
+    public void finishWriting() throws IOException {
+        if (partitionWriters == null) {
+            return;
+        }
+        for (DataOutputStream writer : partitionWriters) {
+            writer.writeByte(0);
+            writer.close();
+        }
+        partitionWriters = null;
+    }
+
+    /**
+     * Reads every document of one partition back into memory, in insertion order. Only reads,
+     * so partitions may be read by several threads at once once writing has finished.
+     */
+    public ColumnarManifest readPartition(int partition) throws IOException {
+        if (!isSpilled()) {
+            throw new IllegalStateException("Documents are held in memory and have no partitions");
+        }
+        if (partitionWriters != null) {
+            throw new IllegalStateException("Partitions are still being written, call finishWriting first");
+        }
+
+        ColumnarManifest documents = new ColumnarManifest();
+        String[] values = new String[DocumentField.count()];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(partitionFile(partition)), WRITE_BUFFER_SIZE))) {
+            while (in.read() == 1) {
+                for (int field = 0; field < values.length; field++) {
+                    values[field] = readString(in);
+                }
+                documents.add(values);
+            }
+        }
+        return documents;
+    }
+
+    public static int partitionOf(String policyNo, int partitionCount) {
+        int hash = policyNo == null ? 0 : policyNo.hashCode();
+        // Spread the bits so that sequential policy numbers do not cluster
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, partitionCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        bufferedDocuments = null;
+        if (!isSpilled()) {
+            return;
+        }
+
+        finishWriting();
+        for (int i = 0; i < partitionCount; i++) {
+            Files.deleteIfExists(partitionFile(i));
+        }
+        Files.deleteIfExists(spillDirectory);
+    }
+
+    private Path partitionFile(int partition) {
+        return spillDirectory.resolve("partition-" + partition + ".bin");
+    }
+
+    private void write(DocumentMetadata doc) throws IOException {
+        write(field -> field.get(doc));
+    }
+
+    private void write(Function<DocumentField, String> values) throws IOException {
+        if (partitionWriters == null) {
+            throw new IllegalStateException("Spool has already been read and cannot accept more documents");
+        }
+        DataOutputStream out = partitionWriters[partitionOf(values.apply(DocumentField.POLICY_NO), partitionCount)];
+        out.writeByte(1);
+        for (DocumentField field : DocumentField.values()) {
+            writeString(out, values.apply(field));
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
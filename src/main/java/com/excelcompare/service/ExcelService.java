@@ -1,31 +1,356 @@
 package com.excelcompare.service;
 
+import com.excelcompare.metrics.PipelineMetrics;
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
 import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.store.ManifestCache;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 @Service
 public class ExcelService {
 
+    private static final Set<String> EXCEL_CONTENT_TYPES = Set.of(
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "application/vnd.ms-excel");
+
+    private static final Set<String> DELIMITED_CONTENT_TYPES = Set.of(
+            "text/csv", "application/csv", "text/tab-separated-values");
+
     private static final String[] EXPECTED_HEADERS = {
             "Document location", "Folder hierarchy", "Document name", "Claim no", 
             "Claimant", "Date of loss", "Adjustor name", "Policy no", 
             "Document type", "Security type", "Status", "Draft", "Migration"
     };
 
+    // Streaming mode parses the sheet XML with SAX instead of loading the whole workbook DOM
+    @Value("${excel.reader.streaming:true}")
+    private boolean streamingReader = true;
+
+    @Autowired
+    private PipelineMetrics metrics = PipelineMetrics.NONE;
+
+    // Parsed manifests by file content, a repeated upload replays the cached rows instead of parsing
+    @Autowired(required = false)
+    private ManifestCache manifestCache;
+
     public List<DocumentMetadata> readExcelFile(MultipartFile file) throws IOException {
         List<DocumentMetadata> documents = new ArrayList<>();
-        
+        readExcelFile(file, documents::add);
+        return documents;
+    }
+
+    public void readExcelFile(MultipartFile file, Consumer<DocumentMetadata> consumer) throws IOException {
+        readRows(file, values -> consumer.accept(DocumentField.toDocument(values)));
+    }
+
+    public void readExcelFile(Path path, Consumer<DocumentMetadata> consumer) throws IOException {
+        readExcelFile(path, consumer, ProgressListener.NONE);
+    }
+
+    public void readExcelFile(Path path, Consumer<DocumentMetadata> consumer, ProgressListener listener)
+            throws IOException {
+        readRows(path, values -> consumer.accept(DocumentField.toDocument(values)), listener);
+    }
+
+    /**
+     * Reads the file straight into a dictionary-encoded manifest without creating a
+     * {@link DocumentMetadata} per row.
+     */
+    public ColumnarManifest readManifest(MultipartFile file) throws IOException {
+        ColumnarManifest manifest = new ColumnarManifest();
+        readRows(file, manifest::add);
+        manifest.trimToSize();
+        return manifest;
+    }
+
+    /**
+     * Returns the cached manifest when a file with the same content was parsed before. Cached
+     * manifests are shared and must not be modified.
+     */
+    public ColumnarManifest readManifest(Path path, ProgressListener listener) throws IOException {
+        if (manifestCache == null) {
+            return readManifest(path, null, listener);
+        }
+        String contentHash = ManifestCache.contentHash(path);
+        Optional<ColumnarManifest> cached = manifestCache.get(contentHash);
+        return cached.isPresent() ? cached.get() : readManifest(path, contentHash, listener);
+    }
+
+    /**
+     * Parses the file without looking it up, then caches it under the given content hash
+     * unless that is {@code null}.
+     */
+    public ColumnarManifest readManifest(Path path, String contentHash, ProgressListener listener) throws IOException {
+        ColumnarManifest manifest = new ColumnarManifest();
+        parseRows(path, manifest::add, listener);
+        manifest.trimToSize();
+        if (manifestCache != null && contentHash != null) {
+            manifestCache.put(contentHash, manifest);
+        }
+        return manifest;
+    }
+
+    /**
+     * Emits each data row as field values indexed by {@link DocumentField} ordinal. The
+     * array is reused between rows.
+     */
+    private void readRows(MultipartFile file, Consumer<String[]> rowConsumer) throws IOException {
+        if (!streamingReader && !isDelimitedFile(file)) {
+            long start = System.nanoTime();
+            RowCounter counter = new RowCounter(rowConsumer);
+            readWorkbook(file, counter);
+            metrics.recordParse("workbook", System.nanoTime() - start, counter.rows, file.getSize());
+            return;
+        }
+
+        // OPCPackage reads random-access from a file, so spool the upload instead of buffering it. It is
+        // copied rather than moved, the caller may still read the upload afterwards.
+        Path tempFile = copyToTempFile(file);
+        try {
+            readRows(tempFile, rowConsumer, ProgressListener.NONE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Moves the upload into a temporary file owned by the caller. The container has already
+     * written the part to disk, so this is usually a rename rather than a copy, after which the
+     * upload itself can no longer be read. Only for callers that own the upload; the methods
+     * reading a {@link MultipartFile} directly copy it and leave it readable.
+     */
+    public Path spoolToTempFile(MultipartFile file) throws IOException {
+        Path tempFile = Files.createTempFile("excel-compare-", isDelimitedFile(file) ? ".csv" : ".xlsx");
+        try {
+            file.transferTo(tempFile.toFile());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
+    private Path copyToTempFile(MultipartFile file) throws IOException {
+        Path tempFile = Files.createTempFile("excel-compare-", isDelimitedFile(file) ? ".csv" : ".xlsx");
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
+    private void readRows(Path path, Consumer<String[]> rowConsumer, ProgressListener listener) throws IOException {
+        String contentHash = manifestCache == null ? null : ManifestCache.contentHash(path);
+        readRows(path, contentHash, rowConsumer, listener);
+    }
+
+    private void readRows(Path path, String contentHash, Consumer<String[]> rowConsumer, ProgressListener listener)
+            throws IOException {
+        if (contentHash == null) {
+            parseRows(path, rowConsumer, listener);
+            return;
+        }
+
+        Optional<ColumnarManifest> cached = manifestCache.get(contentHash);
+        if (cached.isPresent()) {
+            replayRows(cached.get(), rowConsumer, listener);
+            return;
+        }
+
+        // Collect the rows for the cache on the way through, up to what the cache would keep
+        ColumnarManifest collected = new ColumnarManifest();
+        long maxEntryBytes = manifestCache.getMaxEntryBytes();
+        boolean[] tooLarge = new boolean[1];
+        parseRows(path, values -> {
+            if (!tooLarge[0]) {
+                collected.add(values);
+                tooLarge[0] = collected.getRetainedBytes() > maxEntryBytes;
+            }
+            rowConsumer.accept(values);
+        }, listener);
+        if (!tooLarge[0]) {
+            collected.trimToSize();
+            manifestCache.put(contentHash, collected);
+        }
+    }
+
+    private void parseRows(Path path, Consumer<String[]> rowConsumer, ProgressListener listener) throws IOException {
+        parseRows(path, null, rowConsumer, listener);
+    }
+
+    private void parseRows(Path path, String sheetName, Consumer<String[]> rowConsumer, ProgressListener listener)
+            throws IOException {
+        long start = System.nanoTime();
+        RowCounter counter = new RowCounter(rowConsumer);
+        if (DelimitedFileReader.isDelimited(path)) {
+            DelimitedFileReader.read(path, DocumentField.count(), this::createFieldColumns,
+                    values -> emitIfValid(values, counter), listener);
+            metrics.recordParse("delimited", System.nanoTime() - start, counter.rows, Files.size(path));
+            return;
+        }
+        readSheet(path, sheetName, counter, listener);
+        metrics.recordParse("streaming", System.nanoTime() - start, counter.rows, Files.size(path));
+    }
+
+    private void replayRows(ColumnarManifest manifest, Consumer<String[]> rowConsumer, ProgressListener listener) {
+        String[] values = new String[DocumentField.count()];
+        DocumentField[] fields = DocumentField.values();
+        for (int row = 0; row < manifest.size(); row++) {
+            if (listener.isCancelled()) {
+                throw new CancellationException("Reading was cancelled");
+            }
+            for (DocumentField field : fields) {
+                values[field.ordinal()] = manifest.value(row, field);
+            }
+            rowConsumer.accept(values);
+            listener.onProgress((double) (row + 1) / manifest.size());
+        }
+    }
+
+    /**
+     * @return the sheet names of a workbook in workbook order, or a single {@code null} entry
+     * for a delimited file, which has no sheets
+     */
+    public List<String> listSheets(Path path) throws IOException {
+        if (DelimitedFileReader.isDelimited(path)) {
+            return Collections.singletonList(null);
+        }
+
+        OPCPackage pkg = openPackage(path);
+        try {
+            List<String> names = new ArrayList<>();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+            }
+            return names;
+        } catch (OpenXML4JException e) {
+            throw new IOException("Unable to read Excel file: " + e.getMessage(), e);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Reads one sheet into a manifest of its own, so several sheets of a file can be read at
+     * once. The manifest is cached under the given key unless that is {@code null}.
+     *
+     * @param sheetName the sheet to read, {@code null} for the first sheet or a delimited file
+     */
+    public ColumnarManifest readSheetManifest(Path path, String sheetName, String cacheKey) throws IOException {
+        if (manifestCache != null && cacheKey != null) {
+            Optional<ColumnarManifest> cached = manifestCache.get(cacheKey);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        ColumnarManifest manifest = new ColumnarManifest();
+        parseRows(path, sheetName, manifest::add, ProgressListener.NONE);
+        manifest.trimToSize();
+        if (manifestCache != null && cacheKey != null) {
+            manifestCache.put(cacheKey, manifest);
+        }
+        return manifest;
+    }
+
+    private OPCPackage openPackage(Path path) throws IOException {
+        try {
+            return OPCPackage.open(path.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("Unable to open Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    private void readSheet(Path path, String sheetName, Consumer<String[]> rowConsumer, ProgressListener listener)
+            throws IOException {
+        OPCPackage pkg = openPackage(path);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            InputStream sheetData = null;
+            while (sheetData == null && sheets.hasNext()) {
+                InputStream data = sheets.next();
+                if (sheetName == null || sheetName.equals(sheets.getSheetName())) {
+                    sheetData = data;
+                } else {
+                    data.close();
+                }
+            }
+            if (sheetData == null) {
+                if (sheetName != null) {
+                    throw new IOException("The workbook has no sheet named " + sheetName);
+                }
+                return;
+            }
+
+            try (CountingInputStream sheet = new CountingInputStream(sheetData)) {
+                long sheetSize = sheets.getSheetPart().getSize();
+                StreamingRowHandler rowHandler = new StreamingRowHandler(values -> {
+                    if (listener.isCancelled()) {
+                        throw new CancellationException("Reading was cancelled");
+                    }
+                    rowConsumer.accept(values);
+                    if (sheetSize > 0) {
+                        listener.onProgress(Math.min(1.0, (double) sheet.getByteCount() / sheetSize));
+                    }
+                });
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new StreamingSheetHandler(styles, sharedStrings, rowHandler));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Unable to read Excel file: " + e.getMessage(), e);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private void readWorkbook(MultipartFile file, Consumer<String[]> rowConsumer) throws IOException {
         try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
             Sheet sheet = workbook.getSheetAt(0);
             
             if (sheet.getPhysicalNumberOfRows() == 0) {
-                return documents;
+                return;
             }
 
             // Read header row to map column positions
@@ -33,27 +358,39 @@ public class ExcelService {
             Map<String, Integer> columnMap = createColumnMap(headerRow);
 
             // Read data rows
+            String[] values = new String[DocumentField.count()];
             for (int i = 1; i <= sheet.getLastRowNum(); i++) {
                 Row row = sheet.getRow(i);
                 if (row != null) {
-                    DocumentMetadata doc = createDocumentFromRow(row, columnMap);
-                    if (doc.getPolicyNo() != null && !doc.getPolicyNo().trim().isEmpty()) {
-                        documents.add(doc);
-                    }
+                    readRowValues(row, columnMap, values);
+                    emitIfValid(values, rowConsumer);
                 }
             }
         }
+    }
 
-        return documents;
+    private void emitIfValid(String[] values, Consumer<String[]> rowConsumer) {
+        String policyNo = values[DocumentField.POLICY_NO.ordinal()];
+        if (policyNo != null && !policyNo.trim().isEmpty()) {
+            rowConsumer.accept(values);
+        }
     }
 
     private Map<String, Integer> createColumnMap(Row headerRow) {
-        Map<String, Integer> columnMap = new HashMap<>();
-        
+        List<String> headers = new ArrayList<>();
         for (int i = 0; i < headerRow.getLastCellNum(); i++) {
             Cell cell = headerRow.getCell(i);
-            if (cell != null) {
-                String header = getCellValueAsString(cell).trim().toLowerCase();
+            headers.add(cell != null ? getCellValueAsString(cell) : null);
+        }
+        return createColumnMap(headers);
+    }
+
+    private Map<String, Integer> createColumnMap(List<String> headers) {
+        Map<String, Integer> columnMap = new HashMap<>();
+        
+        for (int i = 0; i < headers.size(); i++) {
+            if (headers.get(i) != null) {
+                String header = headers.get(i).trim().toLowerCase();
                 
                 // Map various possible header names to standard fields
                 switch (header) {
@@ -103,33 +440,28 @@ public class ExcelService {
         return columnMap;
     }
 
-    private DocumentMetadata createDocumentFromRow(Row row, Map<String, Integer> columnMap) {
-        DocumentMetadata doc = new DocumentMetadata();
-        
-        doc.setDocumentLocation(getCellValue(row, columnMap, "documentLocation"));
-        doc.setFolderHierarchy(getCellValue(row, columnMap, "folderHierarchy"));
-        doc.setDocumentName(getCellValue(row, columnMap, "documentName"));
-        doc.setClaimNo(getCellValue(row, columnMap, "claimNo"));
-        doc.setClaimant(getCellValue(row, columnMap, "claimant"));
-        doc.setDateOfLoss(getCellValue(row, columnMap, "dateOfLoss"));
-        doc.setAdjustorName(getCellValue(row, columnMap, "adjustorName"));
-        doc.setPolicyNo(getCellValue(row, columnMap, "policyNo"));
-        doc.setDocumentType(getCellValue(row, columnMap, "documentType"));
-        doc.setSecurityType(getCellValue(row, columnMap, "securityType"));
-        doc.setStatus(getCellValue(row, columnMap, "status"));
-        doc.setDraft(getCellValue(row, columnMap, "draft"));
-        doc.setMigration(getCellValue(row, columnMap, "migration"));
-        
-        return doc;
+    /**
+     * @return the column of every field indexed by {@link DocumentField} ordinal, -1 if the header is missing
+     */
+    private int[] createFieldColumns(List<String> headers) {
+        Map<String, Integer> columnMap = createColumnMap(headers);
+        int[] columns = new int[DocumentField.count()];
+        for (DocumentField field : DocumentField.values()) {
+            columns[field.ordinal()] = columnMap.getOrDefault(field.getFieldName(), -1);
+        }
+        return columns;
     }
 
-    private String getCellValue(Row row, Map<String, Integer> columnMap, String fieldName) {
-        Integer columnIndex = columnMap.get(fieldName);
-        if (columnIndex != null && columnIndex < row.getLastCellNum()) {
-            Cell cell = row.getCell(columnIndex);
-            return getCellValueAsString(cell);
+    private void readRowValues(Row row, Map<String, Integer> columnMap, String[] values) {
+        fillValues(values, columnMap, columnIndex ->
+                columnIndex < row.getLastCellNum() ? getCellValueAsString(row.getCell(columnIndex)) : "");
+    }
+
+    private void fillValues(String[] values, Map<String, Integer> columnMap, IntFunction<String> cellValues) {
+        for (DocumentField field : DocumentField.values()) {
+            Integer columnIndex = columnMap.get(field.getFieldName());
+            values[field.ordinal()] = columnIndex != null ? cellValues.apply(columnIndex) : "";
         }
-        return "";
     }
 
     private String getCellValueAsString(Cell cell) {
@@ -161,9 +493,211 @@ public class ExcelService {
         }
         
         String contentType = file.getContentType();
-        return contentType != null && (
-            contentType.equals("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet") ||
-            contentType.equals("application/vnd.ms-excel")
-        );
+        return (contentType != null && EXCEL_CONTENT_TYPES.contains(contentType)) || isDelimitedFile(file);
+    }
+
+    /**
+     * CSV and TSV extracts are recognised by content type or, since browsers disagree on
+     * their content type, by file extension.
+     */
+    private boolean isDelimitedFile(MultipartFile file) {
+        String contentType = file.getContentType();
+        if (contentType != null && DELIMITED_CONTENT_TYPES.contains(contentType)) {
+            return true;
+        }
+        String name = file.getOriginalFilename();
+        if (name == null) {
+            return false;
+        }
+        name = name.toLowerCase(Locale.ROOT);
+        return name.endsWith(".csv") || name.endsWith(".tsv");
+    }
+
+    /**
+     * Collects SAX cell events for one row at a time and turns each data row into field
+     * values using the same header mapping as the workbook reader.
+     */
+    private class StreamingRowHandler implements SheetContentsHandler {
+        private final Consumer<String[]> rowConsumer;
+        private final String[] fieldValues = new String[DocumentField.count()];
+        private final List<String> headers = new ArrayList<>();
+        private Map<String, Integer> columnMap = Collections.emptyMap();
+        private String[] rowValues = new String[0];
+        private boolean headerRow;
+        private int currentColumn;
+        private String cellType;
+        private String cellFormula;
+        private boolean cellEmitted;
+
+        StreamingRowHandler(Consumer<String[]> rowConsumer) {
+            this.rowConsumer = rowConsumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            headerRow = rowNum == 0;
+            currentColumn = -1;
+            Arrays.fill(rowValues, "");
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (headerRow) {
+                columnMap = createColumnMap(headers);
+                int width = columnMap.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+                rowValues = new String[width];
+                Arrays.fill(rowValues, "");
+                return;
+            }
+            fillValues(fieldValues, columnMap, columnIndex -> rowValues[columnIndex]);
+            emitIfValid(fieldValues, rowConsumer);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            currentColumn = cellReference != null ? new CellReference(cellReference).getCol() : currentColumn + 1;
+            cellEmitted = true;
+            String value = toCellValue(formattedValue);
+
+            if (headerRow) {
+                while (headers.size() < currentColumn) {
+                    headers.add(null);
+                }
+                headers.add(value);
+            } else if (currentColumn < rowValues.length) {
+                rowValues[currentColumn] = value;
+            }
+        }
+
+        // Align event-API output with getCellValueAsString for the cell types it renders differently
+        private String toCellValue(String formattedValue) {
+            if (cellFormula != null) {
+                return cellFormula;
+            }
+            if (formattedValue == null || "e".equals(cellType)) {
+                return "";
+            }
+            if ("b".equals(cellType)) {
+                return formattedValue.toLowerCase();
+            }
+            return formattedValue;
+        }
+    }
+
+    /**
+     * Records the raw type and formula text of each cell before delegating to POI, and emits
+     * formula cells that were saved without a cached value, which POI would otherwise drop.
+     */
+    private static class StreamingSheetHandler extends XSSFSheetXMLHandler {
+        private final StreamingRowHandler rowHandler;
+        private final StringBuilder formula = new StringBuilder();
+        private boolean formulaOpen;
+        private String cellReference;
+
+        StreamingSheetHandler(StylesTable styles, ReadOnlySharedStringsTable sharedStrings,
+                              StreamingRowHandler rowHandler) {
+            super(styles, sharedStrings, rowHandler, new CellValueFormatter(), true);
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            if ("c".equals(localName)) {
+                cellReference = attributes.getValue("r");
+                rowHandler.cellType = attributes.getValue("t");
+                rowHandler.cellFormula = null;
+                rowHandler.cellEmitted = false;
+                formula.setLength(0);
+            } else if ("f".equals(localName)) {
+                formulaOpen = true;
+            }
+            super.startElement(uri, localName, qName, attributes);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("f".equals(localName)) {
+                formulaOpen = false;
+                rowHandler.cellFormula = formula.length() > 0 ? formula.toString() : null;
+            }
+            super.endElement(uri, localName, qName);
+            if ("c".equals(localName) && !rowHandler.cellEmitted && rowHandler.cellFormula != null) {
+                rowHandler.cell(cellReference, rowHandler.cellFormula, null);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (formulaOpen) {
+                formula.append(ch, start, length);
+            }
+            super.characters(ch, start, length);
+        }
+    }
+
+    /**
+     * Renders numeric cells the way {@code getCellValueAsString} does: dates via
+     * {@link Date#toString()}, everything else truncated to a whole number.
+     */
+    private static class CellValueFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString,
+                                            boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getJavaDate(value, use1904Windowing).toString();
+            }
+            return String.valueOf((long) value);
+        }
+    }
+
+    private static class RowCounter implements Consumer<String[]> {
+        private final Consumer<String[]> delegate;
+        private long rows;
+
+        RowCounter(Consumer<String[]> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void accept(String[] values) {
+            rows++;
+            delegate.accept(values);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long byteCount;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getByteCount() { return byteCount; }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                byteCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                byteCount += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            byteCount += skipped;
+            return skipped;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.ValueDictionary;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One compared field of a join with its {@link FieldRule} compiled in. The rule is applied once
+ * to every distinct value of both dictionaries, which are translated into shared ids of their
+ * canonical forms, so comparing the field of two rows reads four ints and allocates nothing. A
+ * numeric rule also keeps the number behind every shared id for its tolerance check.
+ * <p>
+ * The exact rule uses the codes of side A as shared ids, so only values that need trimming or that
+ * side A does not hold are looked up by their canonical form.
+ */
+final class FieldComparator {
+
+    final DocumentField field;
+
+    private final int[] codesA;
+    private final int[] codesB;
+    private final int[] sharedIdsA;
+    private final int[] sharedIdsB;
+
+    // Number of each shared id, NaN for values that are not numbers; null without a tolerance
+    private final double[] numbers;
+    private final double tolerance;
+
+    FieldComparator(DocumentField field, FieldRule rule, ColumnarManifest manifestA, ColumnarManifest manifestB) {
+        this.field = field;
+        codesA = manifestA.codes(field);
+        codesB = manifestB.codes(field);
+
+        ValueDictionary dictionaryA = manifestA.dictionary(field);
+        Map<String, Integer> ids = new HashMap<>();
+        if (rule == FieldRule.EXACT) {
+            ValueDictionary.Lookup lookupA = dictionaryA.lookup();
+            sharedIdsA = exactIds(dictionaryA, dictionaryA, lookupA, ids);
+            sharedIdsB = exactIds(manifestB.dictionary(field), dictionaryA, lookupA, ids);
+        } else {
+            sharedIdsA = sharedIds(dictionaryA, rule, ids);
+            sharedIdsB = sharedIds(manifestB.dictionary(field), rule, ids);
+        }
+
+        tolerance = rule.getTolerance();
+        if (rule.isNumeric() && tolerance > 0) {
+            numbers = new double[ids.size()];
+            ids.forEach((value, id) -> numbers[id] = toNumber(value));
+        } else {
+            numbers = null;
+        }
+    }
+
+    boolean equal(int rowA, int rowB) {
+        int idA = sharedIdsA[codesA[rowA]];
+        int idB = sharedIdsB[codesB[rowB]];
+        // Values that are not numbers are NaN, so they never fall within the tolerance
+        return idA == idB || numbers != null && Math.abs(numbers[idA] - numbers[idB]) <= tolerance;
+    }
+
+    private static int[] sharedIds(ValueDictionary dictionary, FieldRule rule, Map<String, Integer> ids) {
+        int[] sharedIds = new int[dictionary.size()];
+        for (int code = 0; code < sharedIds.length; code++) {
+            String value = rule.canonicalize(dictionary.decode(code));
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = ids.size();
+                ids.put(value, id);
+            }
+            sharedIds[code] = id;
+        }
+        return sharedIds;
+    }
+
+    private static int[] exactIds(ValueDictionary dictionary, ValueDictionary dictionaryA,
+                                  ValueDictionary.Lookup lookupA, Map<String, Integer> ids) {
+        int[] sharedIds = new int[dictionary.size()];
+        for (int code = 0; code < sharedIds.length; code++) {
+            // Values with nothing to trim are their own canonical form, found without decoding them
+            if (dictionary.isTrimmed(code)) {
+                int id = dictionary == dictionaryA ? code : lookupA.find(dictionary, code);
+                if (id >= 0) {
+                    sharedIds[code] = id;
+                    continue;
+                }
+            }
+            String value = dictionary.decode(code);
+            String canonical = value == null ? "" : value.trim();
+            int id = lookupA.find(canonical);
+            if (id < 0) {
+                Integer extra = ids.get(canonical);
+                if (extra == null) {
+                    extra = dictionaryA.size() + ids.size();
+                    ids.put(canonical, extra);
+                }
+                id = extra;
+            }
+            sharedIds[code] = id;
+        }
+        return sharedIds;
+    }
+
+    private static double toNumber(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.excelcompare.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * How the values of one field are compared. Every rule maps a value to a canonical form and two
+ * values are equal when their canonical forms are; a numeric rule additionally accepts numbers
+ * within its tolerance. Values are trimmed before any rule is applied.
+ * <ul>
+ *   <li>{@code exact} - the trimmed values are equal, the default</li>
+ *   <li>{@code case-insensitive} - equal ignoring case</li>
+ *   <li>{@code date} or {@code date:dd/MM/yyyy|...} - equal as calendar dates, read with the given
+ *       patterns or with common ones, as well as the {@code Date.toString()} form the workbook reader
+ *       produces for date cells</li>
+ *   <li>{@code numeric} or {@code numeric:0.01} - equal as numbers, optionally within a tolerance</li>
+ *   <li>{@code regex:<pattern>=><replacement>} - equal once every match of the pattern is replaced</li>
+ *   <li>{@code ignore} - never reported as a mismatch</li>
+ * </ul>
+ * Rules that cannot be read fail when they are parsed, not during a comparison.
+ */
+public final class FieldRule {
+
+    public static final FieldRule EXACT = new FieldRule("exact", UnaryOperator.identity(), Double.NaN, false);
+    public static final FieldRule IGNORE = new FieldRule("ignore", value -> "", Double.NaN, true);
+
+    private static final DateTimeFormatter DATE_TO_STRING = DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+    private static final String DEFAULT_DATE_PATTERNS = "yyyy-MM-dd|yyyy-MM-dd'T'HH:mm:ss|yyyy-MM-dd HH:mm:ss|M/d/yyyy|d-MMM-yyyy";
+
+    private final String spec;
+    private final UnaryOperator<String> canonical;
+    private final double tolerance;
+    private final boolean ignored;
+
+    private FieldRule(String spec, UnaryOperator<String> canonical, double tolerance, boolean ignored) {
+        this.spec = spec;
+        this.canonical = canonical;
+        this.tolerance = tolerance;
+        this.ignored = ignored;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the rule is unknown or its argument cannot be read
+     */
+    public static FieldRule parse(String spec) {
+        String value = spec == null ? "" : spec.trim();
+        int colon = value.indexOf(':');
+        String kind = (colon < 0 ? value : value.substring(0, colon)).trim().toLowerCase(Locale.ROOT);
+        String argument = colon < 0 ? null : value.substring(colon + 1);
+
+        switch (kind) {
+            case "":
+            case "exact":
+                return EXACT;
+            case "ignore":
+                return IGNORE;
+            case "case-insensitive":
+                return new FieldRule(value, text -> text.toLowerCase(Locale.ROOT), Double.NaN, false);
+            case "date":
+                return dateRule(value, argument == null || argument.isBlank() ? DEFAULT_DATE_PATTERNS : argument);
+            case "numeric":
+                return numericRule(value, argument);
+            case "regex":
+                return regexRule(value, argument);
+            default:
+                throw new IllegalArgumentException("Unknown comparison rule: " + spec);
+        }
+    }
+
+    /**
+     * @return the form the value is compared in, computed once per distinct value of a comparison
+     */
+    public String canonicalize(String value) {
+        return canonical.apply(value == null ? "" : value.trim());
+    }
+
+    public boolean isNumeric() {
+        return !Double.isNaN(tolerance);
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public boolean isIgnored() {
+        return ignored;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static FieldRule dateRule(String spec, String patterns) {
+        List<DateTimeFormatter> formatters = new ArrayList<>();
+        formatters.add(DATE_TO_STRING);
+        for (String pattern : patterns.split("\\|")) {
+            if (!pattern.isBlank()) {
+                try {
+                    formatters.add(DateTimeFormatter.ofPattern(pattern.trim(), Locale.US));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid date pattern in comparison rule: " + spec, e);
+                }
+            }
+        }
+        return new FieldRule(spec, text -> {
+            for (DateTimeFormatter formatter : formatters) {
+                try {
+                    return formatter.parse(text, LocalDate::from).toString();
+                } catch (DateTimeParseException e) {
+                    // Try the next pattern
+                }
+            }
+            // Not a date, so it can only equal the same text
+            return text;
+        }, Double.NaN, false);
+    }
+
+    private static FieldRule numericRule(String spec, String argument) {
+        double tolerance = 0;
+        if (argument != null && !argument.isBlank()) {
+            try {
+                tolerance = Double.parseDouble(argument.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid tolerance in comparison rule: " + spec, e);
+            }
+            if (!(tolerance >= 0)) {
+                throw new IllegalArgumentException("Tolerance must not be negative: " + spec);
+            }
+        }
+        // Equal numbers share one canonical form, so only differing numbers need the tolerance check
+        return new FieldRule(spec, text -> {
+            try {
+                return new BigDecimal(text.replace(",", "")).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return text;
+            }
+        }, tolerance, false);
+    }
+
+    private static FieldRule regexRule(String spec, String argument) {
+        if (argument == null || argument.isEmpty()) {
+            throw new IllegalArgumentException("Missing pattern in comparison rule: " + spec);
+        }
+        int arrow = argument.lastIndexOf("=>");
+        String replacement = arrow < 0 ? "" : argument.substring(arrow + 2);
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(arrow < 0 ? argument : argument.substring(0, arrow));
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid pattern in comparison rule: " + spec, e);
+        }
+        checkGroupReferences(spec, replacement, pattern.matcher("").groupCount());
+        return new FieldRule(spec, text -> pattern.matcher(text).replaceAll(replacement), Double.NaN, false);
+    }
+
+    private static void checkGroupReferences(String spec, String replacement, int groupCount) {
+        for (int i = 0; i < replacement.length(); i++) {
+            char c = replacement.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '$') {
+                char next = i + 1 < replacement.length() ? replacement.charAt(i + 1) : ' ';
+                if (next != '{' && (!Character.isDigit(next) || next - '0' > groupCount)) {
+                    throw new IllegalArgumentException("Invalid group reference in comparison rule: " + spec);
+                }
+            }
+        }
+    }
+}
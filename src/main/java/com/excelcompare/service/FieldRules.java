@@ -0,0 +1,59 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.DocumentField;
+
+import java.util.*;
+
+/**
+ * The {@link FieldRule} of every compared field, {@link FieldRule#EXACT} unless configured otherwise.
+ */
+public final class FieldRules {
+
+    public static final FieldRules DEFAULT = new FieldRules(new EnumMap<>(DocumentField.class));
+
+    private final Map<DocumentField, FieldRule> rules;
+
+    private FieldRules(Map<DocumentField, FieldRule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @param specs rules by field name, such as {@code dateOfLoss=date}; names ignore case and dashes
+     * @throws IllegalArgumentException if a name is not a compared field or a rule cannot be read
+     */
+    public static FieldRules parse(Map<String, String> specs) {
+        Map<DocumentField, FieldRule> rules = new EnumMap<>(DocumentField.class);
+        for (Map.Entry<String, String> spec : specs.entrySet()) {
+            DocumentField field = comparedField(spec.getKey());
+            try {
+                rules.put(field, FieldRule.parse(spec.getValue()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(field.getFieldName() + ": " + e.getMessage(), e);
+            }
+        }
+        return new FieldRules(rules);
+    }
+
+    public FieldRule get(DocumentField field) {
+        return rules.getOrDefault(field, FieldRule.EXACT);
+    }
+
+    /**
+     * @return the configured rules by field name
+     */
+    public Map<String, String> describe() {
+        Map<String, String> described = new LinkedHashMap<>();
+        rules.forEach((field, rule) -> described.put(field.getFieldName(), rule.toString()));
+        return described;
+    }
+
+    private static DocumentField comparedField(String name) {
+        String wanted = name.replace("-", "").trim();
+        for (DocumentField field : DocumentField.COMPARED_FIELDS) {
+            if (field.getFieldName().equalsIgnoreCase(wanted)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("No comparison rule can be set for field: " + name);
+    }
+}
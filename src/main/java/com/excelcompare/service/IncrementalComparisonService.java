@@ -0,0 +1,268 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.dto.ComparisonResult.DuplicateGroup;
+import com.excelcompare.dto.IncrementalComparisonResult;
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.store.ComparisonResultStore;
+import com.excelcompare.store.ManifestCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Re-compares a pair of files against an earlier comparison, re-joining only the policies
+ * whose rows changed since then.
+ * <p>
+ * Uploads are identified by the SHA-256 of their content and parsed manifests come from the
+ * {@link ManifestCache}, so an unchanged baseline file is not parsed twice. Every row is fingerprinted
+ * per policy number; policies whose fingerprints match the earlier comparison keep their
+ * earlier outcome and only the rest are joined again.
+ */
+@Service
+public class IncrementalComparisonService {
+
+    @Autowired
+    private ExcelService excelService;
+
+    @Autowired
+    private ComparisonService comparisonService;
+
+    @Autowired
+    private ComparisonResultStore resultStore;
+
+    @Autowired
+    private ManifestCache manifestCache;
+
+    @Autowired
+    private ParseExecutor parseExecutor;
+
+    // Comparisons whose fingerprints are kept so they can be named as a baseline
+    @Value("${comparison.incremental.baselines:32}")
+    private int baselineCount = 32;
+
+    // Estimated heap all kept fingerprints may take, the least recently used are dropped first
+    @Value("${comparison.incremental.baselines-max-mb:128}")
+    private long baselinesMaxMb = 128;
+
+    // Access-ordered, guarded by itself
+    private final Map<String, Baseline> baselines = new LinkedHashMap<>(16, 0.75f, true);
+    private long baselineBytes;
+
+    public IncrementalComparisonResult compare(MultipartFile fileA, MultipartFile fileB, String baselineId,
+                                               Function<ComparisonResult, String> resultHandler) throws IOException {
+        Path pathA = excelService.spoolToTempFile(fileA);
+        try {
+            Path pathB = excelService.spoolToTempFile(fileB);
+            try {
+                return compare(pathA, pathB, baselineId, resultHandler);
+            } finally {
+                Files.deleteIfExists(pathB);
+            }
+        } finally {
+            Files.deleteIfExists(pathA);
+        }
+    }
+
+    /**
+     * Compares the files, incrementally when a baseline is named, and keeps their fingerprints so
+     * the new comparison can serve as a baseline itself.
+     *
+     * @param baselineId an earlier comparison made by this service, or {@code null} for a full comparison
+     * @param resultHandler stores the finished result and returns its comparison id
+     * @throws IllegalArgumentException if the baseline is unknown or its result is no longer stored
+     */
+    public IncrementalComparisonResult compare(Path fileA, Path fileB, String baselineId,
+                                               Function<ComparisonResult, String> resultHandler) throws IOException {
+        Baseline baseline = null;
+        ComparisonResult previous = null;
+        if (baselineId != null && !baselineId.isBlank()) {
+            synchronized (baselines) {
+                baseline = baselines.get(baselineId);
+            }
+            if (baseline == null) {
+                throw new IllegalArgumentException("Unknown baseline comparison: " + baselineId);
+            }
+            previous = resultStore.find(baselineId).orElseThrow(() ->
+                    new IllegalArgumentException("The result of baseline comparison " + baselineId + " is no longer stored"));
+        }
+
+        List<ParsedFile> parsed = parseExecutor.invokeAll(List.of(() -> parse(fileA), () -> parse(fileB)));
+        ParsedFile parsedA = parsed.get(0);
+        ParsedFile parsedB = parsed.get(1);
+
+        IncrementalComparisonResult response;
+        if (baseline == null) {
+            ComparisonResult result = comparisonService.compareManifests(
+                    parsedA.manifest, parsedB.manifest, ProgressListener.NONE);
+            String comparisonId = resultHandler.apply(result);
+            int comparedPolicies = countPolicies(result.getMissingInA(), result.getMissingInB(),
+                    result.getMatchedDocuments(), result.getMetadataMismatches());
+            response = new IncrementalComparisonResult(comparisonId, null, result.getStatistics(),
+                    List.of(), List.of(), comparedPolicies, 0, parsedA.reused, parsedB.reused);
+        } else {
+            response = compareChanged(parsedA, parsedB, baseline, baselineId, previous, resultHandler);
+        }
+
+        keepBaseline(response.getComparisonId(), new Baseline(parsedA.fingerprints, parsedB.fingerprints));
+        return response;
+    }
+
+    private void keepBaseline(String comparisonId, Baseline baseline) {
+        long maxBytes = baselinesMaxMb * 1024 * 1024;
+        if (baseline.getRetainedBytes() > maxBytes) {
+            return;
+        }
+        synchronized (baselines) {
+            Baseline previous = baselines.put(comparisonId, baseline);
+            if (previous != null) {
+                baselineBytes -= previous.getRetainedBytes();
+            }
+            baselineBytes += baseline.getRetainedBytes();
+
+            Iterator<Baseline> iterator = baselines.values().iterator();
+            while ((baselines.size() > baselineCount || baselineBytes > maxBytes) && iterator.hasNext()) {
+                baselineBytes -= iterator.next().getRetainedBytes();
+                iterator.remove();
+            }
+        }
+    }
+
+    private IncrementalComparisonResult compareChanged(ParsedFile parsedA, ParsedFile parsedB, Baseline baseline,
+                                                       String baselineId, ComparisonResult previous,
+                                                       Function<ComparisonResult, String> resultHandler) {
+        Set<String> changed = parsedA.fingerprints.changedSince(baseline.fingerprintsA);
+        changed.addAll(parsedB.fingerprints.changedSince(baseline.fingerprintsB));
+
+        // Join the changed policies, totals still cover every row of both files
+        MatchKey matchKey = comparisonService.getMatchKey();
+        ComparisonAccumulator accumulator = new ManifestJoin(parsedA.manifest, parsedB.manifest, matchKey,
+                comparisonService.getFieldRules()).join(changed);
+        Set<String> brokenNow = new HashSet<>();
+        collectPolicies(accumulator.missingInA, brokenNow);
+        collectPolicies(accumulator.missingInB, brokenNow);
+        for (int i = 0; i < accumulator.metadataMismatches.size(); i++) {
+            brokenNow.add(accumulator.metadataMismatches.policyNo(i));
+        }
+        Set<String> matchedNow = new HashSet<>();
+        collectPolicies(accumulator.matchedDocuments, matchedNow);
+
+        // Carry over the earlier outcome of every unchanged policy
+        ComparisonAccumulator carried = new ComparisonAccumulator();
+        Set<String> brokenBefore = new HashSet<>();
+        carryOver(previous.getMissingInA(), carried.missingInA, changed, brokenBefore);
+        carryOver(previous.getMissingInB(), carried.missingInB, changed, brokenBefore);
+        carryOver(previous.getMatchedDocuments(), carried.matchedDocuments, changed, null);
+        for (DocumentMismatch mismatch : previous.getMetadataMismatches()) {
+            if (changed.contains(mismatch.getPolicyNo())) {
+                brokenBefore.add(mismatch.getPolicyNo());
+            } else {
+                carried.metadataMismatches.add(mismatch);
+            }
+        }
+        if (previous.getDuplicateGroups() != null) {
+            for (DuplicateGroup group : previous.getDuplicateGroups()) {
+                if (!changed.contains(group.getKey().get(DocumentField.POLICY_NO.getFieldName()))) {
+                    carried.duplicateGroups.add(group);
+                }
+            }
+        }
+        int reusedPolicies = countPolicies(carried.missingInA, carried.missingInB,
+                carried.matchedDocuments, carried.metadataMismatches);
+
+        accumulator.merge(carried);
+        ComparisonResult result = accumulator.toResult(matchKey);
+        String comparisonId = resultHandler.apply(result);
+
+        List<String> newlyFixed = new ArrayList<>();
+        List<String> newlyBroken = new ArrayList<>();
+        for (String policyNo : changed) {
+            // A policy with several documents is only fixed once none of them is missing or mismatched
+            if (brokenBefore.contains(policyNo) && matchedNow.contains(policyNo) && !brokenNow.contains(policyNo)) {
+                newlyFixed.add(policyNo);
+            } else if (!brokenBefore.contains(policyNo) && brokenNow.contains(policyNo)) {
+                newlyBroken.add(policyNo);
+            }
+        }
+        Collections.sort(newlyFixed);
+        Collections.sort(newlyBroken);
+
+        return new IncrementalComparisonResult(comparisonId, baselineId, result.getStatistics(),
+                newlyFixed, newlyBroken, changed.size(), reusedPolicies, parsedA.reused, parsedB.reused);
+    }
+
+    private static void carryOver(List<DocumentMetadata> previous, List<DocumentMetadata> carried,
+                                  Set<String> changed, Set<String> changedPolicies) {
+        for (DocumentMetadata document : previous) {
+            if (!changed.contains(document.getPolicyNo())) {
+                carried.add(document);
+            } else if (changedPolicies != null) {
+                changedPolicies.add(document.getPolicyNo());
+            }
+        }
+    }
+
+    // A policy may have several documents, each missing, matched or with one mismatch per differing field
+    private static int countPolicies(List<DocumentMetadata> missingInA, List<DocumentMetadata> missingInB,
+                                     List<DocumentMetadata> matched, List<DocumentMismatch> mismatches) {
+        Set<String> policies = new HashSet<>();
+        collectPolicies(missingInA, policies);
+        collectPolicies(missingInB, policies);
+        collectPolicies(matched, policies);
+        for (DocumentMismatch mismatch : mismatches) {
+            policies.add(mismatch.getPolicyNo());
+        }
+        return policies.size();
+    }
+
+    private static void collectPolicies(List<DocumentMetadata> documents, Set<String> policies) {
+        for (DocumentMetadata document : documents) {
+            policies.add(document.getPolicyNo());
+        }
+    }
+
+    private ParsedFile parse(Path file) throws IOException {
+        String contentHash = ManifestCache.contentHash(file);
+        Optional<ColumnarManifest> cached = manifestCache.get(contentHash);
+        ColumnarManifest manifest = cached.isPresent()
+                ? cached.get() : excelService.readManifest(file, contentHash, ProgressListener.NONE);
+        // Fingerprinting is cheap next to parsing, so it is not cached
+        return new ParsedFile(manifest, PolicyFingerprints.of(manifest), cached.isPresent());
+    }
+
+    private static class ParsedFile {
+        private final ColumnarManifest manifest;
+        private final PolicyFingerprints fingerprints;
+        private final boolean reused;
+
+        ParsedFile(ColumnarManifest manifest, PolicyFingerprints fingerprints, boolean reused) {
+            this.manifest = manifest;
+            this.fingerprints = fingerprints;
+            this.reused = reused;
+        }
+    }
+
+    private static class Baseline {
+        private final PolicyFingerprints fingerprintsA;
+        private final PolicyFingerprints fingerprintsB;
+
+        Baseline(PolicyFingerprints fingerprintsA, PolicyFingerprints fingerprintsB) {
+            this.fingerprintsA = fingerprintsA;
+            this.fingerprintsB = fingerprintsB;
+        }
+
+        long getRetainedBytes() {
+            return fingerprintsA.getRetainedBytes() + fingerprintsB.getRetainedBytes();
+        }
+    }
+}
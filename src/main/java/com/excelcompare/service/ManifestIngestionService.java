@@ -0,0 +1,143 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult.SheetRowCount;
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.store.ManifestCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Reads sides made of several workbooks, or of several sheets per workbook, as one logical
+ * manifest per side.
+ * <p>
+ * Every selected sheet of every file is read by its own task on the {@link ParseExecutor}. A
+ * finished sheet is appended to the spool of its side as soon as all sheets before it are, so
+ * each side keeps file and sheet order without holding every sheet until the last one is read.
+ */
+@Service
+public class ManifestIngestionService {
+
+    @Autowired
+    private ExcelService excelService;
+
+    @Autowired
+    private ParseExecutor parseExecutor;
+
+    /**
+     * @param sides the files of each side, in the order their rows are wanted
+     * @param spools one spool per side that receives its rows
+     * @return the rows read from each sheet, per side
+     * @throws IllegalArgumentException if named sheets are selected and a name matches no sheet
+     */
+    public List<List<SheetRowCount>> readSheets(List<List<MultipartFile>> sides, SheetSelection selection,
+                                                List<DocumentSpool> spools) throws IOException {
+        List<Path> tempFiles = new ArrayList<>();
+        try {
+            Set<String> foundSheets = new HashSet<>();
+            List<Callable<Void>> tasks = new ArrayList<>();
+            List<SheetRowCount[]> counts = new ArrayList<>();
+
+            for (int side = 0; side < sides.size(); side++) {
+                List<SheetTask> sheets = new ArrayList<>();
+                for (MultipartFile file : sides.get(side)) {
+                    Path path = excelService.spoolToTempFile(file);
+                    tempFiles.add(path);
+                    String contentHash = ManifestCache.contentHash(path);
+
+                    List<String> available = excelService.listSheets(path);
+                    for (String sheetName : selection.select(available)) {
+                        foundSheets.add(sheetName);
+                        // The first sheet is cached under the file hash, like a single sheet upload
+                        String readName = selection.isFirstOnly() ? null : sheetName;
+                        String cacheKey = readName == null ? contentHash : sheetKey(contentHash, readName);
+                        sheets.add(new SheetTask(file.getOriginalFilename(), sheetName, path, readName, cacheKey));
+                    }
+                }
+
+                SheetRowCount[] sideCounts = new SheetRowCount[sheets.size()];
+                counts.add(sideCounts);
+                OrderedMerge merge = new OrderedMerge(spools.get(side), sheets.size());
+                for (int i = 0; i < sheets.size(); i++) {
+                    SheetTask sheet = sheets.get(i);
+                    int position = i;
+                    tasks.add(() -> {
+                        ColumnarManifest manifest = excelService.readSheetManifest(sheet.path, sheet.readName, sheet.cacheKey);
+                        sideCounts[position] = new SheetRowCount(sheet.fileName, sheet.sheetName, manifest.size());
+                        merge.complete(position, manifest);
+                        return null;
+                    });
+                }
+            }
+
+            Set<String> missing = new LinkedHashSet<>(selection.getNames());
+            missing.removeAll(foundSheets);
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("No uploaded workbook has a sheet named " + String.join(", ", missing));
+            }
+
+            parseExecutor.invokeAll(tasks);
+
+            List<List<SheetRowCount>> result = new ArrayList<>();
+            for (SheetRowCount[] sideCounts : counts) {
+                result.add(Arrays.asList(sideCounts));
+            }
+            return result;
+        } finally {
+            for (Path path : tempFiles) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String sheetKey(String contentHash, String sheetName) {
+        return HexFormat.of().formatHex(ManifestCache.newDigest()
+                .digest((contentHash + "/" + sheetName).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class SheetTask {
+        private final String fileName;
+        private final String sheetName;
+        private final Path path;
+        private final String readName;
+        private final String cacheKey;
+
+        SheetTask(String fileName, String sheetName, Path path, String readName, String cacheKey) {
+            this.fileName = fileName;
+            this.sheetName = sheetName;
+            this.path = path;
+            this.readName = readName;
+            this.cacheKey = cacheKey;
+        }
+    }
+
+    /**
+     * Appends finished sheets to the spool in sheet order, holding back any that finish early.
+     */
+    private static class OrderedMerge {
+        private final DocumentSpool spool;
+        private final ColumnarManifest[] finished;
+        private int next;
+
+        OrderedMerge(DocumentSpool spool, int sheetCount) {
+            this.spool = spool;
+            this.finished = new ColumnarManifest[sheetCount];
+        }
+
+        synchronized void complete(int position, ColumnarManifest manifest) {
+            finished[position] = manifest;
+            while (next < finished.length && finished[next] != null) {
+                spool.addAll(finished[next]);
+                // Cached manifests stay alive in the cache, this only drops our reference
+                finished[next++] = null;
+            }
+        }
+    }
+}
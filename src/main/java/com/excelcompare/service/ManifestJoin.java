@@ -0,0 +1,347 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult.DuplicateGroup;
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.ValueDictionary;
+
+import java.util.*;
+
+/**
+ * Joins two dictionary-encoded manifests on a {@link MatchKey}. Every compared field is compiled
+ * into a {@link FieldComparator} over the dictionaries of both sides, so comparing a field of two
+ * rows is an int comparison. Reported rows are referenced by position and only become documents when
+ * the result is read, so joining creates no objects per row. What it allocates are int arrays: the
+ * key index, the row links and the row lists of the result, a few ints per row in all.
+ * <p>
+ * A key with more than one row on either side is reported as a duplicate group. Within a key,
+ * rows identical on every compared field are paired first, the rest are paired in row order and
+ * whatever is left over on one side is reported as missing from the other.
+ */
+class ManifestJoin {
+
+    // Groups larger than this are paired in row order only, skipping the search for identical rows
+    private static final long MAX_PAIRING_WORK = 1 << 20;
+
+    private final ColumnarManifest manifestA;
+    private final ColumnarManifest manifestB;
+    private final DocumentField[] keyFields;
+
+    private final int[] policyIdsB;
+    private final int policyKeyField;
+    private final MatchKeyIndex keys;
+
+    // Rows of each key on either side as linked lists in row order, indexed by key number, -1 ends a list
+    private final int[] firstRowA;
+    private final int[] firstRowB;
+    private final int[] nextRowA;
+    private final int[] nextRowB;
+    private final int[] rowCountA;
+    private final int[] rowCountB;
+
+    // Compared fields in the order mismatches are reported, without ignored fields
+    private final FieldComparator[] comparators;
+
+    private final int successfulMigrations;
+
+    ManifestJoin(ColumnarManifest manifestA, ColumnarManifest manifestB, MatchKey matchKey, FieldRules rules) {
+        this.manifestA = manifestA;
+        this.manifestB = manifestB;
+        this.keyFields = matchKey.getFields().toArray(new DocumentField[0]);
+
+        // Key values are matched exactly, like the keys of the original lookup maps. Side A's codes
+        // are the shared ids themselves.
+        int[][] keyIdsB = new int[keyFields.length][];
+        int policyKeyField = -1;
+        for (int k = 0; k < keyFields.length; k++) {
+            ValueDictionary dictionaryA = manifestA.dictionary(keyFields[k]);
+            keyIdsB[k] = sharedIds(dictionaryA, manifestB.dictionary(keyFields[k]));
+            if (keyFields[k] == DocumentField.POLICY_NO) {
+                policyKeyField = k;
+            }
+        }
+        this.policyIdsB = keyIdsB[policyKeyField];
+        this.policyKeyField = policyKeyField;
+
+        // A key of one field is numbered by its shared id, one number per distinct value
+        if (keyFields.length == 1) {
+            keys = MatchKeyIndex.direct(idCount(manifestA.dictionary(keyFields[0]), keyIdsB[0]));
+        } else {
+            keys = new MatchKeyIndex(keyFields.length, Math.max(manifestA.size(), manifestB.size()));
+        }
+        // The key number of every row, linked below into the next row of the same key
+        nextRowA = numberKeys(manifestA, null);
+        nextRowB = numberKeys(manifestB, keyIdsB);
+        firstRowA = new int[keys.size()];
+        firstRowB = new int[keys.size()];
+        rowCountA = new int[keys.size()];
+        rowCountB = new int[keys.size()];
+        linkRows(nextRowA, firstRowA, rowCountA);
+        linkRows(nextRowB, firstRowB, rowCountB);
+
+        List<FieldComparator> comparators = new ArrayList<>();
+        for (DocumentField field : DocumentField.COMPARED_FIELDS) {
+            FieldRule rule = rules.get(field);
+            if (!rule.isIgnored()) {
+                comparators.add(new FieldComparator(field, rule, manifestA, manifestB));
+            }
+        }
+        this.comparators = comparators.toArray(new FieldComparator[0]);
+
+        successfulMigrations = countMigrated(manifestB);
+    }
+
+    /**
+     * Joins every key whose number falls into the given shard.
+     */
+    ComparisonAccumulator join(int shard, int shardCount) {
+        ComparisonAccumulator accumulator = new ComparisonAccumulator();
+        GroupScratch scratch = new GroupScratch();
+        // Most rows usually match, so the matched list is sized for its share of them up front
+        accumulator.matchedDocuments.ensureCapacity(manifestA.size() / shardCount);
+
+        for (int key = shard; key < keys.size(); key += shardCount) {
+            joinKey(key, accumulator, scratch);
+        }
+
+        // Totals cover every row, so they are counted by one shard only
+        if (shard == 0) {
+            addTotals(accumulator);
+        }
+        return accumulator;
+    }
+
+    /**
+     * Joins only the keys of the given policy numbers, the totals still cover every row of both manifests.
+     */
+    ComparisonAccumulator join(Collection<String> policyNos) {
+        ValueDictionary.Lookup policiesA = manifestA.dictionary(DocumentField.POLICY_NO).lookup();
+        ValueDictionary.Lookup policiesB = manifestB.dictionary(DocumentField.POLICY_NO).lookup();
+        boolean[] policies = new boolean[idCount(manifestA.dictionary(DocumentField.POLICY_NO), policyIdsB)];
+        for (String policyNo : policyNos) {
+            int code = policiesA.find(policyNo);
+            if (code >= 0) {
+                policies[code] = true;
+            } else if ((code = policiesB.find(policyNo)) >= 0) {
+                policies[policyIdsB[code]] = true;
+            }
+        }
+
+        ComparisonAccumulator accumulator = new ComparisonAccumulator();
+        GroupScratch scratch = new GroupScratch();
+        for (int key = 0; key < keys.size(); key++) {
+            if (policies[keys.keyId(key, policyKeyField)]) {
+                joinKey(key, accumulator, scratch);
+            }
+        }
+        addTotals(accumulator);
+        return accumulator;
+    }
+
+    private void joinKey(int key, ComparisonAccumulator accumulator, GroupScratch scratch) {
+        int countA = rowCountA[key];
+        int countB = rowCountB[key];
+
+        if (countA == 1 && countB == 1) {
+            compareRows(firstRowA[key], firstRowB[key], accumulator);
+            return;
+        }
+        if (countA > 1 || countB > 1) {
+            accumulator.duplicateGroups.add(new DuplicateGroup(keyValues(key), countA, countB));
+        }
+
+        scratch.reset(countA, countB);
+        int[] rowsA = rows(firstRowA[key], nextRowA, countA, scratch.rowsA);
+        int[] rowsB = rows(firstRowB[key], nextRowB, countB, scratch.rowsB);
+        boolean[] pairedA = scratch.pairedA;
+        boolean[] pairedB = scratch.pairedB;
+
+        // Rows identical on every compared field belong together, whatever their order
+        if ((long) countA * countB <= MAX_PAIRING_WORK) {
+            for (int a = 0; a < countA; a++) {
+                for (int b = 0; b < countB; b++) {
+                    if (!pairedB[b] && identical(rowsA[a], rowsB[b])) {
+                        accumulator.matchedDocuments.addRow(manifestA, rowsA[a]);
+                        pairedA[a] = true;
+                        pairedB[b] = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        int b = 0;
+        for (int a = 0; a < countA; a++) {
+            if (pairedA[a]) {
+                continue;
+            }
+            while (b < countB && pairedB[b]) {
+                b++;
+            }
+            if (b < countB) {
+                compareRows(rowsA[a], rowsB[b], accumulator);
+                pairedB[b++] = true;
+            } else {
+                accumulator.missingInB.addRow(manifestA, rowsA[a]);
+            }
+        }
+        for (; b < countB; b++) {
+            if (!pairedB[b]) {
+                accumulator.missingInA.addRow(manifestB, rowsB[b]);
+            }
+        }
+    }
+
+    private void addTotals(ComparisonAccumulator accumulator) {
+        accumulator.totalDocumentsA = manifestA.size();
+        accumulator.totalDocumentsB = manifestB.size();
+        accumulator.successfulMigrations = successfulMigrations;
+        accumulator.failedMigrations = manifestB.size() - successfulMigrations;
+    }
+
+    private boolean identical(int rowA, int rowB) {
+        for (FieldComparator comparator : comparators) {
+            if (!comparator.equal(rowA, rowB)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void compareRows(int rowA, int rowB, ComparisonAccumulator accumulator) {
+        // Rows are referenced by the result, a document is only created when the result is read
+        int pair = -1;
+        for (FieldComparator comparator : comparators) {
+            if (!comparator.equal(rowA, rowB)) {
+                if (pair < 0) {
+                    pair = accumulator.metadataMismatches.addPair(manifestA, rowA, manifestB, rowB);
+                }
+                accumulator.metadataMismatches.addMismatch(pair, comparator.field);
+            }
+        }
+
+        if (pair < 0) {
+            accumulator.matchedDocuments.addRow(manifestA, rowA);
+        }
+    }
+
+    private Map<String, String> keyValues(int key) {
+        boolean onA = firstRowA[key] >= 0;
+        int row = onA ? firstRowA[key] : firstRowB[key];
+        Map<String, String> values = new LinkedHashMap<>();
+        for (DocumentField field : keyFields) {
+            values.put(field.getFieldName(), (onA ? manifestA : manifestB).value(row, field));
+        }
+        return values;
+    }
+
+    /**
+     * @param keyIds the shared id of every code of each key field, or {@code null} when the codes
+     * are the shared ids
+     */
+    private int[] numberKeys(ColumnarManifest manifest, int[][] keyIds) {
+        int[][] keyCodes = new int[keyFields.length][];
+        for (int k = 0; k < keyFields.length; k++) {
+            keyCodes[k] = manifest.codes(keyFields[k]);
+        }
+
+        int[] key = new int[keyFields.length];
+        int[] keyNumbers = new int[manifest.size()];
+        for (int row = 0; row < keyNumbers.length; row++) {
+            for (int k = 0; k < key.length; k++) {
+                int code = keyCodes[k][row];
+                key[k] = keyIds == null ? code : keyIds[k][code];
+            }
+            keyNumbers[row] = keys.numberOf(key);
+        }
+        return keyNumbers;
+    }
+
+    /**
+     * Replaces the key number of every row with the next row of the same key, in place.
+     */
+    private static void linkRows(int[] rows, int[] firstRows, int[] rowCounts) {
+        Arrays.fill(firstRows, -1);
+        // Linked back to front, so every list is in row order
+        for (int row = rows.length - 1; row >= 0; row--) {
+            int key = rows[row];
+            rows[row] = firstRows[key];
+            firstRows[key] = row;
+            rowCounts[key]++;
+        }
+    }
+
+    private static int[] rows(int firstRow, int[] nextRows, int count, int[] rows) {
+        for (int i = 0, row = firstRow; i < count; i++, row = nextRows[row]) {
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Translates the codes of side B into the codes side A has for the same values. Values only side
+     * B holds get ids past the codes of side A, every code of side B being a distinct value.
+     */
+    private static int[] sharedIds(ValueDictionary dictionaryA, ValueDictionary dictionaryB) {
+        int[] sharedIds = new int[dictionaryB.size()];
+        int nextId = dictionaryA.size();
+        ValueDictionary.Lookup lookupA = dictionaryA.lookup();
+        for (int code = 0; code < sharedIds.length; code++) {
+            int id = lookupA.find(dictionaryB, code);
+            sharedIds[code] = id >= 0 ? id : nextId++;
+        }
+        return sharedIds;
+    }
+
+    /**
+     * @return the number of distinct values of a key field on both sides together
+     */
+    private static int idCount(ValueDictionary dictionaryA, int[] sharedIdsB) {
+        int count = dictionaryA.size();
+        for (int id : sharedIdsB) {
+            count = Math.max(count, id + 1);
+        }
+        return count;
+    }
+
+    private static int countMigrated(ColumnarManifest manifest) {
+        ValueDictionary migration = manifest.dictionary(DocumentField.MIGRATION);
+        boolean[] migrated = new boolean[migration.size()];
+        for (int code = 0; code < migrated.length; code++) {
+            migrated[code] = "Y".equalsIgnoreCase(migration.decode(code));
+        }
+
+        int count = 0;
+        int[] migrationCodes = manifest.codes(DocumentField.MIGRATION);
+        for (int row = 0; row < manifest.size(); row++) {
+            if (migrated[migrationCodes[row]]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Buffers for the rows of one key, grown to the largest key seen by one join call so keys with
+     * several rows or a row on one side only allocate nothing.
+     */
+    private static final class GroupScratch {
+        int[] rowsA = new int[16];
+        int[] rowsB = new int[16];
+        boolean[] pairedA = new boolean[16];
+        boolean[] pairedB = new boolean[16];
+
+        void reset(int countA, int countB) {
+            if (countA > rowsA.length) {
+                rowsA = new int[countA];
+                pairedA = new boolean[countA];
+            }
+            if (countB > rowsB.length) {
+                rowsB = new int[countB];
+                pairedB = new boolean[countB];
+            }
+            Arrays.fill(pairedA, 0, countA, false);
+            Arrays.fill(pairedB, 0, countB, false);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.DocumentField;
+
+import java.util.*;
+
+/**
+ * The fields whose values together identify a document on both sides of a comparison, such as
+ * policy number, claim number and document name. Key values are matched exactly. The policy
+ * number is always part of the key, so every document of a key lives in the same spill partition
+ * and incremental comparisons can still work policy by policy.
+ */
+public final class MatchKey {
+
+    public static final MatchKey POLICY_NO = new MatchKey(List.of(DocumentField.POLICY_NO));
+
+    private final List<DocumentField> fields;
+
+    private MatchKey(List<DocumentField> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param value comma-separated field names, such as {@code policyNo,claimNo,documentName}, or blank for the policy number
+     * @throws IllegalArgumentException if a name is not a document field or the policy number is missing
+     */
+    public static MatchKey parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return POLICY_NO;
+        }
+        Set<DocumentField> fields = new LinkedHashSet<>();
+        for (String name : value.split(",")) {
+            if (!name.trim().isEmpty()) {
+                fields.add(DocumentField.fromFieldName(name.trim()));
+            }
+        }
+        if (!fields.contains(DocumentField.POLICY_NO)) {
+            throw new IllegalArgumentException("The match key must include policyNo: " + value);
+        }
+        return new MatchKey(List.copyOf(fields));
+    }
+
+    public List<DocumentField> getFields() {
+        return fields;
+    }
+
+    public List<String> getFieldNames() {
+        List<String> names = new ArrayList<>(fields.size());
+        for (DocumentField field : fields) {
+            names.add(field.getFieldName());
+        }
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", getFieldNames());
+    }
+}
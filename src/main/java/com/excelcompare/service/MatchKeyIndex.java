@@ -0,0 +1,133 @@
+package com.excelcompare.service;
+
+import java.util.Arrays;
+
+/**
+ * Numbers the distinct match keys of a join in an open-addressing table. A key is the tuple of
+ * shared value ids of the key fields, hashed into a 64-bit fingerprint that is stored next to
+ * the key's number, so a probe only compares the tuple itself once the fingerprints agree and
+ * two keys whose fingerprints collide still stay apart.
+ * <p>
+ * A key of a single field needs no table: its shared value id already is a dense number, so
+ * {@link #direct(int)} numbers keys by their id and keeps nothing per key.
+ */
+class MatchKeyIndex {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final int keyLength;
+
+    // Slots: the fingerprint and number of the key held there, -1 for an empty slot
+    private long[] fingerprints;
+    private int[] slots;
+    private int mask;
+
+    // The key tuple of every number, flattened
+    private int[] keys;
+    private int size;
+
+    private MatchKeyIndex(int idCount) {
+        this.keyLength = 1;
+        this.size = idCount;
+    }
+
+    /**
+     * Numbers the keys of a single field by their shared value id.
+     *
+     * @param idCount the number of shared value ids of the field on both sides together
+     */
+    static MatchKeyIndex direct(int idCount) {
+        return new MatchKeyIndex(idCount);
+    }
+
+    MatchKeyIndex(int keyLength, int expectedKeys) {
+        this.keyLength = keyLength;
+        int capacity = Integer.highestOneBit(Math.max(16, expectedKeys) * 2 - 1) << 1;
+        allocate(capacity);
+        keys = new int[Math.max(16, expectedKeys) * keyLength];
+    }
+
+    /**
+     * @param key the shared value id of every key field, not retained
+     * @return the number of the key, assigning the next one to a key not seen before
+     */
+    int numberOf(int[] key) {
+        if (slots == null) {
+            return key[0];
+        }
+        long fingerprint = fingerprint(key);
+        int slot = (int) fingerprint & mask;
+        while (slots[slot] >= 0) {
+            if (fingerprints[slot] == fingerprint && sameKey(slots[slot], key)) {
+                return slots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int number = size++;
+        if (keys.length < size * keyLength) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        System.arraycopy(key, 0, keys, number * keyLength, keyLength);
+        fingerprints[slot] = fingerprint;
+        slots[slot] = number;
+
+        // Keep the table at most half full so probe sequences stay short
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return number;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int keyId(int number, int keyField) {
+        if (slots == null) {
+            return number;
+        }
+        return keys[number * keyLength + keyField];
+    }
+
+    private boolean sameKey(int number, int[] key) {
+        int offset = number * keyLength;
+        for (int k = 0; k < keyLength; k++) {
+            if (keys[offset + k] != key[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldFingerprints = fingerprints;
+        int[] oldSlots = slots;
+        allocate(capacity);
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] >= 0) {
+                int slot = (int) oldFingerprints[i] & mask;
+                while (slots[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                fingerprints[slot] = oldFingerprints[i];
+                slots[slot] = oldSlots[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        fingerprints = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        mask = capacity - 1;
+    }
+
+    private static long fingerprint(int[] key) {
+        long hash = SEED;
+        for (int id : key) {
+            hash = Long.rotateLeft(hash ^ (id * 0xBF58476D1CE4E5B9L), 27) * 0x94D049BB133111EBL;
+        }
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,181 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.store.ResultColumns;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Field mismatches recorded as {@code (pair, field ordinal)} tuples. Pair {@code i} is row {@code i}
+ * of two {@link RowList}s, one per side, that hold every mismatching pair once however many of its
+ * fields differ, and a {@link DocumentMismatch} is only created when the list is read, for instance
+ * while the result is serialised.
+ */
+final class MismatchList extends AbstractList<DocumentMismatch> implements RandomAccess, ResultColumns.Mismatches {
+
+    private final RowList documentsA = new RowList();
+    private final RowList documentsB = new RowList();
+
+    private int[] pairs = new int[16];
+    private int[] fields = new int[16];
+    private int size;
+
+    // The documents of the last mismatch added as an object, so its other fields share the rows
+    private DocumentMetadata lastDocumentA;
+    private DocumentMetadata lastDocumentB;
+
+    // The documents last read, so reading the fields of one pair in turn creates them once
+    private volatile ReadPair lastRead;
+
+    /**
+     * Records a pair of rows that has at least one mismatching field.
+     *
+     * @return the pair to record the mismatching fields against
+     */
+    int addPair(ColumnarManifest manifestA, int rowA, ColumnarManifest manifestB, int rowB) {
+        documentsA.add(manifestA, rowA);
+        return documentsB.add(manifestB, rowB);
+    }
+
+    void addMismatch(int pair, DocumentField field) {
+        add(pair, field.ordinal());
+    }
+
+    @Override
+    public boolean add(DocumentMismatch mismatch) {
+        if (size == 0 || mismatch.getDocumentA() != lastDocumentA || mismatch.getDocumentB() != lastDocumentB) {
+            documentsA.add(mismatch.getDocumentA());
+            documentsB.add(mismatch.getDocumentB());
+            lastDocumentA = mismatch.getDocumentA();
+            lastDocumentB = mismatch.getDocumentB();
+        }
+        int pair = documentsB.size() - 1;
+        add(pair, DocumentField.fromFieldName(mismatch.getFieldName()).ordinal());
+        return true;
+    }
+
+    /**
+     * Moves every mismatch of the other list to the end of this one, leaving the other list empty.
+     */
+    void append(MismatchList other) {
+        // Both sides always hold the same number of rows, so one offset moves the pairs of either
+        int offset = documentsA.size();
+        documentsA.append(other.documentsA);
+        documentsB.append(other.documentsB);
+        ensureCapacity(size + other.size);
+        for (int i = 0; i < other.size; i++) {
+            add(offset + other.pairs[i], other.fields[i]);
+        }
+        other.size = 0;
+        other.lastRead = null;
+        lastDocumentA = null;
+        lastDocumentB = null;
+        lastRead = null;
+    }
+
+    /**
+     * Sorts by the document of side A, like {@link DocumentList#sortByDocument()}. The sort is
+     * stable, so the fields of one pair stay in comparison order.
+     */
+    void sortByDocument() {
+        int[] sortedRows = documentsA.sortedOrder();
+        int[] positions = new int[sortedRows.length];
+        for (int i = 0; i < sortedRows.length; i++) {
+            positions[sortedRows[i]] = i;
+        }
+
+        // Counting sort on the position of each mismatch's row of side A
+        int[] starts = new int[sortedRows.length + 1];
+        for (int i = 0; i < size; i++) {
+            starts[positions[pairs[i]] + 1]++;
+        }
+        for (int i = 0; i < sortedRows.length; i++) {
+            starts[i + 1] += starts[i];
+        }
+        int[] sortedPairs = new int[pairs.length];
+        int[] sortedFields = new int[fields.length];
+        for (int i = 0; i < size; i++) {
+            int to = starts[positions[pairs[i]]]++;
+            sortedPairs[to] = pairs[i];
+            sortedFields[to] = fields[i];
+        }
+        pairs = sortedPairs;
+        fields = sortedFields;
+        lastRead = null;
+    }
+
+    @Override
+    public DocumentField field(int index) {
+        return DocumentField.ofOrdinal(fields[index]);
+    }
+
+    @Override
+    public String policyNo(int index) {
+        return documentsA.value(pairs[index], DocumentField.POLICY_NO);
+    }
+
+    @Override
+    public String valueA(int index) {
+        return documentsA.value(pairs[index], field(index));
+    }
+
+    @Override
+    public String valueB(int index) {
+        return documentsB.value(pairs[index], field(index));
+    }
+
+    @Override
+    public DocumentMismatch get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int pair = pairs[index];
+        ReadPair read = lastRead;
+        if (read == null || read.pair != pair) {
+            read = new ReadPair(pair, documentsA.toDocument(pair), documentsB.toDocument(pair));
+            lastRead = read;
+        }
+        DocumentField field = field(index);
+        return new DocumentMismatch(read.documentA.getPolicyNo(), field.getFieldName(),
+                field.get(read.documentA), field.get(read.documentB), read.documentA, read.documentB);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void add(int pair, int field) {
+        if (size == fields.length) {
+            ensureCapacity(size + 1);
+        }
+        pairs[size] = pair;
+        fields[size] = field;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > fields.length) {
+            capacity = Math.max(capacity, size + (size >> 1) + 1);
+            pairs = Arrays.copyOf(pairs, capacity);
+            fields = Arrays.copyOf(fields, capacity);
+        }
+    }
+
+    private static final class ReadPair {
+        final int pair;
+        final DocumentMetadata documentA;
+        final DocumentMetadata documentB;
+
+        ReadPair(int pair, DocumentMetadata documentA, DocumentMetadata documentB) {
+            this.pair = pair;
+            this.documentA = documentA;
+            this.documentB = documentB;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.excelcompare.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the I/O-bound parsing of uploads off the request thread, so both sides of a comparison
+ * are read at the same time. Tasks run on virtual threads when the JDK has them and on a fixed
+ * pool of platform threads otherwise; either way at most {@code comparison.parse.max-concurrency}
+ * tasks run at once.
+ */
+@Component
+public class ParseExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(ParseExecutor.class);
+
+    @Value("${comparison.parse.max-concurrency:4}")
+    private int maxConcurrency = 4;
+
+    @Value("${comparison.parse.virtual-threads:true}")
+    private boolean virtualThreads = true;
+
+    private volatile ExecutorService executor;
+    private Semaphore permits;
+
+    /**
+     * Runs the tasks concurrently and waits for all of them. When one fails the others are
+     * cancelled and its exception is rethrown.
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws IOException {
+        ExecutorService executor = getExecutor();
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return task.call();
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Parsing was interrupted");
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Parsing failed: " + cause.getMessage(), cause);
+        }
+        return results;
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    permits = new Semaphore(Math.max(1, maxConcurrency));
+                    executor = createExecutor();
+                }
+            }
+        }
+        return executor;
+    }
+
+    private ExecutorService createExecutor() {
+        if (virtualThreads) {
+            // Looked up reflectively so the application still runs on Java 17
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.debug("Virtual threads are not available, parsing on platform threads");
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, maxConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "excel-parse-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.ValueDictionary;
+
+import java.util.*;
+
+/**
+ * 64-bit content hashes of the rows of a manifest, combined per policy number in row order,
+ * so a policy's hash changes when any of its rows is added, removed, reordered or edited.
+ * Each distinct value is hashed once through the manifest dictionaries. The policies are kept
+ * sorted in an array with their hashes in a parallel {@code long[]}, so two fingerprints are
+ * compared in one merge pass.
+ */
+class PolicyFingerprints {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long NULL_HASH = 0x9E3779B97F4A7C15L;
+
+    // String header, backing array header, the reference to the String and the hash
+    private static final int POLICY_OVERHEAD_BYTES = 24 + 16 + 4 + 8;
+
+    private static final Comparator<String> POLICY_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final String[] policies;
+    private final long[] hashes;
+    private final long retainedBytes;
+
+    private PolicyFingerprints(String[] policies, long[] hashes) {
+        this.policies = policies;
+        this.hashes = hashes;
+        long bytes = 0;
+        for (String policyNo : policies) {
+            bytes += POLICY_OVERHEAD_BYTES + (policyNo == null ? 0 : policyNo.length());
+        }
+        this.retainedBytes = bytes;
+    }
+
+    static PolicyFingerprints of(ColumnarManifest manifest) {
+        DocumentField[] fields = DocumentField.values();
+        long[][] valueHashes = new long[fields.length][];
+        int[][] codes = new int[fields.length][];
+        for (DocumentField field : fields) {
+            ValueDictionary dictionary = manifest.dictionary(field);
+            long[] fieldHashes = new long[dictionary.size()];
+            for (int code = 0; code < fieldHashes.length; code++) {
+                fieldHashes[code] = hash(dictionary.decode(code));
+            }
+            valueHashes[field.ordinal()] = fieldHashes;
+            codes[field.ordinal()] = manifest.codes(field);
+        }
+
+        // Hashes by policy code, combined in row order
+        ValueDictionary policyDictionary = manifest.dictionary(DocumentField.POLICY_NO);
+        int[] policyCodes = codes[DocumentField.POLICY_NO.ordinal()];
+        long[] policyHashes = new long[policyDictionary.size()];
+        boolean[] seen = new boolean[policyHashes.length];
+        for (int row = 0; row < manifest.size(); row++) {
+            long rowHash = FNV_OFFSET;
+            for (int f = 0; f < fields.length; f++) {
+                rowHash = (rowHash ^ valueHashes[f][codes[f][row]]) * FNV_PRIME;
+            }
+            int policy = policyCodes[row];
+            policyHashes[policy] = seen[policy] ? policyHashes[policy] * 31 + rowHash : rowHash;
+            seen[policy] = true;
+        }
+
+        String[] sorted = policyDictionary.sortedValues();
+        ValueDictionary.Lookup lookup = policyDictionary.lookup();
+        long[] sortedHashes = new long[sorted.length];
+        int count = 0;
+        for (String policyNo : sorted) {
+            int code = lookup.find(policyNo);
+            if (seen[code]) {
+                sorted[count] = policyNo;
+                sortedHashes[count++] = policyHashes[code];
+            }
+        }
+        return new PolicyFingerprints(Arrays.copyOf(sorted, count), Arrays.copyOf(sortedHashes, count));
+    }
+
+    int size() {
+        return policies.length;
+    }
+
+    long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * @return the policies that were added, removed or changed since the previous fingerprints
+     */
+    Set<String> changedSince(PolicyFingerprints previous) {
+        Set<String> changed = new HashSet<>();
+        int i = 0;
+        int j = 0;
+        while (i < policies.length || j < previous.policies.length) {
+            int order = i == policies.length ? 1 : j == previous.policies.length ? -1
+                    : POLICY_ORDER.compare(policies[i], previous.policies[j]);
+            if (order < 0) {
+                changed.add(policies[i++]);
+            } else if (order > 0) {
+                changed.add(previous.policies[j++]);
+            } else {
+                if (hashes[i] != previous.hashes[j]) {
+                    changed.add(policies[i]);
+                }
+                i++;
+                j++;
+            }
+        }
+        return changed;
+    }
+
+    private static long hash(String value) {
+        if (value == null) {
+            return NULL_HASH;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,17 @@
+package com.excelcompare.service;
+
+/**
+ * Receives progress of a long running parse or comparison stage and lets the caller
+ * stop it early.
+ */
+public interface ProgressListener {
+
+    ProgressListener NONE = new ProgressListener() {};
+
+    /**
+     * @param fraction completed share of the current stage, between 0 and 1
+     */
+    default void onProgress(double fraction) {}
+
+    default boolean isCancelled() { return false; }
+}
@@ -0,0 +1,98 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ReportJobStatus;
+
+import java.nio.file.Path;
+import java.util.concurrent.Future;
+
+/**
+ * State of one report written in the background to a temporary file. Written by the worker
+ * thread and read by status and download requests, so every mutable field is volatile.
+ */
+public class ReportJob implements ProgressListener {
+
+    public enum Stage { QUEUED, WRITING, COMPLETED, FAILED, CANCELLED }
+
+    private final String id;
+    private final String comparisonId;
+    private final String format;
+    private final Path file;
+
+    private volatile Stage stage = Stage.QUEUED;
+    private volatile double progress;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile boolean truncated;
+    private volatile String error;
+    private volatile boolean cancelled;
+    private volatile Future<?> future;
+
+    ReportJob(String id, String comparisonId, String format, Path file) {
+        this.id = id;
+        this.comparisonId = comparisonId;
+        this.format = format;
+        this.file = file;
+    }
+
+    public String getId() { return id; }
+
+    public String getFormat() { return format; }
+
+    public Stage getStage() { return stage; }
+
+    public boolean isFinished() {
+        return stage == Stage.COMPLETED || stage == Stage.FAILED || stage == Stage.CANCELLED;
+    }
+
+    public long getFinishedAt() { return finishedAt; }
+
+    /**
+     * @return the written report, complete once the job is {@link Stage#COMPLETED}
+     */
+    public Path getFile() { return file; }
+
+    @Override
+    public void onProgress(double fraction) {
+        progress = fraction;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public ReportJobStatus toStatus() {
+        long now = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        long elapsed = startedAt > 0 ? now - startedAt : 0;
+        return new ReportJobStatus(id, comparisonId, format, stage.name(),
+                stage == Stage.COMPLETED ? 1 : progress, elapsed, truncated, error);
+    }
+
+    String getComparisonId() { return comparisonId; }
+
+    void setFuture(Future<?> future) { this.future = future; }
+
+    Future<?> getFuture() { return future; }
+
+    void cancel() { cancelled = true; }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+        stage = Stage.WRITING;
+    }
+
+    void complete(boolean truncated) {
+        this.truncated = truncated;
+        finish(Stage.COMPLETED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(Stage.FAILED);
+    }
+
+    void finish(Stage stage) {
+        finishedAt = System.currentTimeMillis();
+        this.stage = stage;
+    }
+}
@@ -0,0 +1,158 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes PDF reports on a bounded worker pool into temporary files, so large reports never
+ * hold a request thread and clients poll for the report and download it once it is written.
+ * Finished reports are deleted once they are older than the retention, checked every minute.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final long PRUNE_INTERVAL_SECONDS = 60;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Value("${report.jobs.workers:1}")
+    private int workers;
+
+    @Value("${report.jobs.queue-capacity:10}")
+    private int queueCapacity;
+
+    // How long finished reports stay downloadable before their files are deleted
+    @Value("${report.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService pruner;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pruner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-job-pruner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pruner.scheduleWithFixedDelay(this::pruneFinishedJobs,
+                PRUNE_INTERVAL_SECONDS, PRUNE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pruner.shutdownNow();
+        jobs.values().forEach(ReportJob::cancel);
+        executor.shutdownNow();
+        jobs.values().forEach(this::deleteFile);
+    }
+
+    /**
+     * Queues the PDF report of a stored result.
+     *
+     * @throws RejectedExecutionException if the worker queue is full
+     */
+    public ReportJob submitPdf(String comparisonId, ComparisonResult result) throws IOException {
+        pruneFinishedJobs();
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), comparisonId, "pdf",
+                Files.createTempFile("comparison-report-", ".pdf"));
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, result)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteFile(job);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<ReportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public Optional<ReportJob> cancel(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null || job.isFinished()) {
+            return Optional.ofNullable(job);
+        }
+
+        job.cancel();
+        Future<?> future = job.getFuture();
+        // Not interrupted, a running report stops at its next flush and then deletes its file
+        if (future != null && future.cancel(false) && job.getStage() == ReportJob.Stage.QUEUED) {
+            // The worker never picked the job up, so clean up here and free its place in the queue
+            executor.purge();
+            deleteFile(job);
+            job.finish(ReportJob.Stage.CANCELLED);
+        }
+        return Optional.of(job);
+    }
+
+    private void run(ReportJob job, ComparisonResult result) {
+        job.start();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(job.getFile()), WRITE_BUFFER_SIZE)) {
+            boolean complete = reportService.writePdfReport(job.getComparisonId(), result, out, job);
+            out.flush();
+            job.complete(!complete);
+        } catch (CancellationException e) {
+            deleteFile(job);
+            job.finish(ReportJob.Stage.CANCELLED);
+        } catch (Exception e) {
+            log.error("Report job {} for comparison {} failed", job.getId(), job.getComparisonId(), e);
+            deleteFile(job);
+            job.fail("Error writing report: " + e.getMessage());
+        }
+    }
+
+    private void deleteFile(ReportJob job) {
+        try {
+            Files.deleteIfExists(job.getFile());
+        } catch (IOException e) {
+            log.warn("Unable to delete report file of job {}", job.getId(), e);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && job.getFinishedAt() < cutoff) {
+                deleteFile(job);
+                return true;
+            }
+            return false;
+        });
+    }
+}
@@ -2,120 +2,396 @@ package com.excelcompare.service;
 
 import com.excelcompare.dto.ComparisonResult;
 import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.metrics.PipelineMetrics;
+import com.excelcompare.model.DocumentField;
 import com.excelcompare.model.DocumentMetadata;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.events.Event;
+import com.itextpdf.kernel.events.IEventHandler;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
 
 @Service
 public class ReportService {
 
-    public byte[] generateCsvReport(ComparisonResult result) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        try (OutputStreamWriter writer = new OutputStreamWriter(outputStream);
-             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
-
-            // Write summary statistics
-            csvPrinter.printRecord("COMPARISON SUMMARY");
-            csvPrinter.printRecord("Total Documents in File A", result.getStatistics().getTotalDocumentsA());
-            csvPrinter.printRecord("Total Documents in File B", result.getStatistics().getTotalDocumentsB());
-            csvPrinter.printRecord("Successful Migrations", result.getStatistics().getSuccessfulMigrations());
-            csvPrinter.printRecord("Failed Migrations", result.getStatistics().getFailedMigrations());
-            csvPrinter.printRecord("Metadata Mismatches", result.getStatistics().getMetadataMismatches());
-            csvPrinter.printRecord("Unmatched Documents", result.getStatistics().getUnmatchedDocuments());
-            csvPrinter.printRecord("");
-
-            // Write mismatch type counts
-            csvPrinter.printRecord("MISMATCH TYPES");
-            result.getStatistics().getMismatchTypesCounts().forEach((field, count) -> {
-                try {
-                    csvPrinter.printRecord(field, count);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
-            csvPrinter.printRecord("");
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
 
-            // Write detailed mismatches
-            csvPrinter.printRecord("DETAILED MISMATCHES");
-            csvPrinter.printRecord("Policy No", "Field Name", "Value in File A", "Value in File B");
-            for (DocumentMismatch mismatch : result.getMetadataMismatches()) {
-                csvPrinter.printRecord(
-                        mismatch.getPolicyNo(),
-                        mismatch.getFieldName(),
-                        mismatch.getValueA(),
-                        mismatch.getValueB()
-                );
-            }
-            csvPrinter.printRecord("");
-
-            // Write missing documents
-            csvPrinter.printRecord("DOCUMENTS MISSING IN FILE B (POST-MIGRATION)");
-            csvPrinter.printRecord("Policy No", "Document Name", "Claim No", "Status");
-            for (DocumentMetadata doc : result.getMissingInB()) {
-                csvPrinter.printRecord(
-                        doc.getPolicyNo(),
-                        doc.getDocumentName(),
-                        doc.getClaimNo(),
-                        doc.getStatus()
-                );
-            }
-            csvPrinter.printRecord("");
-
-            csvPrinter.printRecord("DOCUMENTS MISSING IN FILE A (PRE-MIGRATION)");
-            csvPrinter.printRecord("Policy No", "Document Name", "Claim No", "Status");
-            for (DocumentMetadata doc : result.getMissingInA()) {
-                csvPrinter.printRecord(
-                        doc.getPolicyNo(),
-                        doc.getDocumentName(),
-                        doc.getClaimNo(),
-                        doc.getStatus()
-                );
-            }
+    // Rows of a PDF detail table laid out at once, finished pages are written after every batch
+    private static final int PDF_FLUSH_ROWS = 500;
+
+    private static final DeviceRgb MISMATCH_COLOR = new DeviceRgb(255, 255, 204);
+
+    // Same headers as the upload format, so a document sheet of the XLSX report can be compared again
+    private static final String[] DOCUMENT_HEADERS = {
+            "Policy no", "Document location", "Folder hierarchy", "Document name", "Claim no",
+            "Claimant", "Date of loss", "Adjustor name", "Document type", "Security type",
+            "Status", "Draft", "Migration"
+    };
+
+    @Autowired
+    private PipelineMetrics metrics = PipelineMetrics.NONE;
+
+    // Rows of a sheet kept in memory while writing XLSX, older rows are flushed to a temporary file
+    @Value("${report.xlsx.row-access-window:100}")
+    private int xlsxRowAccessWindow = 100;
+
+    // Rows per sheet including the header, a longer list continues on another sheet
+    @Value("${report.xlsx.max-rows-per-sheet:1048576}")
+    private int xlsxMaxRowsPerSheet = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    // Detail rows not written within this time are left out of a PDF report, the summary is always complete
+    @Value("${report.pdf.time-budget-seconds:600}")
+    private long pdfTimeBudgetSeconds = 600;
+
+    /**
+     * Writes the summary report to the stream as UTF-8 CSV. The stream is flushed but left
+     * open for the caller to close.
+     */
+    public void writeCsvReport(ComparisonResult result, OutputStream outputStream) throws IOException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            printCsvReport(result, outputStream);
+        } finally {
+            metrics.stopReport(sample, "csv");
+        }
+    }
 
-            csvPrinter.flush();
+    private void printCsvReport(ComparisonResult result, OutputStream outputStream) throws IOException {
+        CSVPrinter csvPrinter = new CSVPrinter(newWriter(outputStream), CSVFormat.DEFAULT);
+
+        // Write summary statistics
+        csvPrinter.printRecord("COMPARISON SUMMARY");
+        csvPrinter.printRecord("Total Documents in File A", result.getStatistics().getTotalDocumentsA());
+        csvPrinter.printRecord("Total Documents in File B", result.getStatistics().getTotalDocumentsB());
+        csvPrinter.printRecord("Successful Migrations", result.getStatistics().getSuccessfulMigrations());
+        csvPrinter.printRecord("Failed Migrations", result.getStatistics().getFailedMigrations());
+        csvPrinter.printRecord("Metadata Mismatches", result.getStatistics().getMetadataMismatches());
+        csvPrinter.printRecord("Unmatched Documents", result.getStatistics().getUnmatchedDocuments());
+        csvPrinter.printRecord("Duplicate Groups", result.getStatistics().getDuplicateGroups());
+        csvPrinter.printRecord("");
+
+        // Write mismatch type counts
+        csvPrinter.printRecord("MISMATCH TYPES");
+        for (Map.Entry<String, Integer> entry : result.getStatistics().getMismatchTypesCounts().entrySet()) {
+            csvPrinter.printRecord(entry.getKey(), entry.getValue());
+        }
+        csvPrinter.printRecord("");
+
+        // Write detailed mismatches
+        csvPrinter.printRecord("DETAILED MISMATCHES");
+        csvPrinter.printRecord("Policy No", "Field Name", "Value in File A", "Value in File B");
+        for (DocumentMismatch mismatch : result.getMetadataMismatches()) {
+            csvPrinter.printRecord(
+                    mismatch.getPolicyNo(),
+                    mismatch.getFieldName(),
+                    mismatch.getValueA(),
+                    mismatch.getValueB()
+            );
+        }
+        csvPrinter.printRecord("");
+
+        // Write missing documents
+        csvPrinter.printRecord("DOCUMENTS MISSING IN FILE B (POST-MIGRATION)");
+        csvPrinter.printRecord("Policy No", "Document Name", "Claim No", "Status");
+        for (DocumentMetadata doc : result.getMissingInB()) {
+            csvPrinter.printRecord(
+                    doc.getPolicyNo(),
+                    doc.getDocumentName(),
+                    doc.getClaimNo(),
+                    doc.getStatus()
+            );
+        }
+        csvPrinter.printRecord("");
+
+        csvPrinter.printRecord("DOCUMENTS MISSING IN FILE A (PRE-MIGRATION)");
+        csvPrinter.printRecord("Policy No", "Document Name", "Claim No", "Status");
+        for (DocumentMetadata doc : result.getMissingInA()) {
+            csvPrinter.printRecord(
+                    doc.getPolicyNo(),
+                    doc.getDocumentName(),
+                    doc.getClaimNo(),
+                    doc.getStatus()
+            );
         }
 
-        return outputStream.toByteArray();
+        csvPrinter.flush();
     }
 
-    public byte[] generateDetailedCsvReport(List<DocumentMismatch> mismatches) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        try (OutputStreamWriter writer = new OutputStreamWriter(outputStream);
-             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
+    /**
+     * Writes one UTF-8 CSV line per mismatch. The stream is flushed but left open for the
+     * caller to close.
+     */
+    public void writeDetailedCsvReport(List<DocumentMismatch> mismatches, OutputStream outputStream) throws IOException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            printDetailedCsvReport(mismatches, outputStream);
+        } finally {
+            metrics.stopReport(sample, "detailed-csv");
+        }
+    }
 
-            // Write header
+    private void printDetailedCsvReport(List<DocumentMismatch> mismatches, OutputStream outputStream) throws IOException {
+        CSVPrinter csvPrinter = new CSVPrinter(newWriter(outputStream), CSVFormat.DEFAULT);
+
+        // Write header
+        csvPrinter.printRecord(
+                "Policy No", "Field Name", "Value Before Migration", "Value After Migration",
+                "Document Name", "Claim No", "Document Type", "Migration Status"
+        );
+
+        // Write mismatch details
+        for (DocumentMismatch mismatch : mismatches) {
             csvPrinter.printRecord(
-                    "Policy No", "Field Name", "Value Before Migration", "Value After Migration",
-                    "Document Name", "Claim No", "Document Type", "Migration Status"
+                    mismatch.getPolicyNo(),
+                    mismatch.getFieldName(),
+                    mismatch.getValueA(),
+                    mismatch.getValueB(),
+                    mismatch.getDocumentA().getDocumentName(),
+                    mismatch.getDocumentA().getClaimNo(),
+                    mismatch.getDocumentA().getDocumentType(),
+                    mismatch.getDocumentB().getMigration()
             );
+        }
+
+        csvPrinter.flush();
+    }
+
+    /**
+     * Writes the report as an XLSX workbook with a summary sheet and a sheet for the mismatches,
+     * the documents missing on either side and the matched documents. Rows are streamed through
+     * a bounded window, so memory use does not grow with the size of the result; a list longer
+     * than a sheet continues on sheets named like "Mismatches (2)". The stream is left open for
+     * the caller to close.
+     */
+    public void writeXlsxReport(ComparisonResult result, OutputStream outputStream) throws IOException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            printXlsxReport(result, outputStream);
+        } finally {
+            metrics.stopReport(sample, "xlsx");
+        }
+    }
+
+    private void printXlsxReport(ComparisonResult result, OutputStream outputStream) throws IOException {
+        // Shared strings would keep every distinct value in memory, so strings are written inline
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, xlsxRowAccessWindow, true, false);
+        try {
+            XlsxStyles styles = new XlsxStyles(workbook);
+            writeSummarySheet(workbook, styles, result);
+
+            SheetWriter mismatches = new SheetWriter(workbook, styles, "Mismatches",
+                    "Policy No", "Field Name", "Value Before Migration", "Value After Migration",
+                    "Document Name", "Claim No", "Document Type", "Migration Status");
+            for (DocumentMismatch mismatch : result.getMetadataMismatches()) {
+                Row row = mismatches.nextRow();
+                mismatches.setCell(row, 0, mismatch.getPolicyNo(), null);
+                mismatches.setCell(row, 1, mismatch.getFieldName(), null);
+                mismatches.setCell(row, 2, mismatch.getValueA(), styles.mismatch);
+                mismatches.setCell(row, 3, mismatch.getValueB(), styles.mismatch);
+                mismatches.setCell(row, 4, mismatch.getDocumentA().getDocumentName(), null);
+                mismatches.setCell(row, 5, mismatch.getDocumentA().getClaimNo(), null);
+                mismatches.setCell(row, 6, mismatch.getDocumentA().getDocumentType(), null);
+                mismatches.setCell(row, 7, mismatch.getDocumentB().getMigration(), null);
+            }
+
+            writeDocumentSheet(workbook, styles, "Missing in B", result.getMissingInB());
+            writeDocumentSheet(workbook, styles, "Missing in A", result.getMissingInA());
+            writeDocumentSheet(workbook, styles, "Matched", result.getMatchedDocuments());
+
+            workbook.write(outputStream);
+            outputStream.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void writeSummarySheet(SXSSFWorkbook workbook, XlsxStyles styles, ComparisonResult result) {
+        ComparisonResult.ComparisonStatistics statistics = result.getStatistics();
+        SheetWriter summary = new SheetWriter(workbook, styles, "Summary", "Comparison Summary", "Value");
+        summary.addCount("Total Documents in File A", statistics.getTotalDocumentsA());
+        summary.addCount("Total Documents in File B", statistics.getTotalDocumentsB());
+        summary.addCount("Successful Migrations", statistics.getSuccessfulMigrations());
+        summary.addCount("Failed Migrations", statistics.getFailedMigrations());
+        summary.addCount("Metadata Mismatches", statistics.getMetadataMismatches());
+        summary.addCount("Unmatched Documents", statistics.getUnmatchedDocuments());
+        summary.addCount("Duplicate Groups", statistics.getDuplicateGroups());
+
+        summary.nextRow();
+        summary.addHeader("Mismatch Type", "Count");
+        for (Map.Entry<String, Integer> entry : statistics.getMismatchTypesCounts().entrySet()) {
+            summary.addCount(entry.getKey(), entry.getValue());
+        }
+        summary.sheet.setColumnWidth(0, 32 * 256);
+    }
+
+    private void writeDocumentSheet(SXSSFWorkbook workbook, XlsxStyles styles, String name,
+                                    List<DocumentMetadata> documents) {
+        SheetWriter sheet = new SheetWriter(workbook, styles, name, DOCUMENT_HEADERS);
+        DocumentField[] fields = DocumentField.values();
+        for (DocumentMetadata document : documents) {
+            Row row = sheet.nextRow();
+            for (int i = 0; i < fields.length; i++) {
+                sheet.setCell(row, i, fields[i].get(document), null);
+            }
+        }
+    }
+
+    /**
+     * Writes the reconciliation report as a PDF: the summary statistics, the mismatch types and
+     * paged tables of the mismatches and of the documents missing on either side. Table rows are
+     * laid out in batches and every finished page is written to the stream at once, so memory use
+     * does not grow with the size of the result. Once the time budget is spent the remaining
+     * detail rows are left out and the report says how many. The stream is left open for the
+     * caller to close.
+     *
+     * @param progress receives the share of detail rows written and may cancel the report
+     * @return {@code false} if detail rows were left out
+     * @throws CancellationException if the listener cancelled the report
+     */
+    public boolean writePdfReport(String comparisonId, ComparisonResult result, OutputStream outputStream,
+                                  ProgressListener progress) throws IOException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            return printPdfReport(comparisonId, result, outputStream, progress);
+        } finally {
+            metrics.stopReport(sample, "pdf");
+        }
+    }
+
+    private boolean printPdfReport(String comparisonId, ComparisonResult result, OutputStream outputStream,
+                                   ProgressListener progress) throws IOException {
+        PdfWriter writer = new PdfWriter(outputStream, new WriterProperties().setFullCompressionMode(true));
+        writer.setCloseStream(false);
+        PdfDocument pdf = new PdfDocument(writer);
+        pdf.getDocumentInfo().setTitle("Reconciliation Report " + comparisonId);
+        PdfFont regular = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        PdfFont bold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        pdf.addEventHandler(PdfDocumentEvent.END_PAGE, new PageFooter("Comparison " + comparisonId, regular));
+
+        PdfReport report = new PdfReport(new Document(pdf, PageSize.A4.rotate()), bold, progress,
+                result.getMetadataMismatches().size() + result.getMissingInB().size() + result.getMissingInA().size());
+        try {
+            Document document = report.document;
+            document.setFont(regular).setFontSize(9);
+            document.add(new Paragraph("Reconciliation Report").setFont(bold).setFontSize(18));
+            document.add(new Paragraph("Comparison " + comparisonId + ", generated "
+                    + Instant.now().truncatedTo(ChronoUnit.SECONDS)));
 
-            // Write mismatch details
-            for (DocumentMismatch mismatch : mismatches) {
-                csvPrinter.printRecord(
-                        mismatch.getPolicyNo(),
-                        mismatch.getFieldName(),
-                        mismatch.getValueA(),
-                        mismatch.getValueB(),
-                        mismatch.getDocumentA().getDocumentName(),
-                        mismatch.getDocumentA().getClaimNo(),
-                        mismatch.getDocumentA().getDocumentType(),
-                        mismatch.getDocumentB().getMigration()
-                );
+            ComparisonResult.ComparisonStatistics statistics = result.getStatistics();
+            document.add(new Paragraph("Summary Statistics").setFont(bold).setFontSize(13));
+            Table summary = new Table(UnitValue.createPercentArray(new float[]{3, 1})).setWidth(UnitValue.createPercentValue(50));
+            addSummaryRow(summary, "Total Documents in File A", statistics.getTotalDocumentsA());
+            addSummaryRow(summary, "Total Documents in File B", statistics.getTotalDocumentsB());
+            addSummaryRow(summary, "Successful Migrations", statistics.getSuccessfulMigrations());
+            addSummaryRow(summary, "Failed Migrations", statistics.getFailedMigrations());
+            addSummaryRow(summary, "Metadata Mismatches", statistics.getMetadataMismatches());
+            addSummaryRow(summary, "Unmatched Documents", statistics.getUnmatchedDocuments());
+            addSummaryRow(summary, "Duplicate Groups", statistics.getDuplicateGroups());
+            document.add(summary);
+
+            if (!statistics.getMismatchTypesCounts().isEmpty()) {
+                document.add(new Paragraph("Mismatch Types").setFont(bold).setFontSize(13));
+                Table types = new Table(UnitValue.createPercentArray(new float[]{3, 1})).setWidth(UnitValue.createPercentValue(50));
+                types.addHeaderCell(new Paragraph("Field Name").setFont(bold));
+                types.addHeaderCell(new Paragraph("Count").setFont(bold));
+                for (Map.Entry<String, Integer> entry : statistics.getMismatchTypesCounts().entrySet()) {
+                    addSummaryRow(types, entry.getKey(), entry.getValue());
+                }
+                document.add(types);
             }
 
-            csvPrinter.flush();
+            report.addTable("Metadata Mismatches", result.getMetadataMismatches(),
+                    new String[]{"Policy No", "Field Name", "Value Before Migration", "Value After Migration",
+                            "Document Name", "Claim No"},
+                    new float[]{2, 2, 3, 3, 4, 2},
+                    mismatch -> new String[]{mismatch.getPolicyNo(), mismatch.getFieldName(), mismatch.getValueA(),
+                            mismatch.getValueB(), mismatch.getDocumentA().getDocumentName(),
+                            mismatch.getDocumentA().getClaimNo()},
+                    2, 3);
+            report.addTable("Documents Missing in File B (Post-Migration)", result.getMissingInB(),
+                    MISSING_DOCUMENT_HEADERS, MISSING_DOCUMENT_WIDTHS, ReportService::missingDocumentRow);
+            report.addTable("Documents Missing in File A (Pre-Migration)", result.getMissingInA(),
+                    MISSING_DOCUMENT_HEADERS, MISSING_DOCUMENT_WIDTHS, ReportService::missingDocumentRow);
+
+            document.add(new Paragraph("Reviewed by: ______________________________"
+                    + "        Date: ________________").setMarginTop(24));
+        } finally {
+            report.document.close();
         }
+        return report.omittedRows == 0;
+    }
+
+    private static final String[] MISSING_DOCUMENT_HEADERS = {
+            "Policy No", "Document Name", "Claim No", "Document Type", "Status"
+    };
+
+    private static final float[] MISSING_DOCUMENT_WIDTHS = {2, 5, 2, 2, 2};
+
+    private static String[] missingDocumentRow(DocumentMetadata doc) {
+        return new String[]{doc.getPolicyNo(), doc.getDocumentName(), doc.getClaimNo(),
+                doc.getDocumentType(), doc.getStatus()};
+    }
 
-        return outputStream.toByteArray();
+    private static void addSummaryRow(Table table, String label, long value) {
+        table.addCell(label);
+        table.addCell(new Paragraph(String.valueOf(value)).setTextAlignment(TextAlignment.RIGHT));
+    }
+
+    private Writer newWriter(OutputStream outputStream) {
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
     }
 
     public String generateHtmlSummary(ComparisonResult result) {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            return buildHtmlSummary(result);
+        } finally {
+            metrics.stopReport(sample, "html");
+        }
+    }
+
+    private String buildHtmlSummary(ComparisonResult result) {
         StringBuilder html = new StringBuilder();
         
         html.append("<html><head><title>Excel Comparison Report</title>");
@@ -144,6 +420,8 @@ public class ReportService {
             .append(result.getStatistics().getMetadataMismatches()).append("</p>");
         html.append("<p><strong>Unmatched Documents:</strong> ")
             .append(result.getStatistics().getUnmatchedDocuments()).append("</p>");
+        html.append("<p><strong>Duplicate Groups:</strong> ")
+            .append(result.getStatistics().getDuplicateGroups()).append("</p>");
         html.append("</div>");
         
         // Mismatch types
@@ -161,4 +439,197 @@ public class ReportService {
         
         return html.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Cell styles of a workbook, created once since a workbook holds a limited number of styles.
+     */
+    private static final class XlsxStyles {
+        private final CellStyle header;
+        private final CellStyle mismatch;
+
+        XlsxStyles(SXSSFWorkbook workbook) {
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            header = workbook.createCellStyle();
+            header.setFont(bold);
+            header.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            header.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            mismatch = workbook.createCellStyle();
+            mismatch.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
+            mismatch.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        }
+    }
+
+    /**
+     * Appends rows to a sheet and continues on a new sheet with the same header once the sheet
+     * holds the maximum number of rows.
+     */
+    private final class SheetWriter {
+        private final SXSSFWorkbook workbook;
+        private final XlsxStyles styles;
+        private final String name;
+        private final String[] headers;
+        private Sheet sheet;
+        private int sheets;
+        private int rows;
+
+        SheetWriter(SXSSFWorkbook workbook, XlsxStyles styles, String name, String... headers) {
+            this.workbook = workbook;
+            this.styles = styles;
+            this.name = name;
+            this.headers = headers;
+            startSheet();
+        }
+
+        Row nextRow() {
+            if (rows >= xlsxMaxRowsPerSheet) {
+                startSheet();
+            }
+            return sheet.createRow(rows++);
+        }
+
+        void addHeader(String... values) {
+            Row row = nextRow();
+            for (int i = 0; i < values.length; i++) {
+                setCell(row, i, values[i], styles.header);
+            }
+        }
+
+        void addCount(String label, long count) {
+            Row row = nextRow();
+            setCell(row, 0, label, null);
+            row.createCell(1).setCellValue(count);
+        }
+
+        void setCell(Row row, int column, String value, CellStyle style) {
+            if (value == null && style == null) {
+                return;
+            }
+            Cell cell = row.createCell(column);
+            if (value != null) {
+                // Longer text is rejected by Excel
+                int maxLength = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+                cell.setCellValue(value.length() > maxLength ? value.substring(0, maxLength) : value);
+            }
+            if (style != null) {
+                cell.setCellStyle(style);
+            }
+        }
+
+        private void startSheet() {
+            sheets++;
+            sheet = workbook.createSheet(sheets == 1 ? name : name + " (" + sheets + ")");
+            rows = 0;
+            addHeader(headers);
+            sheet.createFreezePane(0, 1);
+        }
+    }
+
+    /**
+     * Writes the detail tables of one PDF report within its time budget.
+     */
+    private final class PdfReport {
+        private final Document document;
+        private final PdfFont bold;
+        private final ProgressListener progress;
+        private final long totalRows;
+        private final long deadline = System.nanoTime() + pdfTimeBudgetSeconds * 1_000_000_000L;
+        private long writtenRows;
+        private long omittedRows;
+
+        PdfReport(Document document, PdfFont bold, ProgressListener progress, long totalRows) {
+            this.document = document;
+            this.bold = bold;
+            this.progress = progress;
+            this.totalRows = totalRows;
+        }
+
+        /**
+         * @param highlighted columns shaded like the mismatched cells of the XLSX report
+         */
+        <T> void addTable(String title, List<T> rows, String[] headers, float[] widths,
+                          Function<T, String[]> values, int... highlighted) {
+            document.add(new Paragraph(title).setFont(bold).setFontSize(13));
+            if (rows.isEmpty()) {
+                document.add(new Paragraph("None"));
+                return;
+            }
+
+            boolean[] shaded = new boolean[headers.length];
+            for (int column : highlighted) {
+                shaded[column] = true;
+            }
+            int written = 0;
+            while (written < rows.size()) {
+                if (omittedRows > 0 || System.nanoTime() - deadline > 0) {
+                    break;
+                }
+
+                // Every batch is a table of its own, the document lays it out and writes its finished
+                // pages at once. iText's large tables keep state for every row, so they are not used.
+                Table table = new Table(UnitValue.createPercentArray(widths)).useAllAvailableWidth();
+                for (String header : headers) {
+                    table.addHeaderCell(new com.itextpdf.layout.element.Cell()
+                            .add(new Paragraph(header).setFont(bold))
+                            .setBackgroundColor(ColorConstants.LIGHT_GRAY));
+                }
+                // The header repeats on every page a batch continues on, not where a batch starts
+                table.setSkipFirstHeader(written > 0);
+
+                int end = Math.min(rows.size(), written + PDF_FLUSH_ROWS);
+                writtenRows += end - written;
+                for (; written < end; written++) {
+                    String[] row = values.apply(rows.get(written));
+                    for (int column = 0; column < row.length; column++) {
+                        com.itextpdf.layout.element.Cell cell = new com.itextpdf.layout.element.Cell()
+                                .add(new Paragraph(row[column] == null ? "" : row[column]));
+                        if (shaded[column]) {
+                            cell.setBackgroundColor(MISMATCH_COLOR);
+                        }
+                        table.addCell(cell);
+                    }
+                }
+                document.add(table);
+
+                progress.onProgress(Math.min(1.0, (double) writtenRows / totalRows));
+                if (progress.isCancelled()) {
+                    throw new CancellationException();
+                }
+            }
+
+            if (written < rows.size()) {
+                omittedRows += rows.size() - written;
+                document.add(new Paragraph((rows.size() - written) + " of " + rows.size()
+                        + " rows are not listed because the report ran out of time;"
+                        + " the XLSX export lists every row.").setFont(bold));
+            }
+        }
+    }
+
+    /**
+     * Prints the comparison and the page number at the bottom of every page as it is finished.
+     */
+    private static final class PageFooter implements IEventHandler {
+        private final String text;
+        // A canvas without a font would add a new font to the document on every page
+        private final PdfFont font;
+        // Pages end in order, counting them avoids looking every page up in the page tree
+        private int pages;
+
+        PageFooter(String text, PdfFont font) {
+            this.text = text;
+            this.font = font;
+        }
+
+        @Override
+        public void handleEvent(Event event) {
+            PdfPage page = ((PdfDocumentEvent) event).getPage();
+            Rectangle size = page.getPageSize();
+            try (Canvas canvas = new Canvas(new PdfCanvas(page), size)) {
+                canvas.setFont(font).setFontSize(8);
+                canvas.showTextAligned(text + " - Page " + ++pages, size.getWidth() / 2, 20, TextAlignment.CENTER);
+            }
+        }
+    }
+}
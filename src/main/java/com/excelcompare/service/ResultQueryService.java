@@ -0,0 +1,284 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.dto.ResultFilter;
+import com.excelcompare.dto.ResultPage;
+import com.excelcompare.dto.ResultSection;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.store.ResultColumns;
+import com.excelcompare.store.ResultIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Serves stored comparison results one page at a time.
+ * <p>
+ * Stored results never change, so a cursor is simply the position in a filtered and sorted view
+ * of one result list. Filters are answered from the {@link ResultIndex} of the result; sorted
+ * views are cached, so walking through the pages of a query sorts it once. Sort keys are read
+ * through {@link ResultColumns} where the list supports it, so sorting creates no rows.
+ */
+@Service
+public class ResultQueryService {
+
+    private static final Map<String, Function<DocumentMismatch, Object>> MISMATCH_PROPERTIES = new LinkedHashMap<>();
+    private static final Map<String, Function<DocumentMetadata, Object>> DOCUMENT_PROPERTIES = new LinkedHashMap<>();
+    private static final Set<String> UNSORTABLE_PROPERTIES = Set.of("documentA", "documentB");
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    static {
+        MISMATCH_PROPERTIES.put("policyNo", DocumentMismatch::getPolicyNo);
+        MISMATCH_PROPERTIES.put("fieldName", DocumentMismatch::getFieldName);
+        MISMATCH_PROPERTIES.put("valueA", DocumentMismatch::getValueA);
+        MISMATCH_PROPERTIES.put("valueB", DocumentMismatch::getValueB);
+        MISMATCH_PROPERTIES.put("documentA", DocumentMismatch::getDocumentA);
+        MISMATCH_PROPERTIES.put("documentB", DocumentMismatch::getDocumentB);
+        for (DocumentField field : DocumentField.values()) {
+            DOCUMENT_PROPERTIES.put(field.getFieldName(), field::get);
+        }
+    }
+
+    @Value("${comparison.query.default-page-size:100}")
+    private int defaultPageSize = 100;
+
+    @Value("${comparison.query.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
+    // Number of filtered and sorted views kept for cursors to walk through
+    @Value("${comparison.query.cached-views:32}")
+    private int cachedViews = 32;
+
+    private final Map<String, int[]> views = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+            return size() > cachedViews;
+        }
+    };
+
+    public ResultPage query(String comparisonId, ResultIndex index, ResultSection section, ResultFilter filter,
+                            String sort, String fields, String cursor, Integer size) {
+        int[] selected = index.select(section, filter);
+        String viewKey = comparisonId + "/" + section + "/" + filterKey(filter);
+        if (section == ResultSection.MISMATCHES) {
+            return page(viewKey, index.getResult().getMetadataMismatches(), selected,
+                    MISMATCH_PROPERTIES, sort, fields, cursor, size);
+        }
+        return page(viewKey, ResultIndex.documents(index.getResult(), section), selected,
+                DOCUMENT_PROPERTIES, sort, fields, cursor, size);
+    }
+
+    private <T> ResultPage page(String viewKey, List<T> rows, int[] selected,
+                                Map<String, Function<T, Object>> properties,
+                                String sort, String fields, String cursor, Integer size) {
+        boolean descending = sort != null && sort.startsWith("-");
+        String sortProperty = isBlank(sort) ? null : (descending ? sort.substring(1) : sort).trim();
+        IntFunction<String> sortKey = null;
+        if (sortProperty != null) {
+            Function<T, Object> property = properties.get(sortProperty);
+            if (property == null || UNSORTABLE_PROPERTIES.contains(sortProperty)) {
+                throw new IllegalArgumentException("Cannot sort by: " + sortProperty);
+            }
+            sortKey = sortKey(rows, sortProperty, property);
+        }
+        List<Map.Entry<String, Function<T, Object>>> projection = projection(properties, fields);
+
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        pageSize = Math.min(pageSize, maxPageSize);
+
+        viewKey = viewKey + "/" + (sortProperty == null ? "" : (descending ? "-" : "") + sortProperty);
+        String queryTag = Integer.toHexString(viewKey.hashCode());
+        int[] view = view(viewKey, rows.size(), selected, sortKey, descending);
+        int total = view == null ? rows.size() : view.length;
+
+        int offset = decodeCursor(cursor, queryTag);
+        int end = Math.min(total, offset + pageSize);
+        List<Object> items = new ArrayList<>(Math.max(0, end - offset));
+        for (int i = offset; i < end; i++) {
+            T row = rows.get(view == null ? i : view[i]);
+            items.add(projection == null ? row : project(row, projection));
+        }
+
+        String nextCursor = end < total ? encodeCursor(end, queryTag) : null;
+        return new ResultPage(items, total, pageSize, nextCursor);
+    }
+
+    /**
+     * @return the row indices of the filtered and sorted view, or null when the view is the list itself
+     */
+    private int[] view(String viewKey, int rowCount, int[] selected, IntFunction<String> sortKey, boolean descending) {
+        if (sortKey == null) {
+            return selected;
+        }
+        synchronized (views) {
+            int[] view = views.get(viewKey);
+            if (view != null) {
+                return view;
+            }
+        }
+
+        int count = selected == null ? rowCount : selected.length;
+        int[] view = new int[count];
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            view[i] = i;
+            keys[i] = sortKey.apply(selected == null ? i : selected[i]);
+        }
+        // The sort is stable, so ties keep the stored order, which keeps the view stable between requests
+        sort(view, new int[count], keys, descending ? -1 : 1, 0, count);
+        if (selected != null) {
+            for (int i = 0; i < count; i++) {
+                view[i] = selected[view[i]];
+            }
+        }
+        synchronized (views) {
+            views.put(viewKey, view);
+        }
+        return view;
+    }
+
+    /**
+     * @return the sort key of the row at every index, read without creating the row where the
+     * list implements {@link ResultColumns}
+     */
+    private static <T> IntFunction<String> sortKey(List<T> rows, String sortProperty, Function<T, Object> property) {
+        if (rows instanceof ResultColumns.Mismatches) {
+            ResultColumns.Mismatches columns = (ResultColumns.Mismatches) rows;
+            switch (sortProperty) {
+                case "policyNo":
+                    return columns::policyNo;
+                case "fieldName":
+                    return i -> columns.field(i).getFieldName();
+                case "valueA":
+                    return columns::valueA;
+                case "valueB":
+                    return columns::valueB;
+                default:
+                    break;
+            }
+        } else if (rows instanceof ResultColumns.Documents) {
+            ResultColumns.Documents columns = (ResultColumns.Documents) rows;
+            DocumentField field = DocumentField.fromFieldName(sortProperty);
+            return i -> columns.value(i, field);
+        }
+        return i -> (String) property.apply(rows.get(i));
+    }
+
+    /**
+     * Stable merge sort of the indices in {@code order} by their keys, {@code null} first when
+     * ascending and last when descending.
+     *
+     * @param direction 1 for ascending, -1 for descending
+     */
+    private static void sort(int[] order, int[] buffer, String[] keys, int direction, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int index = order[i];
+                int j = i - 1;
+                while (j >= from && compare(keys[order[j]], keys[index]) * direction > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = index;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(order, buffer, keys, direction, from, middle);
+        sort(order, buffer, keys, direction, middle, to);
+        if (compare(keys[order[middle - 1]], keys[order[middle]]) * direction <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < middle && compare(keys[buffer[left]], keys[buffer[right]]) * direction <= 0) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static int compare(String key, String other) {
+        if (key == null || other == null) {
+            return key == other ? 0 : key == null ? -1 : 1;
+        }
+        return key.compareTo(other);
+    }
+
+    private static <T> List<Map.Entry<String, Function<T, Object>>> projection(
+            Map<String, Function<T, Object>> properties, String fields) {
+        if (isBlank(fields)) {
+            return null;
+        }
+        List<Map.Entry<String, Function<T, Object>>> projection = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            Function<T, Object> property = properties.get(name);
+            if (property == null) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            projection.add(Map.entry(name, property));
+        }
+        return projection;
+    }
+
+    private static <T> Map<String, Object> project(T row, List<Map.Entry<String, Function<T, Object>>> projection) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        for (Map.Entry<String, Function<T, Object>> property : projection) {
+            item.put(property.getKey(), property.getValue().apply(row));
+        }
+        return item;
+    }
+
+    private static String encodeCursor(int offset, String queryTag) {
+        String cursor = offset + ":" + queryTag;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeCursor(String cursor, String queryTag) {
+        if (isBlank(cursor)) {
+            return 0;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length == 2 && parts[1].equals(queryTag)) {
+                int offset = Integer.parseInt(parts[0]);
+                if (offset >= 0) {
+                    return offset;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException("Invalid cursor for this query");
+    }
+
+    private static String filterKey(ResultFilter filter) {
+        if (filter == null) {
+            return "";
+        }
+        // The policy prefix is matched case-sensitively, the other filters are not
+        return normalise(filter.getFieldName()) + "|" + normalise(filter.getMigrationStatus()) + "|"
+                + normalise(filter.getDocumentType()) + "|" + (isBlank(filter.getPolicyPrefix()) ? "" : filter.getPolicyPrefix().trim());
+    }
+
+    private static String normalise(String value) {
+        return isBlank(value) ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
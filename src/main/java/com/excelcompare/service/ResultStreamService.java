@@ -0,0 +1,192 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.dto.MismatchTable;
+import com.excelcompare.dto.MismatchTable.MismatchReference;
+import com.excelcompare.metrics.PipelineMetrics;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes a stored result to a response element by element, so memory stays constant however
+ * large the result is and the client can start on the statistics before the lists arrive.
+ * <p>
+ * The JSON form has the shape of a {@code NormalizedComparisonResult} with the statistics first.
+ * The NDJSON form is one {@code {"type": ..., "data": ...}} object per line: the statistics, the
+ * field names mismatches refer to, then every element of every list. Each pair of mismatching
+ * documents is written as two {@code documents} lines just before its first mismatch, with the
+ * ids mismatches refer to it by.
+ */
+@Service
+public class ResultStreamService {
+
+    // Elements written between explicit flushes, so chunks go out while the result is written
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private static final List<String> FIELD_NAMES = MismatchTable.of(List.of()).getFields();
+
+    @Autowired
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private PipelineMetrics metrics = PipelineMetrics.NONE;
+
+    /**
+     * Writes the result as one JSON document. The stream is flushed but left open for the caller to close.
+     */
+    public void writeJson(ComparisonResult result, OutputStream outputStream) throws IOException {
+        Timer.Sample sample = metrics.startTimer();
+        try (JsonGenerator generator = createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeObjectField("statistics", result.getStatistics());
+            generator.flush();
+
+            writeArray(generator, "missingInB", result.getMissingInB());
+            writeArray(generator, "missingInA", result.getMissingInA());
+
+            List<DocumentMismatch> mismatches = nonNull(result.getMetadataMismatches());
+            generator.writeObjectFieldStart("metadataMismatches");
+            generator.writeObjectField("fields", FIELD_NAMES);
+            // One pass for the document table and one for the references into it
+            generator.writeArrayFieldStart("documents");
+            DocumentMismatch last = null;
+            for (int i = 0; i < mismatches.size(); i++) {
+                DocumentMismatch mismatch = mismatches.get(i);
+                if (!MismatchTable.samePair(last, mismatch)) {
+                    generator.writeObject(mismatch.getDocumentA());
+                    generator.writeObject(mismatch.getDocumentB());
+                }
+                last = mismatch;
+                flushPeriodically(generator, i);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("mismatches");
+            last = null;
+            int documents = 0;
+            for (int i = 0; i < mismatches.size(); i++) {
+                DocumentMismatch mismatch = mismatches.get(i);
+                if (!MismatchTable.samePair(last, mismatch)) {
+                    documents += 2;
+                }
+                last = mismatch;
+                generator.writeObject(reference(mismatch, documents));
+                flushPeriodically(generator, i);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+
+            writeArray(generator, "matchedDocuments", result.getMatchedDocuments());
+            writeArray(generator, "duplicateGroups", result.getDuplicateGroups());
+            generator.writeEndObject();
+        } finally {
+            metrics.stopSerialization(sample, "json-stream");
+        }
+    }
+
+    /**
+     * Writes the result as newline-delimited JSON. The stream is flushed but left open for the caller to close.
+     */
+    public void writeNdjson(ComparisonResult result, OutputStream outputStream) throws IOException {
+        Timer.Sample sample = metrics.startTimer();
+        try (JsonGenerator generator = createGenerator(outputStream)) {
+            // Lines end with a newline instead of the space written between root values
+            generator.setRootValueSeparator(null);
+            writeLine(generator, "statistics", result.getStatistics());
+            writeLine(generator, "fields", FIELD_NAMES);
+            generator.flush();
+
+            writeLines(generator, "missingInB", result.getMissingInB());
+            writeLines(generator, "missingInA", result.getMissingInA());
+
+            List<DocumentMismatch> mismatches = nonNull(result.getMetadataMismatches());
+            DocumentMismatch last = null;
+            int documents = 0;
+            for (int i = 0; i < mismatches.size(); i++) {
+                DocumentMismatch mismatch = mismatches.get(i);
+                if (!MismatchTable.samePair(last, mismatch)) {
+                    writeDocumentLine(generator, documents++, mismatch.getDocumentA());
+                    writeDocumentLine(generator, documents++, mismatch.getDocumentB());
+                }
+                last = mismatch;
+                writeLine(generator, "metadataMismatches", reference(mismatch, documents));
+                flushPeriodically(generator, i);
+            }
+
+            writeLines(generator, "matchedDocuments", result.getMatchedDocuments());
+            writeLines(generator, "duplicateGroups", result.getDuplicateGroups());
+        } finally {
+            metrics.stopSerialization(sample, "ndjson");
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+        // Closing the generator flushes it, the response stream belongs to the caller
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private void writeArray(JsonGenerator generator, String name, List<?> elements) throws IOException {
+        generator.writeArrayFieldStart(name);
+        List<?> list = nonNull(elements);
+        for (int i = 0; i < list.size(); i++) {
+            generator.writeObject(list.get(i));
+            flushPeriodically(generator, i);
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeLines(JsonGenerator generator, String type, List<?> elements) throws IOException {
+        List<?> list = nonNull(elements);
+        for (int i = 0; i < list.size(); i++) {
+            writeLine(generator, type, list.get(i));
+            flushPeriodically(generator, i);
+        }
+    }
+
+    private void writeLine(JsonGenerator generator, String type, Object data) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", type);
+        generator.writeObjectField("data", data);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeDocumentLine(JsonGenerator generator, int id, DocumentMetadata document) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "documents");
+        generator.writeNumberField("id", id);
+        generator.writeObjectField("data", document);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static void flushPeriodically(JsonGenerator generator, int written) throws IOException {
+        if ((written + 1) % FLUSH_INTERVAL == 0) {
+            generator.flush();
+        }
+    }
+
+    /**
+     * @param documents the number of table entries written so far, the last two being this mismatch's pair
+     */
+    private static MismatchReference reference(DocumentMismatch mismatch, int documents) {
+        return new MismatchReference(DocumentField.fromFieldName(mismatch.getFieldName()).ordinal(),
+                documents - 2, documents - 1);
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+}
@@ -0,0 +1,278 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.model.ValueDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rows of one or more manifests, referenced by position instead of copied, so recording a row
+ * costs two ints. Documents added as objects are kept in a manifest of the list's own.
+ */
+final class RowList {
+
+    private static final Comparator<String> VALUE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    // Runs of rows sharing a policy number that are short enough for an insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final List<ColumnarManifest> sources = new ArrayList<>(2);
+    private ColumnarManifest owned;
+    private int lastSource = -1;
+
+    private int[] rows = new int[16];
+    private int[] sourceIds = new int[16];
+    private int size;
+
+    /**
+     * @return the index of the row in this list
+     */
+    int add(ColumnarManifest source, int row) {
+        if (lastSource < 0 || sources.get(lastSource) != source) {
+            lastSource = sourceId(source);
+        }
+        if (size == rows.length) {
+            ensureCapacity(size + 1);
+        }
+        rows[size] = row;
+        sourceIds[size] = lastSource;
+        return size++;
+    }
+
+    int add(DocumentMetadata document) {
+        if (owned == null) {
+            owned = new ColumnarManifest(16);
+        }
+        owned.add(document);
+        return add(owned, owned.size() - 1);
+    }
+
+    /**
+     * Moves every row of the other list to the end of this one, leaving the other list empty.
+     */
+    void append(RowList other) {
+        if (other.size == 0) {
+            return;
+        }
+        if (size == 0 && owned == null) {
+            sources.clear();
+            sources.addAll(other.sources);
+            owned = other.owned;
+            rows = other.rows;
+            sourceIds = other.sourceIds;
+            size = other.size;
+        } else {
+            int[] sourceMap = new int[other.sources.size()];
+            for (int i = 0; i < sourceMap.length; i++) {
+                sourceMap[i] = sourceId(other.sources.get(i));
+            }
+            ensureCapacity(size + other.size);
+            for (int i = 0; i < other.size; i++) {
+                rows[size + i] = other.rows[i];
+                sourceIds[size + i] = sourceMap[other.sourceIds[i]];
+            }
+            size += other.size;
+        }
+        lastSource = -1;
+        other.sources.clear();
+        other.owned = null;
+        other.lastSource = -1;
+        other.rows = new int[16];
+        other.sourceIds = new int[16];
+        other.size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Grows the list so it holds at least the given number of rows without growing again.
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity > rows.length) {
+            capacity = Math.max(capacity, size + (size >> 1) + 1);
+            rows = Arrays.copyOf(rows, capacity);
+            sourceIds = Arrays.copyOf(sourceIds, capacity);
+        }
+    }
+
+    String value(int index, DocumentField field) {
+        return sources.get(sourceIds[index]).value(rows[index], field);
+    }
+
+    DocumentMetadata toDocument(int index) {
+        return sources.get(sourceIds[index]).toDocument(rows[index]);
+    }
+
+    /**
+     * Orders the rows by policy number and then by every other field in ordinal order, {@code null}
+     * before any other value. Rows are first distributed by the rank of their policy number, so only
+     * rows sharing a policy number are ever compared value by value. Equal rows keep their order.
+     *
+     * @return the index of the row at every position of the sorted order
+     */
+    int[] sortedOrder() {
+        int[][] policyRanks = policyRanks();
+        int rankCount = 0;
+        for (int[] ranks : policyRanks) {
+            for (int rank : ranks) {
+                rankCount = Math.max(rankCount, rank + 1);
+            }
+        }
+
+        int[] starts = new int[rankCount + 1];
+        for (int i = 0; i < size; i++) {
+            starts[policyRank(policyRanks, i) + 1]++;
+        }
+        for (int rank = 0; rank < rankCount; rank++) {
+            starts[rank + 1] += starts[rank];
+        }
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[starts[policyRank(policyRanks, i)]++] = i;
+        }
+
+        // After the loop above every start is the end of its run
+        int[] buffer = null;
+        int from = 0;
+        for (int rank = 0; rank < rankCount; rank++) {
+            int to = starts[rank];
+            if (to - from > 1) {
+                if (to - from <= INSERTION_SORT_THRESHOLD) {
+                    insertionSort(order, from, to);
+                } else {
+                    if (buffer == null) {
+                        buffer = new int[size];
+                    }
+                    mergeSort(order, buffer, from, to);
+                }
+            }
+            from = to;
+        }
+        return order;
+    }
+
+    /**
+     * Rearranges the rows so that row {@code i} becomes the row that was at {@code order[i]}.
+     */
+    void reorder(int[] order) {
+        int[] reorderedRows = new int[Math.max(order.length, 16)];
+        int[] reorderedSources = new int[reorderedRows.length];
+        for (int i = 0; i < order.length; i++) {
+            reorderedRows[i] = rows[order[i]];
+            reorderedSources[i] = sourceIds[order[i]];
+        }
+        rows = reorderedRows;
+        sourceIds = reorderedSources;
+        size = order.length;
+    }
+
+    private int sourceId(ColumnarManifest source) {
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i) == source) {
+                return i;
+            }
+        }
+        sources.add(source);
+        return sources.size() - 1;
+    }
+
+    private int policyRank(int[][] policyRanks, int index) {
+        return policyRanks[sourceIds[index]][sources.get(sourceIds[index]).code(rows[index], DocumentField.POLICY_NO)];
+    }
+
+    /**
+     * Ranks the policy numbers of every source in one order shared by all sources.
+     */
+    private int[][] policyRanks() {
+        int[][] ranks = new int[sources.size()][];
+        if (sources.size() == 1) {
+            int[] sorted = sources.get(0).dictionary(DocumentField.POLICY_NO).sortedCodes();
+            ranks[0] = new int[sorted.length];
+            for (int rank = 0; rank < sorted.length; rank++) {
+                ranks[0][sorted[rank]] = rank;
+            }
+            return ranks;
+        }
+
+        List<String> all = new ArrayList<>();
+        for (ColumnarManifest source : sources) {
+            all.addAll(Arrays.asList(source.dictionary(DocumentField.POLICY_NO).sortedValues()));
+        }
+        String[] sorted = all.toArray(new String[0]);
+        Arrays.sort(sorted, VALUE_ORDER);
+        // Drop the values several sources share, so every value has exactly one rank
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || VALUE_ORDER.compare(sorted[distinct - 1], sorted[i]) != 0) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        for (int s = 0; s < ranks.length; s++) {
+            ValueDictionary dictionary = sources.get(s).dictionary(DocumentField.POLICY_NO);
+            ranks[s] = new int[dictionary.size()];
+            for (int code = 0; code < ranks[s].length; code++) {
+                ranks[s][code] = Arrays.binarySearch(sorted, 0, distinct, dictionary.decode(code), VALUE_ORDER);
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Compares two rows sharing a policy number on the remaining fields.
+     */
+    private int compareRows(int a, int b) {
+        ColumnarManifest sourceA = sources.get(sourceIds[a]);
+        ColumnarManifest sourceB = sources.get(sourceIds[b]);
+        for (DocumentField field : DocumentField.COMPARED_FIELDS) {
+            int result = sourceA.dictionary(field).compare(sourceA.code(rows[a], field),
+                    sourceB.dictionary(field), sourceB.code(rows[b], field));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private void insertionSort(int[] order, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int index = order[i];
+            int j = i - 1;
+            while (j >= from && compareRows(order[j], index) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(order, from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle);
+        mergeSort(order, buffer, middle, to);
+        if (compareRows(order[middle - 1], order[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            // Taking from the left on ties keeps the sort stable
+            if (right >= to || left < middle && compareRows(buffer[left], buffer[right]) <= 0) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.excelcompare.service;
+
+import java.util.*;
+
+/**
+ * Which sheets of each uploaded workbook are read: the first one, all of them, or the sheets
+ * with the given names. Delimited files have no sheets and are always read whole.
+ */
+public final class SheetSelection {
+
+    public static final SheetSelection FIRST = new SheetSelection(false, Collections.emptySet());
+    public static final SheetSelection ALL = new SheetSelection(true, Collections.emptySet());
+
+    private final boolean all;
+    private final Set<String> names;
+
+    private SheetSelection(boolean all, Set<String> names) {
+        this.all = all;
+        this.names = names;
+    }
+
+    /**
+     * @param value {@code *} for every sheet, a comma-separated list of sheet names, or blank for the first sheet
+     */
+    public static SheetSelection parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return FIRST;
+        }
+        if (value.trim().equals("*")) {
+            return ALL;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : value.split(",")) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        return names.isEmpty() ? FIRST : new SheetSelection(false, names);
+    }
+
+    public boolean isFirstOnly() {
+        return !all && names.isEmpty();
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    /**
+     * @param available the sheets of one file in workbook order, a single {@code null} for a delimited file
+     * @return the selected sheets in workbook order
+     */
+    public List<String> select(List<String> available) {
+        if (available.size() == 1 && available.get(0) == null) {
+            return available;
+        }
+        if (isFirstOnly()) {
+            return available.isEmpty() ? available : available.subList(0, 1);
+        }
+        if (all) {
+            return available;
+        }
+        List<String> selected = new ArrayList<>();
+        for (String sheet : available) {
+            if (names.contains(sheet)) {
+                selected.add(sheet);
+            }
+        }
+        return selected;
+    }
+}
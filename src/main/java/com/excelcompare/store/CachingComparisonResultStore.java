@@ -0,0 +1,296 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.NormalizedComparisonResult;
+import com.excelcompare.dto.ResultStoreStatistics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Size-weighted LRU cache of comparison results with a time-to-live. Entries are weighed by
+ * the number of rows they hold. Results pushed out of memory are optionally written to a
+ * spill directory and loaded back on demand instead of being lost. Spilled results are normalised,
+ * so a pair of mismatching documents is written and loaded once however many fields differ.
+ */
+public class CachingComparisonResultStore implements ComparisonResultStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingComparisonResultStore.class);
+    private static final String SPILL_SUFFIX = ".json.gz";
+
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final Path spillDirectory;
+    private final long spillRetentionMillis;
+    private final ObjectMapper objectMapper;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalWeight;
+
+    // Evicted results that are still being written to disk
+    private final Map<String, ResultIndex> pendingSpills = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong spilledReads = new AtomicLong();
+
+    /**
+     * @param spillDirectory where evicted results are kept, or {@code null} to drop them
+     */
+    public CachingComparisonResultStore(long maxWeight, Duration ttl, Path spillDirectory,
+                                        Duration spillRetention, ObjectMapper objectMapper) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttl.toMillis();
+        this.spillDirectory = spillDirectory;
+        this.spillRetentionMillis = spillRetention.toMillis();
+        this.objectMapper = objectMapper;
+
+        if (spillDirectory != null) {
+            try {
+                Files.createDirectories(spillDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to create result spill directory " + spillDirectory, e);
+            }
+            deleteExpiredSpillFiles();
+        }
+    }
+
+    @Override
+    public String save(ComparisonResult result) {
+        String comparisonId = UUID.randomUUID().toString();
+        // Indexes are built up front so filtered queries never scan the result
+        Entry entry = new Entry(new ResultIndex(result), weigh(result), System.currentTimeMillis());
+
+        List<Map.Entry<String, ResultIndex>> evicted;
+        lock.lock();
+        try {
+            entries.put(comparisonId, entry);
+            totalWeight += entry.weight;
+            evicted = evict(comparisonId);
+        } finally {
+            lock.unlock();
+        }
+
+        spill(evicted);
+        return comparisonId;
+    }
+
+    @Override
+    public Optional<ComparisonResult> find(String comparisonId) {
+        return findIndexed(comparisonId).map(ResultIndex::getResult);
+    }
+
+    @Override
+    public Optional<ResultIndex> findIndexed(String comparisonId) {
+        List<Map.Entry<String, ResultIndex>> evicted;
+        ResultIndex index = null;
+
+        lock.lock();
+        try {
+            Entry entry = entries.get(comparisonId);
+            if (entry != null) {
+                index = entry.index;
+            }
+            evicted = evict(comparisonId);
+        } finally {
+            lock.unlock();
+        }
+        spill(evicted);
+
+        if (index != null) {
+            hits.incrementAndGet();
+            return Optional.of(index);
+        }
+
+        index = pendingSpills.get(comparisonId);
+        if (index == null) {
+            // Only results are written to disk, their indexes are rebuilt on the way back and kept
+            // in memory again, so paging through a spilled result reads the file once
+            ComparisonResult result = readSpilled(comparisonId);
+            if (result != null) {
+                index = admit(comparisonId, result);
+            }
+        }
+        if (index == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(index);
+    }
+
+    private ResultIndex admit(String comparisonId, ComparisonResult result) {
+        ResultIndex index = new ResultIndex(result);
+        List<Map.Entry<String, ResultIndex>> evicted;
+        lock.lock();
+        try {
+            // Another request may have read the same result meanwhile
+            Entry existing = entries.get(comparisonId);
+            if (existing != null) {
+                return existing.index;
+            }
+            Entry entry = new Entry(index, weigh(result), System.currentTimeMillis());
+            entries.put(comparisonId, entry);
+            totalWeight += entry.weight;
+            evicted = evict(comparisonId);
+        } finally {
+            lock.unlock();
+        }
+        spill(evicted);
+        return index;
+    }
+
+    @Override
+    public ResultStoreStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new ResultStoreStatistics(entries.size(), totalWeight, maxWeight,
+                    hits.get(), misses.get(), evictions.get(), spilledReads.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes expired entries and, oldest access first, enough entries to fit the weight
+     * budget. The entry being saved or read is kept even if it alone exceeds the budget.
+     * Must be called while holding the lock.
+     */
+    private List<Map.Entry<String, ResultIndex>> evict(String protectedId) {
+        List<Map.Entry<String, ResultIndex>> evicted = new ArrayList<>();
+        long expiredBefore = System.currentTimeMillis() - ttlMillis;
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> candidate = iterator.next();
+            if (candidate.getKey().equals(protectedId)) {
+                continue;
+            }
+            boolean expired = candidate.getValue().createdAt < expiredBefore;
+            if (!expired && totalWeight <= maxWeight) {
+                continue;
+            }
+
+            iterator.remove();
+            totalWeight -= candidate.getValue().weight;
+            evictions.incrementAndGet();
+            evicted.add(Map.entry(candidate.getKey(), candidate.getValue().index));
+        }
+        return evicted;
+    }
+
+    private void spill(List<Map.Entry<String, ResultIndex>> evicted) {
+        if (spillDirectory == null || evicted.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, ResultIndex> entry : evicted) {
+            pendingSpills.put(entry.getKey(), entry.getValue());
+        }
+        deleteExpiredSpillFiles();
+        for (Map.Entry<String, ResultIndex> entry : evicted) {
+            Path target = spillFile(entry.getKey());
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try {
+                // A result read back from disk is still there unless it expired meanwhile
+                if (!Files.exists(target)) {
+                    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                        objectMapper.writeValue(out, NormalizedComparisonResult.of(entry.getValue().getResult()));
+                    }
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                log.warn("Unable to spill comparison result {}", entry.getKey(), e);
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            } finally {
+                // Only now, so readers find the result in memory until the file is in place
+                pendingSpills.remove(entry.getKey());
+            }
+        }
+    }
+
+    private ComparisonResult readSpilled(String comparisonId) {
+        if (spillDirectory == null || !isValidId(comparisonId)) {
+            return null;
+        }
+
+        Path file = spillFile(comparisonId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            spilledReads.incrementAndGet();
+            return objectMapper.readValue(in, NormalizedComparisonResult.class).toResult();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read spilled comparison result {}", comparisonId, e);
+            return null;
+        }
+    }
+
+    private void deleteExpiredSpillFiles() {
+        long cutoff = System.currentTimeMillis() - spillRetentionMillis;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDirectory, "*" + SPILL_SUFFIX)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to clean result spill directory {}", spillDirectory, e);
+        }
+    }
+
+    private Path spillFile(String comparisonId) {
+        return spillDirectory.resolve(comparisonId + SPILL_SUFFIX);
+    }
+
+    // Ids come from request paths, so never let them address files outside the spill directory
+    private boolean isValidId(String comparisonId) {
+        return comparisonId != null && comparisonId.matches("[A-Za-z0-9-]+");
+    }
+
+    private long weigh(ComparisonResult result) {
+        return 1L + size(result.getMetadataMismatches()) + size(result.getMissingInA())
+                + size(result.getMissingInB()) + size(result.getMatchedDocuments())
+                + size(result.getDuplicateGroups());
+    }
+
+    private int size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+
+    private static class Entry {
+        private final ResultIndex index;
+        private final long weight;
+        private final long createdAt;
+
+        Entry(ResultIndex index, long weight, long createdAt) {
+            this.index = index;
+            this.weight = weight;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ResultStoreStatistics;
+
+import java.util.Optional;
+
+/**
+ * Keeps finished comparison results so they can be queried and exported after the
+ * comparison request has returned.
+ */
+public interface ComparisonResultStore {
+
+    /**
+     * @return the id under which the result can be found again
+     */
+    String save(ComparisonResult result);
+
+    Optional<ComparisonResult> find(String comparisonId);
+
+    /**
+     * Finds a result together with its secondary indexes. Stores that keep results in memory
+     * should build the index once when the result is saved.
+     */
+    default Optional<ResultIndex> findIndexed(String comparisonId) {
+        return find(comparisonId).map(ResultIndex::new);
+    }
+
+    ResultStoreStatistics getStatistics();
+}
@@ -0,0 +1,159 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ResultStoreStatistics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps every result in a {@link ResultFile} in a local directory, so results survive restarts and
+ * take no heap while nobody reads them. An opened result reads its lists from a memory mapping
+ * of its file; the indexes of the most recently used results are kept so paging through a result
+ * does not scan it again. Results older than the retention are deleted.
+ */
+public class FileComparisonResultStore implements ComparisonResultStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileComparisonResultStore.class);
+
+    private final Path directory;
+    private final long retentionMillis;
+    private final int openResults;
+    private final ObjectMapper objectMapper;
+
+    // Access-ordered, so the least recently used result is dropped first
+    private final LinkedHashMap<String, ResultIndex> opened = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong fileReads = new AtomicLong();
+
+    /**
+     * @param openResults how many opened results keep their indexes in memory
+     */
+    public FileComparisonResultStore(Path directory, Duration retention, int openResults, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.retentionMillis = retention.toMillis();
+        this.openResults = openResults;
+        this.objectMapper = objectMapper;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create result store directory " + directory, e);
+        }
+        deleteExpiredFiles();
+    }
+
+    @Override
+    public String save(ComparisonResult result) {
+        String comparisonId = UUID.randomUUID().toString();
+        Path target = resultFile(comparisonId);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            ResultFile.write(temp, result, objectMapper);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException("Unable to store comparison result", e);
+        }
+        deleteExpiredFiles();
+        return comparisonId;
+    }
+
+    @Override
+    public Optional<ComparisonResult> find(String comparisonId) {
+        return findIndexed(comparisonId).map(ResultIndex::getResult);
+    }
+
+    @Override
+    public Optional<ResultIndex> findIndexed(String comparisonId) {
+        synchronized (opened) {
+            ResultIndex index = opened.get(comparisonId);
+            if (index != null) {
+                hits.incrementAndGet();
+                return Optional.of(index);
+            }
+        }
+
+        // Ids come from request paths, so never let them address files outside the directory
+        Path file = comparisonId != null && comparisonId.matches("[A-Za-z0-9-]+") ? resultFile(comparisonId) : null;
+        if (file == null || !Files.exists(file)) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        ResultIndex index;
+        try {
+            index = new ResultIndex(ResultFile.read(file, objectMapper));
+        } catch (IOException e) {
+            log.warn("Unable to read comparison result {}", comparisonId, e);
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        fileReads.incrementAndGet();
+        hits.incrementAndGet();
+
+        synchronized (opened) {
+            opened.put(comparisonId, index);
+            Iterator<String> eldest = opened.keySet().iterator();
+            while (opened.size() > openResults) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return Optional.of(index);
+    }
+
+    /**
+     * Entries are the stored results and weight is their size on disk in bytes; the store has no
+     * maximum weight, evictions count results deleted after the retention.
+     */
+    @Override
+    public ResultStoreStatistics getStatistics() {
+        int entries = 0;
+        long bytes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ResultFile.SUFFIX)) {
+            for (Path file : files) {
+                entries++;
+                bytes += Files.size(file);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to list result store directory {}", directory, e);
+        }
+        return new ResultStoreStatistics(entries, bytes, 0, hits.get(), misses.get(), evictions.get(), fileReads.get());
+    }
+
+    private void deleteExpiredFiles() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ResultFile.SUFFIX)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff && Files.deleteIfExists(file)) {
+                    evictions.incrementAndGet();
+                    String name = file.getFileName().toString();
+                    synchronized (opened) {
+                        opened.remove(name.substring(0, name.length() - ResultFile.SUFFIX.length()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to clean result store directory {}", directory, e);
+        }
+    }
+
+    private Path resultFile(String comparisonId) {
+        return directory.resolve(comparisonId + ResultFile.SUFFIX);
+    }
+}
@@ -0,0 +1,297 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ManifestCacheStatistics;
+import com.excelcompare.model.ColumnarManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Content-addressed cache of parsed manifests, keyed by the SHA-256 of the uploaded file.
+ * <p>
+ * Manifests are held in a memory tier weighed by their retained bytes and written through to an
+ * optional disk tier in the binary form of {@link ColumnarManifest#writeTo}, which is a fraction of
+ * the size of the workbook it came from. Both tiers evict least recently used entries once over
+ * their byte budget. Cached manifests are shared between callers and must not be modified.
+ */
+public class ManifestCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ManifestCache.class);
+    private static final String FILE_SUFFIX = ".manifest";
+    private static final int FILE_MAGIC = 0x4D414E31;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long maxMemoryBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, ColumnarManifest> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long memoryBytes;
+    private long diskBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param directory where manifests are written through to, or {@code null} for a memory-only cache
+     */
+    public ManifestCache(long maxMemoryBytes, Path directory, long maxDiskBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to create manifest cache directory " + directory, e);
+            }
+            loadDiskEntries();
+        }
+    }
+
+    public static String contentHash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Manifests retaining more than this are not worth collecting for the cache.
+     */
+    public long getMaxEntryBytes() {
+        return maxMemoryBytes;
+    }
+
+    public Optional<ColumnarManifest> get(String contentHash) {
+        lock.lock();
+        try {
+            ColumnarManifest manifest = memory.get(contentHash);
+            if (manifest != null) {
+                memoryHits.incrementAndGet();
+                return Optional.of(manifest);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        ColumnarManifest manifest = readFromDisk(contentHash);
+        if (manifest == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        diskHits.incrementAndGet();
+        putInMemory(contentHash, manifest);
+        return Optional.of(manifest);
+    }
+
+    public void put(String contentHash, ColumnarManifest manifest) {
+        putInMemory(contentHash, manifest);
+        writeToDisk(contentHash, manifest);
+    }
+
+    public ManifestCacheStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new ManifestCacheStatistics(memory.size(), memoryBytes, maxMemoryBytes,
+                    disk.size(), diskBytes, maxDiskBytes,
+                    memoryHits.get(), diskHits.get(), misses.get(), evictions.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putInMemory(String contentHash, ColumnarManifest manifest) {
+        long weight = manifest.getRetainedBytes();
+        if (weight > maxMemoryBytes) {
+            return;
+        }
+        lock.lock();
+        try {
+            ColumnarManifest previous = memory.put(contentHash, manifest);
+            if (previous != null) {
+                memoryBytes -= previous.getRetainedBytes();
+            }
+            memoryBytes += weight;
+
+            Iterator<Map.Entry<String, ColumnarManifest>> iterator = memory.entrySet().iterator();
+            while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+                Map.Entry<String, ColumnarManifest> eldest = iterator.next();
+                iterator.remove();
+                memoryBytes -= eldest.getValue().getRetainedBytes();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ColumnarManifest readFromDisk(String contentHash) {
+        if (directory == null || !isValidHash(contentHash)) {
+            return null;
+        }
+        lock.lock();
+        try {
+            if (disk.get(contentHash) == null) {
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Path file = cacheFile(contentHash);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a cached manifest");
+            }
+            ColumnarManifest manifest = ColumnarManifest.readFrom(in);
+            // The modification time orders the disk tier when it is reloaded after a restart
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return manifest;
+        } catch (NoSuchFileException e) {
+            removeFromDisk(contentHash);
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read cached manifest {}", contentHash, e);
+            removeFromDisk(contentHash);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String contentHash, ColumnarManifest manifest) {
+        if (directory == null || !isValidHash(contentHash)) {
+            return;
+        }
+
+        Path target = cacheFile(contentHash);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                out.writeInt(FILE_MAGIC);
+                manifest.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            addDiskEntry(contentHash, Files.size(target));
+        } catch (IOException e) {
+            log.warn("Unable to write cached manifest {}", contentHash, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Nothing more to do
+            }
+        }
+    }
+
+    private void addDiskEntry(String contentHash, long size) {
+        List<String> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            Long previous = disk.put(contentHash, size);
+            if (previous != null) {
+                diskBytes -= previous;
+            }
+            diskBytes += size;
+
+            Iterator<Map.Entry<String, Long>> iterator = disk.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                if (eldest.getKey().equals(contentHash)) {
+                    continue;
+                }
+                iterator.remove();
+                diskBytes -= eldest.getValue();
+                evictions.incrementAndGet();
+                evicted.add(eldest.getKey());
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (String hash : evicted) {
+            deleteFile(hash);
+        }
+    }
+
+    private void removeFromDisk(String contentHash) {
+        lock.lock();
+        try {
+            Long size = disk.remove(contentHash);
+            if (size != null) {
+                diskBytes -= size;
+            }
+        } finally {
+            lock.unlock();
+        }
+        deleteFile(contentHash);
+    }
+
+    private void deleteFile(String contentHash) {
+        try {
+            Files.deleteIfExists(cacheFile(contentHash));
+        } catch (IOException e) {
+            log.warn("Unable to delete cached manifest {}", contentHash, e);
+        }
+    }
+
+    /**
+     * Registers the files left by an earlier run, least recently used first.
+     */
+    private void loadDiskEntries() {
+        List<Path> files = new ArrayList<>();
+        Map<Path, Long> modified = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+                modified.put(file, Files.getLastModifiedTime(file).toMillis());
+            }
+        } catch (IOException e) {
+            log.warn("Unable to scan manifest cache directory {}", directory, e);
+            return;
+        }
+
+        files.sort(Comparator.comparing(modified::get));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            String contentHash = name.substring(0, name.length() - FILE_SUFFIX.length());
+            try {
+                if (isValidHash(contentHash)) {
+                    addDiskEntry(contentHash, Files.size(file));
+                }
+            } catch (IOException e) {
+                log.warn("Unable to read cached manifest {}", file, e);
+            }
+        }
+    }
+
+    private Path cacheFile(String contentHash) {
+        return directory.resolve(contentHash + FILE_SUFFIX);
+    }
+
+    private static boolean isValidHash(String contentHash) {
+        return contentHash != null && contentHash.matches("[0-9a-f]{64}");
+    }
+}
@@ -0,0 +1,36 @@
+package com.excelcompare.store;
+
+import com.excelcompare.model.DocumentField;
+
+/**
+ * A result list that reads the columns {@link ResultIndex} is built from, and the keys result
+ * queries are sorted by, without creating its elements. Lists that do not implement it are read
+ * element by element.
+ */
+public interface ResultColumns {
+
+    /**
+     * @return the policy number of the element, the one of document A for a mismatch
+     */
+    String policyNo(int index);
+
+    interface Documents extends ResultColumns {
+
+        String value(int index, DocumentField field);
+    }
+
+    interface Mismatches extends ResultColumns {
+
+        DocumentField field(int index);
+
+        /**
+         * @return the value of the mismatching field in document A
+         */
+        String valueA(int index);
+
+        /**
+         * @return the value of the mismatching field in document B
+         */
+        String valueB(int index);
+    }
+}
@@ -0,0 +1,393 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.dto.ComparisonResult.DuplicateGroup;
+import com.excelcompare.dto.MismatchTable;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A comparison result in a compact binary file, read through a memory mapping so any element
+ * of any list is read on its own without loading the rest.
+ * <p>
+ * The file starts with a magic number and version, followed by the statistics and duplicate groups
+ * as length-prefixed JSON and then the records of every section. A record is its length followed
+ * by its content; strings are a length, -1 for {@code null}, and UTF-8 bytes. Document records
+ * hold every field in ordinal order and mismatch records the field ordinal and the positions of
+ * both documents in the document table, which holds every mismatching pair once. After the records
+ * come the offset index of every section, and a fixed-size footer with the number of records and
+ * index position of every section ends the file.
+ * <p>
+ * The lists read from the file implement {@link ResultColumns}, so a {@link ResultIndex} is built
+ * by reading just the indexed fields of each record instead of whole documents.
+ */
+final class ResultFile {
+
+    static final String SUFFIX = ".result";
+
+    private static final int MAGIC = 0x45435253;
+    private static final int VERSION = 1;
+
+    // Sections in file order
+    private static final int DOCUMENT_TABLE = 0;
+    private static final int MISSING_IN_B = 1;
+    private static final int MISSING_IN_A = 2;
+    private static final int MATCHED = 3;
+    private static final int MISMATCHES = 4;
+    private static final int SECTIONS = 5;
+
+    private static final int FOOTER_BYTES = SECTIONS * (4 + 8) + 8 + 8 + 4;
+
+    // Every mapping covers two segments, so a record shorter than a segment is always read from one mapping
+    private static final long SEGMENT_SIZE = 1L << 29;
+
+    private static final TypeReference<List<DuplicateGroup>> DUPLICATE_GROUPS = new TypeReference<>() {};
+
+    private final MappedByteBuffer[] mappings;
+    private final int[] counts = new int[SECTIONS];
+    private final long[] indexOffsets = new long[SECTIONS];
+    private final long statisticsOffset;
+    private final long duplicateGroupsOffset;
+
+    private ResultFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 8 + FOOTER_BYTES) {
+                throw new IOException("Not a result file: " + file);
+            }
+            mappings = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < mappings.length; i++) {
+                long start = i * SEGMENT_SIZE;
+                mappings[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(2 * SEGMENT_SIZE, size - start));
+            }
+
+            long footer = size - FOOTER_BYTES;
+            if (readInt(0) != MAGIC || readInt(4) != VERSION || readInt(size - 4) != MAGIC) {
+                throw new IOException("Not a result file: " + file);
+            }
+            for (int section = 0; section < SECTIONS; section++) {
+                counts[section] = readInt(footer + section * 12L);
+                indexOffsets[section] = readLong(footer + section * 12L + 4);
+            }
+            statisticsOffset = readLong(footer + SECTIONS * 12L);
+            duplicateGroupsOffset = readLong(footer + SECTIONS * 12L + 8);
+        }
+    }
+
+    /**
+     * Opens the file as a result whose lists read their elements from the file when asked for them.
+     */
+    static ComparisonResult read(Path file, ObjectMapper objectMapper) throws IOException {
+        ResultFile resultFile = new ResultFile(file);
+        ComparisonStatistics statistics = objectMapper.readValue(
+                resultFile.readBytes(resultFile.statisticsOffset), ComparisonStatistics.class);
+        List<DuplicateGroup> duplicateGroups = objectMapper.readValue(
+                resultFile.readBytes(resultFile.duplicateGroupsOffset), DUPLICATE_GROUPS);
+
+        ComparisonResult result = new ComparisonResult(statistics,
+                resultFile.new Documents(MISSING_IN_B), resultFile.new Documents(MISSING_IN_A),
+                resultFile.new Mismatches(), resultFile.new Documents(MATCHED));
+        result.setDuplicateGroups(duplicateGroups);
+        return result;
+    }
+
+    static void write(Path file, ComparisonResult result, ObjectMapper objectMapper) throws IOException {
+        try (Writer writer = new Writer(Files.newOutputStream(file))) {
+            writer.out.writeInt(MAGIC);
+            writer.out.writeInt(VERSION);
+            long statisticsOffset = writer.position();
+            writer.writeRecord(objectMapper.writeValueAsBytes(result.getStatistics()));
+            long duplicateGroupsOffset = writer.position();
+            writer.writeRecord(objectMapper.writeValueAsBytes(orEmpty(result.getDuplicateGroups())));
+
+            List<DocumentMismatch> mismatches = orEmpty(result.getMetadataMismatches());
+            long[][] offsets = new long[SECTIONS][];
+
+            // The document table, then the references into it in a second pass like MismatchTable
+            offsets[DOCUMENT_TABLE] = new long[2 * mismatches.size()];
+            int documents = 0;
+            DocumentMismatch last = null;
+            for (DocumentMismatch mismatch : mismatches) {
+                if (!MismatchTable.samePair(last, mismatch)) {
+                    offsets[DOCUMENT_TABLE][documents++] = writer.writeDocument(mismatch.getDocumentA());
+                    offsets[DOCUMENT_TABLE][documents++] = writer.writeDocument(mismatch.getDocumentB());
+                }
+                last = mismatch;
+            }
+            offsets[DOCUMENT_TABLE] = Arrays.copyOf(offsets[DOCUMENT_TABLE], documents);
+
+            offsets[MISSING_IN_B] = writer.writeDocuments(orEmpty(result.getMissingInB()));
+            offsets[MISSING_IN_A] = writer.writeDocuments(orEmpty(result.getMissingInA()));
+            offsets[MATCHED] = writer.writeDocuments(orEmpty(result.getMatchedDocuments()));
+
+            offsets[MISMATCHES] = new long[mismatches.size()];
+            documents = 0;
+            last = null;
+            for (int i = 0; i < mismatches.size(); i++) {
+                DocumentMismatch mismatch = mismatches.get(i);
+                if (!MismatchTable.samePair(last, mismatch)) {
+                    documents += 2;
+                }
+                last = mismatch;
+                offsets[MISMATCHES][i] = writer.position();
+                writer.out.writeInt(12);
+                writer.out.writeInt(DocumentField.fromFieldName(mismatch.getFieldName()).ordinal());
+                writer.out.writeInt(documents - 2);
+                writer.out.writeInt(documents - 1);
+            }
+
+            long[] indexOffsets = new long[SECTIONS];
+            for (int section = 0; section < SECTIONS; section++) {
+                indexOffsets[section] = writer.position();
+                for (long offset : offsets[section]) {
+                    writer.out.writeLong(offset);
+                }
+            }
+            for (int section = 0; section < SECTIONS; section++) {
+                writer.out.writeInt(offsets[section].length);
+                writer.out.writeLong(indexOffsets[section]);
+            }
+            writer.out.writeLong(statisticsOffset);
+            writer.out.writeLong(duplicateGroupsOffset);
+            writer.out.writeInt(MAGIC);
+        }
+    }
+
+    private long recordOffset(int section, int index) {
+        if (index < 0 || index >= counts[section]) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + counts[section]);
+        }
+        return readLong(indexOffsets[section] + 8L * index);
+    }
+
+    private DocumentMetadata readDocument(long offset) {
+        // Skip the record length, the fields follow one after another
+        long position = offset + 4;
+        String[] values = new String[DocumentField.count()];
+        for (int field = 0; field < values.length; field++) {
+            values[field] = readString(position);
+            position += 4 + Math.max(readInt(position), 0);
+        }
+        return DocumentField.toDocument(values);
+    }
+
+    /**
+     * Reads one field of a document record, skipping the fields before it by their lengths.
+     */
+    private String readField(long offset, DocumentField field) {
+        long position = offset + 4;
+        for (int i = 0; i < field.ordinal(); i++) {
+            position += 4 + Math.max(readInt(position), 0);
+        }
+        return readString(position);
+    }
+
+    private String readString(long position) {
+        int length = readInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        mapping(position + 4).get(index(position + 4), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(long offset) {
+        byte[] bytes = new byte[readInt(offset)];
+        mapping(offset + 4).get(index(offset + 4), bytes);
+        return bytes;
+    }
+
+    private int readInt(long offset) {
+        return mapping(offset).getInt(index(offset));
+    }
+
+    private long readLong(long offset) {
+        return mapping(offset).getLong(index(offset));
+    }
+
+    private ByteBuffer mapping(long offset) {
+        return mappings[(int) (offset / SEGMENT_SIZE)];
+    }
+
+    private static int index(long offset) {
+        return (int) (offset % SEGMENT_SIZE);
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+
+    private final class Documents extends AbstractList<DocumentMetadata>
+            implements RandomAccess, ResultColumns.Documents {
+        private final int section;
+
+        Documents(int section) {
+            this.section = section;
+        }
+
+        @Override
+        public DocumentMetadata get(int index) {
+            return readDocument(recordOffset(section, index));
+        }
+
+        @Override
+        public String policyNo(int index) {
+            return value(index, DocumentField.POLICY_NO);
+        }
+
+        @Override
+        public String value(int index, DocumentField field) {
+            return readField(recordOffset(section, index), field);
+        }
+
+        @Override
+        public int size() {
+            return counts[section];
+        }
+    }
+
+    private final class Mismatches extends AbstractList<DocumentMismatch>
+            implements RandomAccess, ResultColumns.Mismatches {
+
+        @Override
+        public DocumentMismatch get(int index) {
+            long offset = recordOffset(MISMATCHES, index);
+            DocumentField field = DocumentField.ofOrdinal(readInt(offset + 4));
+            DocumentMetadata documentA = readDocument(recordOffset(DOCUMENT_TABLE, readInt(offset + 8)));
+            DocumentMetadata documentB = readDocument(recordOffset(DOCUMENT_TABLE, readInt(offset + 12)));
+            return new DocumentMismatch(documentA.getPolicyNo(), field.getFieldName(),
+                    field.get(documentA), field.get(documentB), documentA, documentB);
+        }
+
+        @Override
+        public String policyNo(int index) {
+            long offset = recordOffset(MISMATCHES, index);
+            return readField(recordOffset(DOCUMENT_TABLE, readInt(offset + 8)), DocumentField.POLICY_NO);
+        }
+
+        @Override
+        public DocumentField field(int index) {
+            return DocumentField.ofOrdinal(readInt(recordOffset(MISMATCHES, index) + 4));
+        }
+
+        @Override
+        public String valueA(int index) {
+            return value(index, 8);
+        }
+
+        @Override
+        public String valueB(int index) {
+            return value(index, 12);
+        }
+
+        // The document reference at the given position of the mismatch record
+        private String value(int index, int documentPosition) {
+            long offset = recordOffset(MISMATCHES, index);
+            DocumentField field = DocumentField.ofOrdinal(readInt(offset + 4));
+            return readField(recordOffset(DOCUMENT_TABLE, readInt(offset + documentPosition)), field);
+        }
+
+        @Override
+        public int size() {
+            return counts[MISMATCHES];
+        }
+    }
+
+    /**
+     * Buffered output that knows its position in the file, which is where the next record starts.
+     */
+    private static final class Writer implements Closeable {
+        private final CountingOutputStream counter;
+        private final DataOutputStream out;
+
+        Writer(OutputStream target) {
+            counter = new CountingOutputStream(new BufferedOutputStream(target, 64 * 1024));
+            out = new DataOutputStream(counter);
+        }
+
+        long position() {
+            return counter.count;
+        }
+
+        void writeRecord(byte[] bytes) throws IOException {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        long[] writeDocuments(List<DocumentMetadata> documents) throws IOException {
+            long[] offsets = new long[documents.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = writeDocument(documents.get(i));
+            }
+            return offsets;
+        }
+
+        long writeDocument(DocumentMetadata document) throws IOException {
+            long offset = position();
+            DocumentField[] fields = DocumentField.values();
+            byte[][] values = new byte[fields.length][];
+            int length = 0;
+            for (int i = 0; i < fields.length; i++) {
+                String value = fields[i].get(document);
+                values[i] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+                length += 4 + (value == null ? 0 : values[i].length);
+            }
+            if (length >= SEGMENT_SIZE) {
+                throw new IOException("Document of policy " + document.getPolicyNo() + " is too large to store");
+            }
+            out.writeInt(length);
+            for (byte[] value : values) {
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            }
+            return offset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
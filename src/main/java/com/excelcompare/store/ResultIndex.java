@@ -0,0 +1,348 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.dto.ResultFilter;
+import com.excelcompare.dto.ResultSection;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+
+import java.util.*;
+
+/**
+ * Secondary indexes over the lists of one stored result, built once when the result is stored.
+ * <p>
+ * Mismatches are indexed by field name and document lists by migration status and document type,
+ * all case-insensitively like the filters they replace. Every list is also indexed by policy
+ * number so a policy prefix selects a contiguous range found by binary search. A filter is
+ * answered with the ascending positions of the matching rows; combined filters intersect the
+ * position lists, starting from the shortest.
+ * <p>
+ * Each list is read once, column by column through {@link ResultColumns} where the list supports
+ * it, into arrays the indexes are then built from.
+ */
+public class ResultIndex {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final ComparisonResult result;
+    private final Map<ResultSection, SectionIndex> sections = new EnumMap<>(ResultSection.class);
+
+    public ResultIndex(ComparisonResult result) {
+        this.result = result;
+
+        List<DocumentMismatch> mismatches = orEmpty(result.getMetadataMismatches());
+        String[] policies = new String[mismatches.size()];
+        String[] fieldNames = new String[mismatches.size()];
+        if (mismatches instanceof ResultColumns.Mismatches) {
+            ResultColumns.Mismatches columns = (ResultColumns.Mismatches) mismatches;
+            for (int i = 0; i < policies.length; i++) {
+                policies[i] = columns.policyNo(i);
+                fieldNames[i] = columns.field(i).getFieldName();
+            }
+        } else {
+            for (int i = 0; i < policies.length; i++) {
+                DocumentMismatch mismatch = mismatches.get(i);
+                policies[i] = mismatch.getPolicyNo();
+                fieldNames[i] = mismatch.getFieldName();
+            }
+        }
+        SectionIndex mismatchIndex = new SectionIndex(policies);
+        mismatchIndex.byFieldName = group(fieldNames);
+        sections.put(ResultSection.MISMATCHES, mismatchIndex);
+
+        for (ResultSection section : List.of(ResultSection.MISSING_IN_A, ResultSection.MISSING_IN_B, ResultSection.MATCHED)) {
+            List<DocumentMetadata> documents = orEmpty(documents(result, section));
+            policies = new String[documents.size()];
+            String[] migrationStatuses = new String[documents.size()];
+            String[] documentTypes = new String[documents.size()];
+            if (documents instanceof ResultColumns.Documents) {
+                ResultColumns.Documents columns = (ResultColumns.Documents) documents;
+                for (int i = 0; i < policies.length; i++) {
+                    policies[i] = columns.policyNo(i);
+                    migrationStatuses[i] = columns.value(i, DocumentField.MIGRATION);
+                    documentTypes[i] = columns.value(i, DocumentField.DOCUMENT_TYPE);
+                }
+            } else {
+                for (int i = 0; i < policies.length; i++) {
+                    DocumentMetadata document = documents.get(i);
+                    policies[i] = document.getPolicyNo();
+                    migrationStatuses[i] = document.getMigration();
+                    documentTypes[i] = document.getDocumentType();
+                }
+            }
+            SectionIndex documentIndex = new SectionIndex(policies);
+            documentIndex.byMigrationStatus = group(migrationStatuses);
+            documentIndex.byDocumentType = group(documentTypes);
+            sections.put(section, documentIndex);
+        }
+    }
+
+    public ComparisonResult getResult() { return result; }
+
+    public static List<DocumentMetadata> documents(ComparisonResult result, ResultSection section) {
+        switch (section) {
+            case MISSING_IN_A:
+                return result.getMissingInA();
+            case MISSING_IN_B:
+                return result.getMissingInB();
+            case MATCHED:
+                return result.getMatchedDocuments();
+            default:
+                throw new IllegalArgumentException("Not a document list: " + section);
+        }
+    }
+
+    /**
+     * @return the ascending positions of the rows matching the filter, or {@code null} when
+     * the filter selects every row; the array belongs to the caller
+     * @throws IllegalArgumentException if the filter uses a field the section is not indexed by
+     */
+    public int[] select(ResultSection section, ResultFilter filter) {
+        List<int[]> candidates = new ArrayList<>(4);
+        int[] selected = select(section, filter, candidates);
+        // A single filter selects one of the index's own arrays
+        return selected != null && selected == candidates.get(0) ? selected.clone() : selected;
+    }
+
+    public int count(ResultSection section, ResultFilter filter) {
+        int[] selected = select(section, filter, new ArrayList<>(4));
+        return selected == null ? sections.get(section).size : selected.length;
+    }
+
+    /**
+     * @param candidates filled with the positions selected by every filter, which may be arrays
+     * of the index itself
+     * @return the positions selected by all filters, which is the smallest candidate itself when
+     * no other filter narrows it
+     */
+    private int[] select(ResultSection section, ResultFilter filter, List<int[]> candidates) {
+        SectionIndex index = sections.get(section);
+        if (filter != null) {
+            addCandidate(candidates, index.byFieldName, filter.getFieldName(), "fieldName", section);
+            addCandidate(candidates, index.byMigrationStatus, filter.getMigrationStatus(), "migrationStatus", section);
+            addCandidate(candidates, index.byDocumentType, filter.getDocumentType(), "documentType", section);
+            if (!isBlank(filter.getPolicyPrefix())) {
+                candidates.add(index.policyRange(filter.getPolicyPrefix().trim()));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        candidates.sort(Comparator.comparingInt(positions -> positions.length));
+        int[] selected = candidates.get(0);
+        for (int i = 1; i < candidates.size() && selected.length > 0; i++) {
+            selected = intersect(selected, candidates.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * @return a read-only view of the rows at the given positions, or the rows themselves
+     * when {@code positions} is {@code null}
+     */
+    public static <T> List<T> rowsAt(List<T> rows, int[] positions) {
+        if (positions == null) {
+            return rows;
+        }
+        return new RowsAt<>(rows, positions);
+    }
+
+    private static void addCandidate(List<int[]> candidates, Map<String, int[]> index, String value,
+                                     String name, ResultSection section) {
+        if (isBlank(value)) {
+            return;
+        }
+        if (index == null) {
+            throw new IllegalArgumentException(name + " does not apply to " + section);
+        }
+        int[] positions = index.get(value.trim().toLowerCase(Locale.ROOT));
+        candidates.add(positions == null ? new int[0] : positions);
+    }
+
+    /**
+     * Groups row positions by lower-cased key, rows without a key are left out.
+     */
+    private static Map<String, int[]> group(String[] keys) {
+        Map<String, int[]> counts = new HashMap<>();
+        for (String value : keys) {
+            if (value != null) {
+                counts.computeIfAbsent(value.toLowerCase(Locale.ROOT), k -> new int[1])[0]++;
+            }
+        }
+
+        Map<String, int[]> groups = new HashMap<>(counts.size() * 2);
+        for (Map.Entry<String, int[]> count : counts.entrySet()) {
+            groups.put(count.getKey(), new int[count.getValue()[0]]);
+            // The count becomes the fill position of the second pass
+            count.getValue()[0] = 0;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            String value = keys[i];
+            if (value != null) {
+                String k = value.toLowerCase(Locale.ROOT);
+                groups.get(k)[counts.get(k)[0]++] = i;
+            }
+        }
+        return groups;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static class SectionIndex {
+        private final int size;
+        // Policy numbers in ascending order, with the position of the row each came from
+        private final String[] sortedPolicies;
+        private final int[] policyOrder;
+        // Whether policyOrder is ascending, so ranges need no sorting
+        private final boolean storedInPolicyOrder;
+
+        private Map<String, int[]> byFieldName;
+        private Map<String, int[]> byMigrationStatus;
+        private Map<String, int[]> byDocumentType;
+
+        SectionIndex(String[] policies) {
+            this.size = policies.length;
+
+            int[] positions = new int[size];
+            int count = 0;
+            boolean sorted = true;
+            String previous = null;
+            for (int i = 0; i < size; i++) {
+                String policy = policies[i];
+                if (policy == null) {
+                    continue;
+                }
+                sorted &= previous == null || previous.compareTo(policy) <= 0;
+                previous = policy;
+                positions[count++] = i;
+            }
+            positions = count == size ? positions : Arrays.copyOf(positions, count);
+            // Results come out of the comparison sorted by policy, anything else is sorted here
+            if (!sorted) {
+                sortByPolicy(positions, new int[count], policies, 0, count);
+            }
+
+            this.storedInPolicyOrder = sorted;
+            this.policyOrder = positions;
+            this.sortedPolicies = new String[count];
+            for (int i = 0; i < count; i++) {
+                sortedPolicies[i] = policies[positions[i]];
+            }
+        }
+
+        /**
+         * Stable merge sort of row positions by the policy of each row.
+         */
+        private static void sortByPolicy(int[] positions, int[] buffer, String[] policies, int from, int to) {
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                for (int i = from + 1; i < to; i++) {
+                    int position = positions[i];
+                    int j = i - 1;
+                    while (j >= from && policies[positions[j]].compareTo(policies[position]) > 0) {
+                        positions[j + 1] = positions[j];
+                        j--;
+                    }
+                    positions[j + 1] = position;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            sortByPolicy(positions, buffer, policies, from, middle);
+            sortByPolicy(positions, buffer, policies, middle, to);
+            if (policies[positions[middle - 1]].compareTo(policies[positions[middle]]) <= 0) {
+                return;
+            }
+            System.arraycopy(positions, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                // Taking from the left on ties keeps rows of one policy in their stored order
+                if (right >= to || left < middle && policies[buffer[left]].compareTo(policies[buffer[right]]) <= 0) {
+                    positions[i] = buffer[left++];
+                } else {
+                    positions[i] = buffer[right++];
+                }
+            }
+        }
+
+        int[] policyRange(String prefix) {
+            int from = lowerBound(prefix);
+            // Policies starting with the prefix are contiguous from the lower bound
+            int lo = from;
+            int hi = sortedPolicies.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedPolicies[mid].startsWith(prefix)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+
+            int[] range = Arrays.copyOfRange(policyOrder, from, lo);
+            if (!storedInPolicyOrder) {
+                Arrays.sort(range);
+            }
+            return range;
+        }
+
+        private int lowerBound(String key) {
+            int lo = 0;
+            int hi = sortedPolicies.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedPolicies[mid].compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private static class RowsAt<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> rows;
+        private final int[] positions;
+
+        RowsAt(List<T> rows, int[] positions) {
+            this.rows = rows;
+            this.positions = positions;
+        }
+
+        @Override
+        public T get(int index) {
+            return rows.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+}
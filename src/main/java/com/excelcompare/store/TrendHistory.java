@@ -0,0 +1,225 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
+import com.excelcompare.dto.StatisticsSnapshot;
+import com.excelcompare.dto.TrendBucket;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * History of the statistics of every stored comparison, for watching a reconciliation that runs
+ * repeatedly. Every snapshot is added to a daily and a weekly rollup as it is recorded, so trend
+ * queries read the rollups and never look at results. Snapshots are appended to an optional
+ * history file, one JSON object per line, and replayed from it on startup. Snapshots older than
+ * the retention are dropped on startup and whenever a comparison is recorded, together with the
+ * rollups of the days and weeks that ended before the retention; the file is rewritten once it
+ * holds enough dropped snapshots.
+ */
+public class TrendHistory {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendHistory.class);
+
+    public enum Period { DAY, WEEK }
+
+    // The file is rewritten once it holds this many dropped snapshots, or a quarter of the kept ones if more
+    private static final int REWRITE_DROPPED_LINES = 64;
+
+    private final Path file;
+    private final long retentionMillis;
+    private final ZoneId zone;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    private final List<StatisticsSnapshot> snapshots = new ArrayList<>();
+    private final TreeMap<LocalDate, TrendBucket> days = new TreeMap<>();
+    private final TreeMap<LocalDate, TrendBucket> weeks = new TreeMap<>();
+
+    // Lines of the file whose snapshots have been dropped since it was last written in full
+    private int droppedLines;
+
+    /**
+     * @param file where snapshots are kept across restarts, or {@code null} to keep them in memory only
+     * @param zone the zone days and weeks are counted in; weeks start on Monday
+     * @param clock the time the retention is counted back from
+     */
+    public TrendHistory(Path file, Duration retention, ZoneId zone, ObjectMapper objectMapper, Clock clock) {
+        this.file = file;
+        this.retentionMillis = retention.toMillis();
+        this.zone = zone;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+
+        if (file != null) {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read trend history " + file, e);
+            }
+        }
+    }
+
+    public synchronized void record(String comparisonId, ComparisonStatistics statistics, Instant finishedAt) {
+        long cutoff = clock.millis() - retentionMillis;
+        dropExpired(cutoff);
+        if (finishedAt.toEpochMilli() < cutoff) {
+            return;
+        }
+
+        StatisticsSnapshot snapshot = new StatisticsSnapshot(comparisonId, finishedAt.toEpochMilli(), statistics);
+        add(snapshot);
+        if (file != null) {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(objectMapper.writeValueAsString(snapshot));
+                writer.newLine();
+            } catch (IOException e) {
+                log.warn("Unable to append comparison {} to the trend history", comparisonId, e);
+            }
+        }
+    }
+
+    /**
+     * @param from first day to include, or {@code null} for no lower bound
+     * @param to last day to include, or {@code null} for no upper bound
+     */
+    public synchronized List<StatisticsSnapshot> getSnapshots(LocalDate from, LocalDate to) {
+        List<StatisticsSnapshot> selected = new ArrayList<>();
+        for (StatisticsSnapshot snapshot : snapshots) {
+            LocalDate day = day(snapshot);
+            if ((from == null || !day.isBefore(from)) && (to == null || !day.isAfter(to))) {
+                selected.add(snapshot);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @return the rollups of the periods starting between the bounds, oldest first; periods without
+     * comparisons are left out
+     */
+    public synchronized List<TrendBucket> getRollup(Period period, LocalDate from, LocalDate to) {
+        TreeMap<LocalDate, TrendBucket> buckets = period == Period.DAY ? days : weeks;
+        NavigableMap<LocalDate, TrendBucket> range = buckets;
+        if (from != null) {
+            range = range.tailMap(period == Period.DAY ? from : weekStart(from), true);
+        }
+        if (to != null) {
+            range = range.headMap(to, true);
+        }
+        List<TrendBucket> rollup = new ArrayList<>(range.size());
+        for (TrendBucket bucket : range.values()) {
+            rollup.add(bucket.copy());
+        }
+        return rollup;
+    }
+
+    private void add(StatisticsSnapshot snapshot) {
+        snapshots.add(snapshot);
+        LocalDate day = day(snapshot);
+        days.computeIfAbsent(day, start -> new TrendBucket(start.toString())).add(snapshot);
+        weeks.computeIfAbsent(weekStart(day), start -> new TrendBucket(start.toString())).add(snapshot);
+    }
+
+    /**
+     * Drops the snapshots older than the cutoff and the rollups of the periods that ended before it.
+     */
+    private void dropExpired(long cutoff) {
+        int before = snapshots.size();
+        snapshots.removeIf(snapshot -> snapshot.getTimestamp() < cutoff);
+        if (snapshots.size() == before) {
+            return;
+        }
+
+        LocalDate cutoffDay = Instant.ofEpochMilli(cutoff).atZone(zone).toLocalDate();
+        days.headMap(cutoffDay).clear();
+        weeks.headMap(weekStart(cutoffDay)).clear();
+
+        if (file != null) {
+            droppedLines += before - snapshots.size();
+            if (droppedLines >= Math.max(REWRITE_DROPPED_LINES, snapshots.size() / 4)) {
+                try {
+                    rewrite();
+                } catch (IOException e) {
+                    log.warn("Unable to rewrite trend history {}", file, e);
+                }
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long cutoff = clock.millis() - retentionMillis;
+        int dropped = 0;
+        List<StatisticsSnapshot> loaded = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    StatisticsSnapshot snapshot = objectMapper.readValue(line, StatisticsSnapshot.class);
+                    if (snapshot.getTimestamp() < cutoff) {
+                        dropped++;
+                    } else {
+                        loaded.add(snapshot);
+                    }
+                } catch (IOException e) {
+                    // A line cut short by a crash while appending
+                    log.warn("Skipping unreadable trend history line in {}", file);
+                    dropped++;
+                }
+            }
+        }
+
+        loaded.sort(Comparator.comparingLong(StatisticsSnapshot::getTimestamp));
+        loaded.forEach(this::add);
+        if (dropped > 0) {
+            rewrite();
+        }
+    }
+
+    private void rewrite() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (StatisticsSnapshot snapshot : snapshots) {
+                writer.write(objectMapper.writeValueAsString(snapshot));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        droppedLines = 0;
+    }
+
+    private LocalDate day(StatisticsSnapshot snapshot) {
+        return Instant.ofEpochMilli(snapshot.getTimestamp()).atZone(zone).toLocalDate();
+    }
+
+    private static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
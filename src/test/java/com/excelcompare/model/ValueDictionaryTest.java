@@ -0,0 +1,111 @@
+package com.excelcompare.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueDictionaryTest {
+
+    @Test
+    void testSealedHighCardinalityColumnIsPackedAndStillFindsValues() {
+        // Arrange
+        ValueDictionary dictionary = new ValueDictionary();
+        for (int i = 0; i < 1000; i++) {
+            dictionary.encode("POL" + i);
+        }
+        dictionary.encode(null);
+        dictionary.encode("Café");
+        long unsealedBytes = dictionary.getRetainedBytes();
+
+        // Act
+        dictionary.seal(1002);
+        ValueDictionary.Lookup lookup = dictionary.lookup();
+
+        // Assert
+        assertTrue(dictionary.isPacked());
+        assertTrue(dictionary.getRetainedBytes() < unsealedBytes / 3);
+        assertEquals("POL42", dictionary.decode(42));
+        assertNull(dictionary.decode(1000));
+        assertEquals("Café", dictionary.decode(1001));
+        assertEquals(42, lookup.find("POL42"));
+        assertEquals(1000, lookup.find(null));
+        assertEquals(1001, lookup.find("Café"));
+        assertEquals(-1, lookup.find("POL4200"));
+        assertEquals(-1, lookup.find("POL42 "));
+    }
+
+    @Test
+    void testLowCardinalityAndNonLatinColumnsKeepTheirStrings() {
+        // Arrange
+        ValueDictionary types = new ValueDictionary();
+        types.encode("PDF");
+        types.encode("DOCX");
+        ValueDictionary names = new ValueDictionary();
+        names.encode("Document.pdf");
+        names.encode("Документ.pdf");
+
+        // Act
+        types.seal(1000);
+        names.seal(2);
+
+        // Assert
+        assertFalse(types.isPacked());
+        assertFalse(names.isPacked());
+        assertEquals(1, types.lookup().find("DOCX"));
+        assertEquals(1, names.lookup().find("Документ.pdf"));
+    }
+
+    @Test
+    void testEncodingAfterSealKeepsExistingCodes() {
+        // Arrange
+        ValueDictionary dictionary = new ValueDictionary();
+        for (int i = 0; i < 100; i++) {
+            dictionary.encode("Document" + i);
+        }
+        dictionary.seal(100);
+
+        // Act
+        int existing = dictionary.encode("Document7");
+        int added = dictionary.encode("Document100");
+
+        // Assert
+        assertFalse(dictionary.isPacked());
+        assertEquals(7, existing);
+        assertEquals(100, added);
+        assertEquals(101, dictionary.size());
+        assertEquals("Document99", dictionary.decode(99));
+    }
+
+    @Test
+    void testPackedAndPlainValuesCompareAndMatchWithoutDecoding() {
+        // Arrange
+        ValueDictionary packed = new ValueDictionary();
+        for (String value : new String[]{"POL2", " POL1", "POL10", null, "Café"}) {
+            packed.encode(value);
+        }
+        packed.seal(5);
+        ValueDictionary plain = new ValueDictionary();
+        plain.encode("POL10");
+        plain.encode("Café");
+        plain.encode("Документ");
+
+        // Act
+        int[] sorted = packed.sortedCodes();
+        ValueDictionary.Lookup lookup = plain.lookup();
+
+        // Assert
+        assertTrue(packed.isPacked());
+        assertArrayEquals(new int[]{3, 1, 4, 2, 0}, sorted);
+        assertTrue(packed.compare(2, plain, 0) == 0);
+        assertTrue(packed.compare(0, plain, 0) > 0);
+        assertTrue(packed.compare(4, plain, 2) < 0);
+        assertTrue(packed.compare(3, plain, 0) < 0);
+        assertEquals(0, lookup.find(packed, 2));
+        assertEquals(1, lookup.find(packed, 4));
+        assertEquals(-1, lookup.find(packed, 0));
+        assertEquals(2, packed.lookup().find(packed, 2));
+        assertTrue(packed.isTrimmed(0));
+        assertFalse(packed.isTrimmed(1));
+        assertFalse(packed.isTrimmed(3));
+    }
+}
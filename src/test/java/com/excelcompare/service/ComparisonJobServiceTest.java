@@ -0,0 +1,190 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonJobStatus;
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.model.DocumentMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComparisonJobServiceTest {
+
+    private ComparisonJobService jobService;
+    private BlockingExcelService excelService;
+    private final List<ComparisonResult> storedResults = new CopyOnWriteArrayList<>();
+    private final Function<ComparisonResult, String> resultHandler = result -> {
+        storedResults.add(result);
+        return "comparison-" + storedResults.size();
+    };
+
+    @BeforeEach
+    void setUp() {
+        excelService = new BlockingExcelService();
+        jobService = new ComparisonJobService();
+        ReflectionTestUtils.setField(jobService, "excelService", excelService);
+        ReflectionTestUtils.setField(jobService, "comparisonService", new ComparisonService());
+        ReflectionTestUtils.setField(jobService, "workers", 1);
+        ReflectionTestUtils.setField(jobService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(jobService, "retentionMinutes", 60L);
+        jobService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        excelService.release();
+        jobService.shutdown();
+    }
+
+    @Test
+    void testJobReportsStagesAndProgressUntilCompleted() throws Exception {
+        // Arrange
+        ComparisonJob job = jobService.submit(file("block"), file("rows"), resultHandler);
+
+        // Act
+        assertTrue(excelService.started.await(10, TimeUnit.SECONDS));
+        ComparisonJobStatus parsing = job.toStatus();
+        excelService.release();
+        awaitFinished(job);
+        ComparisonJobStatus completed = job.toStatus();
+
+        // Assert
+        assertEquals("PARSING_FILE_A", parsing.getStage());
+        assertEquals(BlockingExcelService.ROWS, parsing.getRowsProcessed());
+        assertTrue(parsing.getProgress() > 0 && parsing.getProgress() < 1);
+        assertNull(parsing.getComparisonId());
+
+        assertEquals("COMPLETED", completed.getStage());
+        assertEquals(2L * BlockingExcelService.ROWS, completed.getRowsProcessed());
+        assertEquals(1.0, completed.getProgress());
+        assertEquals(0L, completed.getEtaMillis());
+        assertEquals("comparison-1", completed.getComparisonId());
+        assertEquals(1, storedResults.size());
+        assertFalse(Files.exists(job.getFileA()));
+        assertFalse(Files.exists(job.getFileB()));
+    }
+
+    @Test
+    void testFullQueueRejectsJob() throws Exception {
+        // Arrange
+        ComparisonJob running = jobService.submit(file("block"), file("rows"), resultHandler);
+        assertTrue(excelService.started.await(10, TimeUnit.SECONDS));
+        ComparisonJob queued = jobService.submit(file("rows"), file("rows"), resultHandler);
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class,
+                () -> jobService.submit(file("rows"), file("rows"), resultHandler));
+        assertEquals(1, jobService.getQueuedJobCount());
+
+        excelService.release();
+        awaitFinished(running);
+        awaitFinished(queued);
+        assertEquals(ComparisonJob.Stage.COMPLETED, queued.getStage());
+    }
+
+    @Test
+    void testCancellingQueuedJobDeletesItsFiles() throws Exception {
+        // Arrange
+        ComparisonJob running = jobService.submit(file("block"), file("rows"), resultHandler);
+        assertTrue(excelService.started.await(10, TimeUnit.SECONDS));
+        ComparisonJob queued = jobService.submit(file("rows"), file("rows"), resultHandler);
+
+        // Act
+        jobService.cancel(queued.getId());
+
+        // Assert
+        assertEquals(ComparisonJob.Stage.CANCELLED, queued.getStage());
+        assertFalse(Files.exists(queued.getFileA()));
+        assertFalse(Files.exists(queued.getFileB()));
+        assertEquals(0, jobService.getQueuedJobCount());
+
+        excelService.release();
+        awaitFinished(running);
+        assertEquals(1, storedResults.size());
+    }
+
+    @Test
+    void testCancellingRunningJobStopsItThroughTheProgressListener() throws Exception {
+        // Arrange
+        ComparisonJob running = jobService.submit(file("block"), file("rows"), resultHandler);
+        assertTrue(excelService.started.await(10, TimeUnit.SECONDS));
+
+        // Act
+        jobService.cancel(running.getId());
+        awaitFinished(running);
+
+        // Assert
+        assertEquals(ComparisonJob.Stage.CANCELLED, running.getStage());
+        assertTrue(excelService.stoppedByListener);
+        assertTrue(storedResults.isEmpty());
+        assertFalse(Files.exists(running.getFileA()));
+        assertFalse(Files.exists(running.getFileB()));
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "manifest.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitFinished(ComparisonJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.isFinished()) {
+            assertTrue(System.nanoTime() < deadline, "Job did not finish in time");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Emits a few documents for every file; a file whose content is "block" then waits until
+     * released or until the listener is cancelled.
+     */
+    private static class BlockingExcelService extends ExcelService {
+        static final int ROWS = 5;
+
+        final CountDownLatch started = new CountDownLatch(1);
+        volatile boolean released;
+        volatile boolean stoppedByListener;
+
+        void release() {
+            released = true;
+        }
+
+        @Override
+        public void readExcelFile(Path path, Consumer<DocumentMetadata> consumer, ProgressListener listener)
+                throws IOException {
+            for (int i = 0; i < ROWS; i++) {
+                consumer.accept(new DocumentMetadata("POL" + i, "Location1", "Folder1", "Document" + i + ".pdf",
+                        "CLAIM" + i, "John Doe", "2023-01-01", null, "PDF", "Restricted", "Active", "No", "Y"));
+            }
+            listener.onProgress(0.5);
+
+            if (Files.readString(path).equals("block")) {
+                started.countDown();
+                // Parks rather than sleeps, so only the listener can stop the wait, not an interrupt
+                while (!released) {
+                    if (listener.isCancelled()) {
+                        stoppedByListener = true;
+                        throw new CancellationException();
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                }
+            }
+        }
+    }
+}
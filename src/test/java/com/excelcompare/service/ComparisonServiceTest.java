@@ -1,13 +1,20 @@
 package com.excelcompare.service;
 
 import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.MismatchTable;
+import com.excelcompare.dto.NormalizedComparisonResult;
+import com.excelcompare.model.DocumentField;
 import com.excelcompare.model.DocumentMetadata;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -109,4 +116,254 @@ class ComparisonServiceTest {
         assertEquals(1, result.getMissingInB().size()); // doc1 is missing in B
         assertEquals(0, result.getMatchedDocuments().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompareDocuments_SpilledToDiskMatchesInMemory() throws IOException {
+        // Arrange
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            documentsA.add(new DocumentMetadata(
+                    "POL" + i, "Location1", "Folder1", "Document" + i + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1",
+                    "PDF", "Restricted", "Active", "No", "Y"
+            ));
+        }
+        for (int i = 10; i < 60; i++) {
+            documentsB.add(new DocumentMetadata(
+                    "POL" + i, i % 5 == 0 ? "Location2" : "Location1", "Folder1", "Document" + i + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1",
+                    "PDF", "Restricted", "Active", "No", i % 3 == 0 ? "N" : "Y"
+            ));
+        }
+
+        // Act
+        ComparisonResult inMemory = comparisonService.compareDocuments(documentsA, documentsB);
+        ComparisonResult spilled;
+        try (DocumentSpool spoolA = new DocumentSpool(4, 0);
+             DocumentSpool spoolB = new DocumentSpool(4, 0)) {
+            documentsA.forEach(spoolA::add);
+            documentsB.forEach(spoolB::add);
+            assertTrue(spoolA.isSpilled());
+            spilled = comparisonService.compareDocuments(spoolA, spoolB);
+        }
+
+        // Assert
+        assertEquals(10, spilled.getMissingInB().size());
+        assertEquals(10, spilled.getMissingInA().size());
+        assertEquals(inMemory.getMetadataMismatches().size(), spilled.getMetadataMismatches().size());
+        assertEquals(inMemory.getMatchedDocuments().size(), spilled.getMatchedDocuments().size());
+        assertEquals(inMemory.getStatistics().getSuccessfulMigrations(), spilled.getStatistics().getSuccessfulMigrations());
+        assertEquals(inMemory.getStatistics().getFailedMigrations(), spilled.getStatistics().getFailedMigrations());
+        assertEquals(inMemory.getStatistics().getMismatchTypesCounts(), spilled.getStatistics().getMismatchTypesCounts());
+    }
+
+    @Test
+    void testCompareDocuments_SpilledPartitionsReadInParallelKeepEveryRow() throws IOException {
+        // Arrange
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            documentsA.add(new DocumentMetadata(
+                    "POL" + i, "Location1", "Folder1", "Document" + i + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1",
+                    "PDF", "Restricted", "Active", "No", "Y"
+            ));
+        }
+        for (int i = 500; i < 3500; i++) {
+            documentsB.add(new DocumentMetadata(
+                    "POL" + i, i % 5 == 0 ? "Location2" : "Location1", "Folder1", "Document" + i + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1",
+                    "PDF", "Restricted", "Active", "No", "Y"
+            ));
+        }
+        ComparisonResult inMemory = comparisonService.compareDocuments(documentsA, documentsB);
+        ReflectionTestUtils.setField(comparisonService, "parallelism", 4);
+
+        // Act
+        ComparisonResult spilled;
+        try (DocumentSpool spoolA = new DocumentSpool(16, 0);
+             DocumentSpool spoolB = new DocumentSpool(16, 0)) {
+            documentsA.forEach(spoolA::add);
+            documentsB.forEach(spoolB::add);
+            spilled = comparisonService.compareDocuments(spoolA, spoolB);
+        } finally {
+            comparisonService.shutdown();
+        }
+
+        // Assert
+        assertEquals(500, spilled.getMissingInB().size());
+        assertEquals(500, spilled.getMissingInA().size());
+        assertEquals(500, spilled.getMetadataMismatches().size());
+        assertEquals(inMemory.getMatchedDocuments().size(), spilled.getMatchedDocuments().size());
+        assertEquals(3000, spilled.getStatistics().getTotalDocumentsA());
+        assertEquals(3000, spilled.getStatistics().getTotalDocumentsB());
+    }
+
+    @Test
+    void testCompareDocuments_ParallelShardsAreDeterministic() {
+        // Arrange
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            documentsA.add(new DocumentMetadata(
+                    "POL" + i, "Location1", "Folder1", "Document" + i + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1",
+                    "PDF", "Restricted", "Active", "No", "Y"
+            ));
+        }
+        for (int i = 20; i < 220; i++) {
+            documentsB.add(new DocumentMetadata(
+                    "POL" + i, i % 7 == 0 ? "Location2" : "Location1", i % 11 == 0 ? "Folder2" : "Folder1",
+                    "Document" + i + ".pdf", "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1",
+                    "PDF", "Restricted", "Active", "No", "Y"
+            ));
+        }
+        ComparisonResult sequential = comparisonService.compareDocuments(documentsA, documentsB);
+
+        // Act
+        ReflectionTestUtils.setField(comparisonService, "parallelism", 3);
+        ReflectionTestUtils.setField(comparisonService, "parallelThreshold", 0);
+        ComparisonResult parallel;
+        try {
+            parallel = comparisonService.compareDocuments(documentsA, documentsB);
+        } finally {
+            comparisonService.shutdown();
+        }
+
+        // Assert
+        assertEquals(policyNumbers(sequential.getMissingInB()), policyNumbers(parallel.getMissingInB()));
+        assertEquals(policyNumbers(sequential.getMissingInA()), policyNumbers(parallel.getMissingInA()));
+        assertEquals(policyNumbers(sequential.getMatchedDocuments()), policyNumbers(parallel.getMatchedDocuments()));
+        assertEquals(
+                sequential.getMetadataMismatches().stream().map(m -> m.getPolicyNo() + ":" + m.getFieldName()).toList(),
+                parallel.getMetadataMismatches().stream().map(m -> m.getPolicyNo() + ":" + m.getFieldName()).toList());
+        assertEquals(sequential.getStatistics().getMismatchTypesCounts(), parallel.getStatistics().getMismatchTypesCounts());
+    }
+
+    @Test
+    void testCompareDocuments_CompositeMatchKeyComparesEveryDocumentOfAPolicy() {
+        // Arrange
+        List<DocumentMetadata> documentsA = List.of(
+                document("POL001", "CLAIM001", "Letter.pdf", "Location1"),
+                document("POL001", "CLAIM001", "Photo.jpg", "Location1"),
+                document("POL001", "CLAIM002", "Letter.pdf", "Location1"));
+        List<DocumentMetadata> documentsB = List.of(
+                document("POL001", "CLAIM002", "Letter.pdf", "Location1"),
+                document("POL001", "CLAIM001", "Photo.jpg", "Location2"),
+                document("POL001", "CLAIM001", "Letter.pdf", "Location1"));
+        ReflectionTestUtils.setField(comparisonService, "matchKey", "policyNo,claimNo,documentName");
+
+        // Act
+        ComparisonResult result = comparisonService.compareDocuments(documentsA, documentsB);
+
+        // Assert
+        assertEquals(List.of("policyNo", "claimNo", "documentName"), result.getStatistics().getMatchKey());
+        assertEquals(2, result.getMatchedDocuments().size());
+        assertEquals(1, result.getMetadataMismatches().size());
+        assertEquals("Photo.jpg", result.getMetadataMismatches().get(0).getDocumentA().getDocumentName());
+        assertEquals(0, result.getStatistics().getUnmatchedDocuments());
+        assertEquals(0, result.getStatistics().getDuplicateGroups());
+    }
+
+    @Test
+    void testCompareDocuments_DuplicateKeysArePairedAndReported() {
+        // Arrange
+        List<DocumentMetadata> documentsA = List.of(
+                document("POL001", "CLAIM001", "Letter.pdf", "Location1"),
+                document("POL001", "CLAIM002", "Letter.pdf", "Location1"),
+                document("POL001", "CLAIM003", "Letter.pdf", "Location1"),
+                document("POL002", "CLAIM004", "Letter.pdf", "Location1"));
+        List<DocumentMetadata> documentsB = List.of(
+                document("POL001", "CLAIM003", "Letter.pdf", "Location1"),
+                document("POL001", "CLAIM001", "Letter.pdf", "Location2"),
+                document("POL002", "CLAIM004", "Letter.pdf", "Location1"));
+
+        // Act
+        ComparisonResult result = comparisonService.compareDocuments(documentsA, documentsB);
+
+        // Assert
+        assertEquals(1, result.getStatistics().getDuplicateGroups());
+        assertEquals(Map.of("policyNo", "POL001"), result.getDuplicateGroups().get(0).getKey());
+        assertEquals(3, result.getDuplicateGroups().get(0).getRowsA());
+        assertEquals(2, result.getDuplicateGroups().get(0).getRowsB());
+        // The identical CLAIM003 rows pair up first, then CLAIM001 pairs with the remaining row of B
+        assertEquals(List.of("CLAIM003", "CLAIM004"),
+                result.getMatchedDocuments().stream().map(DocumentMetadata::getClaimNo).toList());
+        assertEquals(1, result.getMetadataMismatches().size());
+        assertEquals("documentLocation", result.getMetadataMismatches().get(0).getFieldName());
+        assertEquals(1, result.getMissingInB().size());
+        assertEquals("CLAIM002", result.getMissingInB().get(0).getClaimNo());
+    }
+
+    @Test
+    void testCompareDocuments_FieldRulesSuppressFalseMismatches() {
+        // Arrange
+        DocumentMetadata docA = new DocumentMetadata(
+                "POL001", "Location1", "Folder1", "Document1.pdf",
+                "CLAIM001", "JOHN DOE", "Sun Jan 15 00:00:00 UTC 2023", "Adjustor1",
+                "PDF", "Restricted", "Active", "No", "Y"
+        );
+        DocumentMetadata docB = new DocumentMetadata(
+                "POL001", "Location9", "Folder1", "Document1.pdf",
+                "CLAIM001", "John Doe", "2023-01-15", "Adjustor2",
+                "PDF", "Restricted", "Active", "No", "Y"
+        );
+        ReflectionTestUtils.setField(comparisonService, "fieldRules", FieldRules.parse(Map.of(
+                "dateOfLoss", "date",
+                "claimant", "case-insensitive",
+                "documentLocation", "regex:\\d+$=>",
+                "adjustorName", "ignore")));
+
+        // Act
+        ComparisonResult result = comparisonService.compareDocuments(List.of(docA), List.of(docB));
+
+        // Assert
+        assertEquals(0, result.getMetadataMismatches().size());
+        assertEquals(1, result.getMatchedDocuments().size());
+    }
+
+    @Test
+    void testNormalizedResult_HoldsEachMismatchingPairOnce() {
+        // Arrange
+        List<DocumentMetadata> documentsA = List.of(
+                document("POL001", "CLAIM001", "Document1.pdf", "Location1"),
+                document("POL002", "CLAIM002", "Document2.pdf", "Location1"));
+        List<DocumentMetadata> documentsB = List.of(
+                document("POL001", "CLAIM009", "Document1.pdf", "Location2"),
+                document("POL002", "CLAIM002", "Document2.pdf", "Location2"));
+        ComparisonResult result = comparisonService.compareDocuments(documentsA, documentsB);
+
+        // Act
+        NormalizedComparisonResult normalized = NormalizedComparisonResult.of(result);
+        ComparisonResult restored = normalized.toResult();
+
+        // Assert
+        MismatchTable table = normalized.getMetadataMismatches();
+        assertEquals(3, table.getMismatches().size());
+        assertEquals(4, table.getDocuments().size());
+        MismatchTable.MismatchReference first = table.getMismatches().get(0);
+        assertEquals(DocumentField.DOCUMENT_LOCATION.ordinal(), first.getField());
+        assertEquals("documentLocation", table.getFields().get(first.getField()));
+        assertEquals(0, first.getDocumentA());
+        assertEquals(1, first.getDocumentB());
+        assertEquals(0, table.getMismatches().get(1).getDocumentA());
+        assertEquals(2, table.getMismatches().get(2).getDocumentA());
+        for (int i = 0; i < result.getMetadataMismatches().size(); i++) {
+            assertEquals(result.getMetadataMismatches().get(i).getFieldName(), restored.getMetadataMismatches().get(i).getFieldName());
+            assertEquals(result.getMetadataMismatches().get(i).getValueB(), restored.getMetadataMismatches().get(i).getValueB());
+        }
+    }
+
+    private DocumentMetadata document(String policyNo, String claimNo, String documentName, String location) {
+        return new DocumentMetadata(
+                policyNo, location, "Folder1", documentName,
+                claimNo, "John Doe", "2023-01-01", "Adjustor1",
+                "PDF", "Restricted", "Active", "No", "Y"
+        );
+    }
+
+    private List<String> policyNumbers(List<DocumentMetadata> documents) {
+        return documents.stream().map(DocumentMetadata::getPolicyNo).toList();
+    }
+}
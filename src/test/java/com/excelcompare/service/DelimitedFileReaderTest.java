@@ -0,0 +1,68 @@
+package com.excelcompare.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelimitedFileReaderTest {
+
+    private static final String CSV = "\uFEFFName,Skipped,Note\r\n"
+            + "plain,x,\"quoted, with comma\"\r\n"
+            + "\r\n"
+            + "\"multi\nline\",x,\"say \"\"hi\"\"\"\r\n"
+            + "short\r\n"
+            + "last,x,no newline";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testQuotedCellsLineEndingsAndShortRows() throws IOException {
+        Path file = write("manifest.csv", CSV);
+
+        List<List<String>> rows = read(file, 1 << 20);
+
+        assertEquals(List.of(
+                List.of("plain", "quoted, with comma"),
+                List.of("multi\nline", "say \"hi\""),
+                List.of("short", ""),
+                List.of("last", "no newline")), rows);
+    }
+
+    @Test
+    void testRowsSpanningMappedWindows() throws IOException {
+        Path file = write("manifest.csv", CSV);
+
+        // Windows smaller than a row force remapping and growing of the window
+        assertEquals(read(file, 1 << 20), read(file, 8));
+    }
+
+    @Test
+    void testTabSeparatedFile() throws IOException {
+        Path file = write("manifest.tsv", "Note\tName\nwith, comma\tfirst\n");
+
+        assertEquals(List.of(List.of("first", "with, comma")), read(file, 1 << 20));
+        assertTrue(DelimitedFileReader.isDelimited(file));
+    }
+
+    private List<List<String>> read(Path file, int windowSize) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        DelimitedFileReader.read(file, 2, headers -> new int[]{headers.indexOf("Name"), headers.indexOf("Note")},
+                values -> rows.add(List.of(values)), ProgressListener.NONE, windowSize);
+        return rows;
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,206 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.store.ManifestCache;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelServiceTest {
+
+    private static final String XLSX_CONTENT_TYPE =
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private ExcelService excelService;
+
+    @BeforeEach
+    void setUp() {
+        excelService = new ExcelService();
+    }
+
+    @Test
+    void testReadExcelFile_StreamingMatchesWorkbookReader() throws IOException {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("fileA", "manifest.xlsx", XLSX_CONTENT_TYPE, createWorkbook());
+
+        // Act
+        ReflectionTestUtils.setField(excelService, "streamingReader", false);
+        List<DocumentMetadata> workbookRows = excelService.readExcelFile(file);
+        ReflectionTestUtils.setField(excelService, "streamingReader", true);
+        List<DocumentMetadata> streamedRows = excelService.readExcelFile(file);
+
+        // Assert
+        assertEquals(3, workbookRows.size()); // row without a policy number is skipped
+        assertEquals(workbookRows.size(), streamedRows.size());
+        for (int i = 0; i < workbookRows.size(); i++) {
+            assertSameRow(workbookRows.get(i), streamedRows.get(i));
+        }
+        assertEquals("12345", streamedRows.get(1).getClaimNo());
+        assertEquals("true", streamedRows.get(1).getDraft());
+        assertEquals("", streamedRows.get(2).getDocumentName());
+    }
+
+    @Test
+    void testReadExcelFile_LeavesTheUploadReadable() throws IOException {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("fileA", "manifest.xlsx", XLSX_CONTENT_TYPE, createWorkbook()) {
+            @Override
+            public void transferTo(File dest) {
+                throw new IllegalStateException("The upload was moved");
+            }
+        };
+
+        // Act
+        List<DocumentMetadata> documents = excelService.readExcelFile(file);
+        ColumnarManifest manifest = excelService.readManifest(file);
+
+        // Assert
+        assertEquals(3, documents.size());
+        assertEquals(3, manifest.size());
+    }
+
+    @Test
+    void testReadManifest_MatchesDocumentRows() throws IOException {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("fileA", "manifest.xlsx", XLSX_CONTENT_TYPE, createWorkbook());
+
+        // Act
+        List<DocumentMetadata> documents = excelService.readExcelFile(file);
+        ColumnarManifest manifest = excelService.readManifest(file);
+
+        // Assert
+        assertEquals(documents.size(), manifest.size());
+        for (int i = 0; i < documents.size(); i++) {
+            assertSameRow(documents.get(i), manifest.toDocument(i));
+        }
+        assertEquals(1, manifest.dictionary(DocumentField.FOLDER_HIERARCHY).size()); // every row is empty
+    }
+
+    @Test
+    void testReadExcelFile_RepeatedUploadIsServedFromManifestCache() throws IOException {
+        // Arrange
+        ManifestCache manifestCache = new ManifestCache(16 * 1024 * 1024, null, 0);
+        ReflectionTestUtils.setField(excelService, "manifestCache", manifestCache);
+        MockMultipartFile file = new MockMultipartFile("fileA", "manifest.xlsx", XLSX_CONTENT_TYPE, createWorkbook());
+
+        // Act
+        List<DocumentMetadata> parsedRows = excelService.readExcelFile(file);
+        List<DocumentMetadata> cachedRows = excelService.readExcelFile(file);
+
+        // Assert
+        assertEquals(1, manifestCache.getStatistics().getMisses());
+        assertEquals(1, manifestCache.getStatistics().getMemoryHits());
+        assertEquals(parsedRows.size(), cachedRows.size());
+        for (int i = 0; i < parsedRows.size(); i++) {
+            assertSameRow(parsedRows.get(i), cachedRows.get(i));
+        }
+    }
+
+    @Test
+    void testReadExcelFile_CsvMatchesWorkbookReader() throws IOException {
+        // Arrange
+        MockMultipartFile workbook = new MockMultipartFile("fileA", "manifest.xlsx", XLSX_CONTENT_TYPE, createWorkbook());
+        List<DocumentMetadata> workbookRows = excelService.readExcelFile(workbook);
+        StringBuilder csv = new StringBuilder("MIGRATION,Policy No,Document Name,Claim no,Draft,Unused\n");
+        for (DocumentMetadata doc : workbookRows) {
+            csv.append(doc.getMigration()).append(',').append(doc.getPolicyNo()).append(",\"")
+                    .append(doc.getDocumentName()).append("\",").append(doc.getClaimNo()).append(',')
+                    .append(doc.getDraft()).append(",ignored\n");
+        }
+        csv.append(",,no policy number,,,\n");
+        MockMultipartFile file = new MockMultipartFile("fileA", "manifest.csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        List<DocumentMetadata> csvRows = excelService.readExcelFile(file);
+
+        // Assert
+        assertTrue(excelService.isValidExcelFile(file));
+        assertEquals(workbookRows.size(), csvRows.size());
+        for (int i = 0; i < workbookRows.size(); i++) {
+            assertEquals(workbookRows.get(i).getPolicyNo(), csvRows.get(i).getPolicyNo());
+            assertEquals(workbookRows.get(i).getDocumentName(), csvRows.get(i).getDocumentName());
+            assertEquals(workbookRows.get(i).getClaimNo(), csvRows.get(i).getClaimNo());
+            assertEquals(workbookRows.get(i).getDraft(), csvRows.get(i).getDraft());
+            assertEquals(workbookRows.get(i).getMigration(), csvRows.get(i).getMigration());
+            assertEquals("", csvRows.get(i).getStatus()); // no such column
+        }
+    }
+
+    private void assertSameRow(DocumentMetadata expected, DocumentMetadata actual) {
+        assertEquals(expected.getPolicyNo(), actual.getPolicyNo());
+        assertEquals(expected.getDocumentLocation(), actual.getDocumentLocation());
+        assertEquals(expected.getFolderHierarchy(), actual.getFolderHierarchy());
+        assertEquals(expected.getDocumentName(), actual.getDocumentName());
+        assertEquals(expected.getClaimNo(), actual.getClaimNo());
+        assertEquals(expected.getClaimant(), actual.getClaimant());
+        assertEquals(expected.getDateOfLoss(), actual.getDateOfLoss());
+        assertEquals(expected.getAdjustorName(), actual.getAdjustorName());
+        assertEquals(expected.getDocumentType(), actual.getDocumentType());
+        assertEquals(expected.getSecurityType(), actual.getSecurityType());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getDraft(), actual.getDraft());
+        assertEquals(expected.getMigration(), actual.getMigration());
+    }
+
+    private byte[] createWorkbook() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet("Manifest");
+            CreationHelper helper = workbook.getCreationHelper();
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd"));
+
+            String[] headers = {"Policy No", "Document location", "Folder hierarchy", "Document name",
+                    "Claim no", "Claimant", "Date of loss", "Adjustor name", "Document type",
+                    "Security type", "Status", "Draft", "Migration", "Unmapped"};
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+            }
+
+            Row first = sheet.createRow(1);
+            first.createCell(0).setCellValue("POL001");
+            first.createCell(1).setCellValue("Location1");
+            first.createCell(3).setCellValue("Document1.pdf");
+            first.createCell(5).setCellValue("John Doe");
+            first.createCell(6).setCellValue(new Date(1672531200000L));
+            first.getCell(6).setCellStyle(dateStyle);
+            first.createCell(12).setCellValue("Y");
+
+            Row second = sheet.createRow(2);
+            second.createCell(0).setCellValue("POL002");
+            second.createCell(4).setCellValue(12345.7);
+            second.createCell(7).setCellFormula("CONCATENATE(\"Adj\",\"ustor\")");
+            second.createCell(11).setCellValue(true);
+
+            // Row without a policy number is ignored by both readers
+            Row skipped = sheet.createRow(4);
+            skipped.createCell(3).setCellValue("Orphan.pdf");
+
+            Row third = sheet.createRow(5);
+            third.createCell(0).setCellValue("POL003");
+            third.createCell(3).setBlank();
+
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.excelcompare.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldRuleTest {
+
+    @Test
+    void testDateRuleReadsDateCellsAndTextDatesAlike() {
+        // Arrange
+        FieldRule rule = FieldRule.parse("date");
+
+        // Act & Assert
+        assertEquals("2023-01-15", rule.canonicalize("Sun Jan 15 00:00:00 UTC 2023"));
+        assertEquals("2023-01-15", rule.canonicalize(" 2023-01-15 "));
+        assertEquals("2023-01-15", rule.canonicalize("1/15/2023"));
+        assertEquals("unknown", rule.canonicalize("unknown"));
+        assertEquals("2023-01-15", FieldRule.parse("date:dd.MM.yyyy").canonicalize("15.01.2023"));
+    }
+
+    @Test
+    void testRegexAndNumericRules() {
+        // Arrange
+        FieldRule regex = FieldRule.parse("regex:^\\\\\\\\server\\d+\\\\=>");
+        FieldRule numeric = FieldRule.parse("numeric:0.5");
+
+        // Act & Assert
+        assertEquals("claims\\2023", regex.canonicalize("\\\\server01\\claims\\2023"));
+        assertEquals("1200", numeric.canonicalize("1,200.00"));
+        assertEquals(0.5, numeric.getTolerance());
+        assertTrue(numeric.isNumeric());
+        assertFalse(FieldRule.parse("case-insensitive").isNumeric());
+    }
+
+    @Test
+    void testInvalidRulesAreRejectedWhenParsed() {
+        assertThrows(IllegalArgumentException.class, () -> FieldRule.parse("fuzzy"));
+        assertThrows(IllegalArgumentException.class, () -> FieldRule.parse("numeric:-1"));
+        assertThrows(IllegalArgumentException.class, () -> FieldRule.parse("regex:(a=>$2"));
+        assertThrows(IllegalArgumentException.class, () -> FieldRule.parse("regex:(a)=>$2"));
+        assertThrows(IllegalArgumentException.class, () -> FieldRules.parse(Map.of("policyNo", "ignore")));
+    }
+}
@@ -0,0 +1,136 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.IncrementalComparisonResult;
+import com.excelcompare.store.CachingComparisonResultStore;
+import com.excelcompare.store.ManifestCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalComparisonServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private IncrementalComparisonService incrementalComparisonService;
+    private CachingComparisonResultStore resultStore;
+
+    @BeforeEach
+    void setUp() {
+        resultStore = new CachingComparisonResultStore(
+                1_000_000, Duration.ofMinutes(10), null, Duration.ofHours(1), new ObjectMapper());
+        ManifestCache manifestCache = new ManifestCache(64 * 1024 * 1024, null, 0);
+        ExcelService excelService = new ExcelService();
+        ReflectionTestUtils.setField(excelService, "manifestCache", manifestCache);
+        incrementalComparisonService = new IncrementalComparisonService();
+        ReflectionTestUtils.setField(incrementalComparisonService, "excelService", excelService);
+        ReflectionTestUtils.setField(incrementalComparisonService, "manifestCache", manifestCache);
+        ReflectionTestUtils.setField(incrementalComparisonService, "parseExecutor", new ParseExecutor());
+        ReflectionTestUtils.setField(incrementalComparisonService, "comparisonService", new ComparisonService());
+        ReflectionTestUtils.setField(incrementalComparisonService, "resultStore", resultStore);
+    }
+
+    @Test
+    void testOnlyChangedPoliciesAreReportedInTheDelta() throws IOException {
+        // Arrange
+        Path fileA = writeManifest("a.xlsx", List.of(
+                row("POL001", "Doc1.pdf", "Y"), row("POL002", "Doc2.pdf", "Y"),
+                row("POL003", "Doc3.pdf", "Y"), row("POL004", "Doc4.pdf", "Y")));
+        Path firstB = writeManifest("b1.xlsx", List.of(
+                row("POL001", "Doc1.pdf", "Y"), row("POL002", "Wrong.pdf", "Y"),
+                row("POL003", "Doc3.pdf", "Y")));
+        Path secondB = writeManifest("b2.xlsx", List.of(
+                row("POL001", "Broken.pdf", "Y"), row("POL002", "Doc2.pdf", "Y"),
+                row("POL003", "Doc3.pdf", "Y")));
+
+        // Act
+        IncrementalComparisonResult baseline = incrementalComparisonService.compare(
+                fileA, firstB, null, resultStore::save);
+        IncrementalComparisonResult rerun = incrementalComparisonService.compare(
+                fileA, secondB, baseline.getComparisonId(), resultStore::save);
+
+        // Assert
+        assertFalse(baseline.isFileAReused());
+        assertTrue(rerun.isFileAReused());
+        assertEquals(List.of("POL002"), rerun.getNewlyFixed());
+        assertEquals(List.of("POL001"), rerun.getNewlyBroken());
+        assertEquals(2, rerun.getChangedPolicies());
+        assertEquals(2, rerun.getReusedPolicies());
+
+        ComparisonResult incremental = resultStore.find(rerun.getComparisonId()).orElseThrow();
+        ComparisonResult full = new ComparisonService().compareManifests(
+                new ExcelService().readManifest(fileA, ProgressListener.NONE),
+                new ExcelService().readManifest(secondB, ProgressListener.NONE), ProgressListener.NONE);
+        assertEquals(full.getStatistics().getMetadataMismatches(), incremental.getStatistics().getMetadataMismatches());
+        assertEquals(full.getStatistics().getUnmatchedDocuments(), incremental.getStatistics().getUnmatchedDocuments());
+        assertEquals(full.getMatchedDocuments().size(), incremental.getMatchedDocuments().size());
+        assertEquals("POL004", incremental.getMissingInB().get(0).getPolicyNo());
+        assertEquals("POL001", incremental.getMetadataMismatches().get(0).getPolicyNo());
+    }
+
+    @Test
+    void testUnknownBaselineIsRejected() throws IOException {
+        Path file = writeManifest("a.xlsx", List.<String[]>of(row("POL001", "Doc1.pdf", "Y")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> incrementalComparisonService.compare(file, file, "unknown", resultStore::save));
+    }
+
+    @Test
+    void testBaselinesAreBoundedByCountAndWeight() throws IOException {
+        // Arrange
+        Path file = writeManifest("a.xlsx", List.<String[]>of(row("POL001", "Doc1.pdf", "Y")));
+        ReflectionTestUtils.setField(incrementalComparisonService, "baselineCount", 1);
+        String first = incrementalComparisonService.compare(file, file, null, resultStore::save).getComparisonId();
+        String second = incrementalComparisonService.compare(file, file, null, resultStore::save).getComparisonId();
+
+        // Act
+        ReflectionTestUtils.setField(incrementalComparisonService, "baselinesMaxMb", 0L);
+        String third = incrementalComparisonService.compare(file, file, second, resultStore::save).getComparisonId();
+
+        // Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> incrementalComparisonService.compare(file, file, first, resultStore::save));
+        assertThrows(IllegalArgumentException.class,
+                () -> incrementalComparisonService.compare(file, file, third, resultStore::save));
+    }
+
+    private String[] row(String policyNo, String documentName, String migration) {
+        return new String[]{policyNo, documentName, migration};
+    }
+
+    private Path writeManifest(String name, List<String[]> rows) throws IOException {
+        Path file = directory.resolve(name);
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             OutputStream outputStream = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Manifest");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Policy No");
+            header.createCell(1).setCellValue("Document name");
+            header.createCell(2).setCellValue("Migration");
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = sheet.createRow(i + 1);
+                for (int c = 0; c < rows.get(i).length; c++) {
+                    row.createCell(c).setCellValue(rows.get(i)[c]);
+                }
+            }
+            workbook.write(outputStream);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,120 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult.SheetRowCount;
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestIngestionServiceTest {
+
+    private static final String XLSX_CONTENT_TYPE =
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private ManifestIngestionService manifestIngestionService;
+    private ParseExecutor parseExecutor;
+
+    @BeforeEach
+    void setUp() {
+        parseExecutor = new ParseExecutor();
+        manifestIngestionService = new ManifestIngestionService();
+        ReflectionTestUtils.setField(manifestIngestionService, "excelService", new ExcelService());
+        ReflectionTestUtils.setField(manifestIngestionService, "parseExecutor", parseExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parseExecutor.shutdown();
+    }
+
+    @Test
+    void testEverySheetOfEveryFileIsMergedInOrder() throws IOException {
+        // Arrange
+        MockMultipartFile first = workbook("first.xlsx", "Part1", List.of("POL001", "POL002"), "Part2", List.of("POL003"));
+        MockMultipartFile second = workbook("second.xlsx", "Part1", List.of("POL004"), "Notes", List.of());
+        MockMultipartFile csv = new MockMultipartFile("fileB", "extract.csv", "text/csv",
+                "Policy No,Document name\nPOL001,Doc.pdf\nPOL002,Doc.pdf\n".getBytes(StandardCharsets.UTF_8));
+
+        try (DocumentSpool documentsA = new DocumentSpool(4, Long.MAX_VALUE);
+             DocumentSpool documentsB = new DocumentSpool(4, Long.MAX_VALUE)) {
+            // Act
+            List<List<SheetRowCount>> counts = manifestIngestionService.readSheets(
+                    List.of(List.of(first, second), List.of(csv)), SheetSelection.ALL, List.of(documentsA, documentsB));
+
+            // Assert
+            assertEquals(List.of("POL001", "POL002", "POL003", "POL004"), policies(documentsA.getBufferedDocuments()));
+            assertEquals(2, documentsB.size());
+            assertEquals(List.of("first.xlsx/Part1=2", "first.xlsx/Part2=1", "second.xlsx/Part1=1", "second.xlsx/Notes=0"),
+                    describe(counts.get(0)));
+            assertEquals(List.of("extract.csv/null=2"), describe(counts.get(1)));
+        }
+    }
+
+    @Test
+    void testNamedSheetsAreSelected() throws IOException {
+        MockMultipartFile first = workbook("first.xlsx", "Part1", List.of("POL001"), "Part2", List.of("POL002"));
+
+        try (DocumentSpool documents = new DocumentSpool(4, Long.MAX_VALUE)) {
+            List<List<SheetRowCount>> counts = manifestIngestionService.readSheets(
+                    List.of(List.of(first)), SheetSelection.parse("Part2"), List.of(documents));
+
+            assertEquals(List.of("POL002"), policies(documents.getBufferedDocuments()));
+            assertEquals(List.of("first.xlsx/Part2=1"), describe(counts.get(0)));
+            assertThrows(IllegalArgumentException.class, () -> manifestIngestionService.readSheets(
+                    List.of(List.of(first)), SheetSelection.parse("Part3"), List.of(documents)));
+        }
+    }
+
+    private List<String> policies(ColumnarManifest manifest) {
+        List<String> policies = new ArrayList<>();
+        for (int row = 0; row < manifest.size(); row++) {
+            policies.add(manifest.value(row, DocumentField.POLICY_NO));
+        }
+        return policies;
+    }
+
+    private List<String> describe(List<SheetRowCount> counts) {
+        List<String> described = new ArrayList<>();
+        for (SheetRowCount count : counts) {
+            described.add(count.getFileName() + "/" + count.getSheetName() + "=" + count.getRows());
+        }
+        return described;
+    }
+
+    private MockMultipartFile workbook(String name, String firstSheet, List<String> firstPolicies,
+                                       String secondSheet, List<String> secondPolicies) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            addSheet(workbook, firstSheet, firstPolicies);
+            addSheet(workbook, secondSheet, secondPolicies);
+            workbook.write(out);
+            return new MockMultipartFile("fileA", name, XLSX_CONTENT_TYPE, out.toByteArray());
+        }
+    }
+
+    private void addSheet(XSSFWorkbook workbook, String name, List<String> policies) {
+        Sheet sheet = workbook.createSheet(name);
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Policy No");
+        header.createCell(1).setCellValue("Document name");
+        for (int i = 0; i < policies.size(); i++) {
+            Row row = sheet.createRow(i + 1);
+            row.createCell(0).setCellValue(policies.get(i));
+            row.createCell(1).setCellValue("Doc" + i + ".pdf");
+        }
+    }
+}
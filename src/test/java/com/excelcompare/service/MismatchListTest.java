@@ -0,0 +1,83 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import org.junit.jupiter.api.Test;
+
+import static com.excelcompare.service.RowListTest.document;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MismatchListTest {
+
+    @Test
+    void testAppendKeepsEveryPairWithItsFields() {
+        // Arrange
+        ColumnarManifest manifestA = new ColumnarManifest();
+        manifestA.add(document("POL1", "a.pdf"));
+        manifestA.add(document("POL2", "b.pdf"));
+        ColumnarManifest manifestB = new ColumnarManifest();
+        manifestB.add(document("POL1", "a2.pdf"));
+        manifestB.add(document("POL2", "b2.pdf"));
+
+        MismatchList first = new MismatchList();
+        int pair = first.addPair(manifestA, 0, manifestB, 0);
+        first.addMismatch(pair, DocumentField.DOCUMENT_NAME);
+        first.addMismatch(pair, DocumentField.CLAIM_NO);
+
+        MismatchList second = new MismatchList();
+        pair = second.addPair(manifestA, 1, manifestB, 1);
+        second.addMismatch(pair, DocumentField.DOCUMENT_NAME);
+        DocumentMetadata documentA = document("POL3", "c.pdf");
+        DocumentMetadata documentB = document("POL3", "c2.pdf");
+        second.add(new DocumentMismatch("POL3", "documentName", "c.pdf", "c2.pdf", documentA, documentB));
+        second.add(new DocumentMismatch("POL3", "status", "Active", "Active", documentA, documentB));
+
+        // Act
+        first.append(second);
+
+        // Assert
+        assertEquals(0, second.size());
+        assertEquals(5, first.size());
+        assertEquals("POL1", first.get(1).getPolicyNo());
+        assertEquals("claimNo", first.get(1).getFieldName());
+        assertEquals("b.pdf", first.get(2).getValueA());
+        assertEquals("b2.pdf", first.get(2).getValueB());
+        assertEquals("POL3", first.policyNo(3));
+        assertEquals("c2.pdf", first.get(3).getValueB());
+        assertEquals(DocumentField.STATUS, first.field(4));
+        assertEquals("c2.pdf", first.get(4).getDocumentB().getDocumentName());
+    }
+
+    @Test
+    void testAppendToEmptyListThenSortKeepsFieldsOfAPairTogether() {
+        // Arrange
+        ColumnarManifest manifestA = new ColumnarManifest();
+        manifestA.add(document("POL2", "b.pdf"));
+        manifestA.add(document("POL1", "a.pdf"));
+        ColumnarManifest manifestB = new ColumnarManifest();
+        manifestB.add(document("POL2", "b2.pdf"));
+        manifestB.add(document("POL1", "a2.pdf"));
+        MismatchList source = new MismatchList();
+        for (int row = 0; row < 2; row++) {
+            int pair = source.addPair(manifestA, row, manifestB, row);
+            source.addMismatch(pair, DocumentField.DOCUMENT_NAME);
+            source.addMismatch(pair, DocumentField.STATUS);
+        }
+        MismatchList target = new MismatchList();
+
+        // Act
+        target.append(source);
+        target.sortByDocument();
+
+        // Assert
+        assertEquals(4, target.size());
+        assertEquals("POL1", target.policyNo(0));
+        assertEquals(DocumentField.DOCUMENT_NAME, target.field(0));
+        assertEquals("POL1", target.policyNo(1));
+        assertEquals(DocumentField.STATUS, target.field(1));
+        assertEquals("b2.pdf", target.get(2).getValueB());
+        assertEquals(DocumentField.STATUS, target.field(3));
+    }
+}
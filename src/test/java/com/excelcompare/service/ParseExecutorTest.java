@@ -0,0 +1,45 @@
+package com.excelcompare.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseExecutorTest {
+
+    private final ParseExecutor parseExecutor = new ParseExecutor();
+
+    @AfterEach
+    void tearDown() {
+        parseExecutor.shutdown();
+    }
+
+    @Test
+    void testTasksRunConcurrently() throws IOException {
+        // Each task only finishes once both have started
+        CountDownLatch started = new CountDownLatch(2);
+        Callable<Boolean> task = () -> {
+            started.countDown();
+            return started.await(10, TimeUnit.SECONDS);
+        };
+
+        assertEquals(List.of(true, true), parseExecutor.invokeAll(List.of(task, task)));
+    }
+
+    @Test
+    void testFailureIsRethrown() {
+        Callable<String> failing = () -> {
+            throw new IOException("Unable to read Excel file");
+        };
+
+        IOException e = assertThrows(IOException.class,
+                () -> parseExecutor.invokeAll(List.of(() -> "ok", failing)));
+        assertEquals("Unable to read Excel file", e.getMessage());
+    }
+}
@@ -0,0 +1,169 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.model.DocumentMetadata;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportServiceTest {
+
+    private ReportService reportService;
+    private ComparisonResult result;
+
+    @BeforeEach
+    void setUp() {
+        reportService = new ReportService();
+
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String policyNo = String.format("POL%03d", i);
+            documentsA.add(new DocumentMetadata(policyNo, "Location1", "Folder1", "Document" + i + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", null, "PDF", "Restricted", "Active", "No", "Y"));
+            if (i % 5 != 0) {
+                documentsB.add(new DocumentMetadata(policyNo, i % 2 == 0 ? "Location2" : "Location1", "Folder1",
+                        "Document" + i + ".pdf", "CLAIM" + i, "John Doe", "2023-01-01", null,
+                        "PDF", "Restricted", "Active", "No", "Y"));
+            }
+        }
+        documentsB.add(new DocumentMetadata("POL999", "Location1", "Folder1", "Extra.pdf",
+                "CLAIM999", "Jane Doe", "2023-01-01", null, "PDF", "Restricted", "Active", "No", "Y"));
+        result = new ComparisonService().compareDocuments(documentsA, documentsB);
+    }
+
+    @Test
+    void testXlsxReportHasSheetPerSection() throws IOException {
+        // Act
+        try (Workbook workbook = writeXlsx()) {
+            // Assert
+            assertEquals(List.of("Summary", "Mismatches", "Missing in B", "Missing in A", "Matched"), sheetNames(workbook));
+
+            Sheet mismatches = workbook.getSheet("Mismatches");
+            assertEquals(result.getMetadataMismatches().size(), mismatches.getLastRowNum());
+            assertEquals("Location1", mismatches.getRow(1).getCell(2).getStringCellValue());
+            assertEquals("Location2", mismatches.getRow(1).getCell(3).getStringCellValue());
+            assertNotEquals(mismatches.getRow(1).getCell(1).getCellStyle().getFillPattern(),
+                    mismatches.getRow(1).getCell(2).getCellStyle().getFillPattern());
+
+            Sheet missingInB = workbook.getSheet("Missing in B");
+            assertEquals(result.getMissingInB().size(), missingInB.getLastRowNum());
+            assertEquals("Policy no", missingInB.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("POL000", missingInB.getRow(1).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    void testXlsxReportContinuesLongListsOnNewSheets() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(reportService, "xlsxRowAccessWindow", 2);
+        ReflectionTestUtils.setField(reportService, "xlsxMaxRowsPerSheet", 5);
+
+        // Act
+        try (Workbook workbook = writeXlsx()) {
+            // Assert
+            int matched = result.getMatchedDocuments().size();
+            int rows = 0;
+            for (int i = 1; workbook.getSheet(i == 1 ? "Matched" : "Matched (" + i + ")") != null; i++) {
+                Sheet sheet = workbook.getSheet(i == 1 ? "Matched" : "Matched (" + i + ")");
+                assertEquals("Policy no", sheet.getRow(0).getCell(0).getStringCellValue());
+                assertTrue(sheet.getLastRowNum() < 5);
+                rows += sheet.getLastRowNum();
+            }
+            assertEquals(matched, rows);
+            assertTrue(matched > 4);
+            assertNotNull(workbook.getSheet("Matched (2)"));
+        }
+    }
+
+    @Test
+    void testPdfReportListsEveryMismatchOnNumberedPages() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Double> progress = new ArrayList<>();
+
+        // Act
+        boolean complete = reportService.writePdfReport("run-1", result, out, new ProgressListener() {
+            @Override
+            public void onProgress(double fraction) {
+                progress.add(fraction);
+            }
+        });
+
+        // Assert
+        assertTrue(complete);
+        assertEquals(1.0, progress.get(progress.size() - 1));
+        String text = pdfText(out);
+        assertTrue(text.contains("Reconciliation Report"));
+        assertTrue(text.contains("documentLocation"));
+        assertTrue(text.contains("Comparison run-1 - Page 1"));
+        for (ComparisonResult.DocumentMismatch mismatch : result.getMetadataMismatches()) {
+            assertTrue(text.contains(mismatch.getPolicyNo()), mismatch.getPolicyNo());
+        }
+        assertTrue(text.contains("POL999"));
+    }
+
+    @Test
+    void testPdfReportLeavesOutDetailRowsOnceTheTimeBudgetIsSpent() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(reportService, "pdfTimeBudgetSeconds", 0L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        boolean complete = reportService.writePdfReport("run-1", result, out, ProgressListener.NONE);
+
+        // Assert
+        assertFalse(complete);
+        String text = pdfText(out);
+        assertTrue(text.contains("Metadata Mismatches"));
+        assertTrue(text.contains(result.getMetadataMismatches().size() + " of "
+                + result.getMetadataMismatches().size() + " rows are not listed"));
+
+        ReflectionTestUtils.setField(reportService, "pdfTimeBudgetSeconds", 60L);
+        ProgressListener cancelled = new ProgressListener() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+        assertThrows(CancellationException.class,
+                () -> reportService.writePdfReport("run-1", result, new ByteArrayOutputStream(), cancelled));
+    }
+
+    private static String pdfText(ByteArrayOutputStream out) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            for (int page = 1; page <= pdf.getNumberOfPages(); page++) {
+                text.append(PdfTextExtractor.getTextFromPage(pdf.getPage(page))).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private Workbook writeXlsx() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeXlsxReport(result, out);
+        return new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static List<String> sheetNames(Workbook workbook) {
+        List<String> names = new ArrayList<>();
+        workbook.forEach(sheet -> names.add(sheet.getSheetName()));
+        return names;
+    }
+}
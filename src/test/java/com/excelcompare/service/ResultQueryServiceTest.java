@@ -0,0 +1,113 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.dto.ResultFilter;
+import com.excelcompare.dto.ResultPage;
+import com.excelcompare.dto.ResultSection;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.store.ResultIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultQueryServiceTest {
+
+    private ResultQueryService resultQueryService;
+    private ResultIndex index;
+
+    @BeforeEach
+    void setUp() {
+        resultQueryService = new ResultQueryService();
+
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            documentsA.add(new DocumentMetadata(
+                    String.format("POL%03d", i), "Location1", "Folder1", "Document" + (i % 7) + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1",
+                    "PDF", "Restricted", "Active", "No", i % 2 == 0 ? "Y" : "N"
+            ));
+        }
+        index = new ResultIndex(new ComparisonService().compareDocuments(documentsA, documentsB));
+    }
+
+    @Test
+    void testCursorWalksEveryRowOnce() {
+        List<Object> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ResultPage page = resultQueryService.query(
+                    "c1", index, ResultSection.MISSING_IN_B, null, "-documentName", null, cursor, 10);
+            assertEquals(25, page.getTotalItems());
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(25, seen.size());
+        assertEquals(25, seen.stream().distinct().count());
+        assertEquals("Document6.pdf", ((DocumentMetadata) seen.get(0)).getDocumentName());
+        assertEquals("Document0.pdf", ((DocumentMetadata) seen.get(24)).getDocumentName());
+    }
+
+    @Test
+    void testFilterAndProjection() {
+        ResultPage page = resultQueryService.query(
+                "c1", index, ResultSection.MISSING_IN_B, new ResultFilter(null, "n", null, null),
+                null, "policyNo,migration", null, 100);
+
+        assertEquals(12, page.getTotalItems());
+        assertNull(page.getNextCursor());
+        Map<?, ?> first = (Map<?, ?>) page.getItems().get(0);
+        assertEquals(Map.of("policyNo", "POL001", "migration", "N"), first);
+    }
+
+    @Test
+    void testCursorFromAnotherQueryIsRejected() {
+        ResultPage page = resultQueryService.query(
+                "c1", index, ResultSection.MISSING_IN_B, null, "policyNo", null, null, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> resultQueryService.query(
+                "c1", index, ResultSection.MISSING_IN_B, null, "claimNo", null, page.getNextCursor(), 10));
+        assertThrows(IllegalArgumentException.class, () -> resultQueryService.query(
+                "c1", index, ResultSection.MISMATCHES, null, "documentA", null, null, 10));
+    }
+
+    @Test
+    void testSortedMismatchesAreInTheOrderOfTheirRows() {
+        // Arrange
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String policyNo = String.format("POL%03d", 39 - i);
+            documentsA.add(new DocumentMetadata(policyNo, "Location1", "Folder1", "Document" + i + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1", "PDF", "Restricted", "Active", "No", "Y"));
+            documentsB.add(new DocumentMetadata(policyNo, "Location1", "Folder1", "Other" + (i % 3) + ".pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", "Adjustor1", "PDF", "Restricted",
+                    i % 5 == 0 ? null : "Closed", "No", "Y"));
+        }
+        ComparisonResult result = new ComparisonService().compareDocuments(documentsA, documentsB);
+        List<DocumentMismatch> expected = new ArrayList<>(result.getMetadataMismatches());
+        expected.sort(Comparator.comparing(DocumentMismatch::getValueB,
+                Comparator.nullsFirst(Comparator.<String>naturalOrder())).reversed());
+
+        // Act
+        ResultPage page = resultQueryService.query(
+                "c2", new ResultIndex(result), ResultSection.MISMATCHES, null, "-valueB", null, null, 1000);
+
+        // Assert
+        assertEquals(expected.size(), page.getTotalItems());
+        for (int i = 0; i < expected.size(); i++) {
+            DocumentMismatch mismatch = (DocumentMismatch) page.getItems().get(i);
+            assertEquals(expected.get(i).getPolicyNo(), mismatch.getPolicyNo());
+            assertEquals(expected.get(i).getFieldName(), mismatch.getFieldName());
+        }
+        assertNull(((DocumentMismatch) page.getItems().get(expected.size() - 1)).getValueB());
+    }
+}
@@ -0,0 +1,95 @@
+package com.excelcompare.service;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.NormalizedComparisonResult;
+import com.excelcompare.model.DocumentMetadata;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultStreamServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ResultStreamService resultStreamService;
+    private ComparisonResult result;
+
+    @BeforeEach
+    void setUp() {
+        resultStreamService = new ResultStreamService();
+
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            documentsA.add(document(String.format("POL%03d", i), "Location1", "Folder1"));
+            if (i % 5 != 0) {
+                // Every other policy differs in one or two fields
+                documentsB.add(document(String.format("POL%03d", i), i % 2 == 0 ? "Location2" : "Location1",
+                        i % 3 == 0 ? "Folder2" : "Folder1"));
+            }
+        }
+        documentsB.add(document("POL999", "Location1", "Folder1"));
+        result = new ComparisonService().compareDocuments(documentsA, documentsB);
+    }
+
+    @Test
+    void testJsonStreamMatchesNormalizedResult() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        resultStreamService.writeJson(result, out);
+
+        // Assert
+        JsonNode streamed = objectMapper.readTree(out.toByteArray());
+        assertEquals(objectMapper.valueToTree(NormalizedComparisonResult.of(result)), streamed);
+        assertEquals("statistics", streamed.fieldNames().next());
+    }
+
+    @Test
+    void testNdjsonWritesOneElementPerLine() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        resultStreamService.writeNdjson(result, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("statistics", objectMapper.readTree(lines[0]).get("type").asText());
+        int documents = 0;
+        int mismatches = 0;
+        int missing = 0;
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            switch (node.get("type").asText()) {
+                case "documents" -> assertEquals(documents++, node.get("id").asInt());
+                case "metadataMismatches" -> {
+                    assertTrue(node.get("data").get("documentB").asInt() < documents);
+                    mismatches++;
+                }
+                case "missingInB", "missingInA" -> missing++;
+                default -> { }
+            }
+        }
+        assertEquals(result.getMetadataMismatches().size(), mismatches);
+        assertEquals(result.getMissingInA().size() + result.getMissingInB().size(), missing);
+        assertTrue(documents < 2 * mismatches);
+    }
+
+    private DocumentMetadata document(String policyNo, String location, String folder) {
+        return new DocumentMetadata(
+                policyNo, location, folder, "Document1.pdf",
+                "CLAIM001", "John Doe", "2023-01-01", "Adjustor1",
+                "PDF", "Restricted", "Active", "No", "Y"
+        );
+    }
+}
@@ -0,0 +1,98 @@
+package com.excelcompare.service;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowListTest {
+
+    @Test
+    void testSortedOrderRanksPoliciesAcrossSourcesThenComparesFields() {
+        // Arrange
+        ColumnarManifest manifestA = new ColumnarManifest();
+        manifestA.add(document("POL3", "b.pdf"));
+        manifestA.add(document("POL1", "z.pdf"));
+        manifestA.add(document("POL2", "a.pdf"));
+        manifestA.add(document(null, "n.pdf"));
+        manifestA.trimToSize();
+        ColumnarManifest manifestB = new ColumnarManifest();
+        manifestB.add(document("POL1", "a.pdf"));
+        manifestB.add(document("POL10", "a.pdf"));
+        RowList rows = new RowList();
+        for (int row = 0; row < manifestA.size(); row++) {
+            rows.add(manifestA, row);
+        }
+        rows.add(manifestB, 0);
+        rows.add(manifestB, 1);
+        rows.add(document("POL1", null));
+
+        // Act
+        int[] order = rows.sortedOrder();
+
+        // Assert
+        assertArrayEquals(new int[]{3, 6, 4, 1, 5, 2, 0}, order);
+    }
+
+    @Test
+    void testSortedOrderKeepsEqualRowsInTheirOrder() {
+        // Arrange
+        ColumnarManifest manifest = new ColumnarManifest();
+        for (int i = 0; i < 40; i++) {
+            manifest.add(document("POL" + (i % 2), i % 4 < 2 ? "same.pdf" : "other.pdf"));
+        }
+        manifest.trimToSize();
+        RowList rows = new RowList();
+        for (int row = manifest.size() - 1; row >= 0; row--) {
+            rows.add(manifest, row);
+        }
+
+        // Act
+        int[] order = rows.sortedOrder();
+
+        // Assert
+        List<String> sorted = new ArrayList<>();
+        for (int index : order) {
+            sorted.add(rows.value(index, DocumentField.POLICY_NO) + "/" + rows.value(index, DocumentField.DOCUMENT_NAME));
+        }
+        for (int i = 1; i < order.length; i++) {
+            assertTrue(sorted.get(i - 1).compareTo(sorted.get(i)) <= 0, sorted.toString());
+            if (sorted.get(i - 1).equals(sorted.get(i))) {
+                assertTrue(order[i - 1] < order[i]);
+            }
+        }
+    }
+
+    @Test
+    void testReorderMovesRowsToTheirPositions() {
+        // Arrange
+        ColumnarManifest manifest = new ColumnarManifest();
+        manifest.add(document("POL2", "b.pdf"));
+        manifest.add(document("POL1", "a.pdf"));
+        RowList rows = new RowList();
+        rows.add(manifest, 0);
+        rows.add(manifest, 1);
+        rows.add(document("POL0", "c.pdf"));
+
+        // Act
+        rows.reorder(rows.sortedOrder());
+
+        // Assert
+        assertEquals(3, rows.size());
+        assertEquals("POL0", rows.value(0, DocumentField.POLICY_NO));
+        assertEquals("POL1", rows.toDocument(1).getPolicyNo());
+        assertEquals("b.pdf", rows.toDocument(2).getDocumentName());
+        assertEquals(3, rows.add(manifest, 1));
+        assertEquals("POL1", rows.value(3, DocumentField.POLICY_NO));
+    }
+
+    static DocumentMetadata document(String policyNo, String documentName) {
+        return new DocumentMetadata(policyNo, "Location1", "Folder1", documentName, "CLAIM001",
+                "John Doe", "2023-01-01", null, "PDF", "Restricted", "Active", "No", "Y");
+    }
+}
@@ -0,0 +1,86 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
+import com.excelcompare.model.DocumentMetadata;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingComparisonResultStoreTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void testEvictedResultIsReadBackFromSpillDirectory() {
+        // Arrange
+        CachingComparisonResultStore store = new CachingComparisonResultStore(
+                3, Duration.ofMinutes(10), spillDirectory, Duration.ofHours(1), new ObjectMapper());
+
+        // Act
+        String first = store.save(createResult("POL001"));
+        String second = store.save(createResult("POL002"));
+
+        // Assert
+        assertEquals(1, store.getStatistics().getEntries());
+        assertEquals(1, store.getStatistics().getEvictions());
+        assertEquals("POL001", store.find(first).orElseThrow().getMissingInB().get(0).getPolicyNo());
+        assertEquals("POL002", store.find(second).orElseThrow().getMissingInB().get(0).getPolicyNo());
+        // Reading the first result back pushed the second one out to disk
+        assertEquals(2, store.getStatistics().getSpilledReads());
+        assertTrue(store.find("unknown").isEmpty());
+        assertEquals(1, store.getStatistics().getMisses());
+    }
+
+    @Test
+    void testSpilledResultIsKeptInMemoryOnceReadBack() {
+        // Arrange
+        CachingComparisonResultStore store = new CachingComparisonResultStore(
+                3, Duration.ofMinutes(10), spillDirectory, Duration.ofHours(1), new ObjectMapper());
+        String first = store.save(createResult("POL001"));
+        store.save(createResult("POL002"));
+
+        // Act
+        ResultIndex readBack = store.findIndexed(first).orElseThrow();
+
+        // Assert
+        assertSame(readBack, store.findIndexed(first).orElseThrow());
+        assertSame(readBack, store.findIndexed(first).orElseThrow());
+        assertEquals(1, store.getStatistics().getSpilledReads());
+        assertEquals(1, store.getStatistics().getEntries());
+    }
+
+    @Test
+    void testEvictedResultIsDroppedWithoutSpillDirectory() {
+        // Arrange
+        CachingComparisonResultStore store = new CachingComparisonResultStore(
+                3, Duration.ofMinutes(10), null, Duration.ofHours(1), new ObjectMapper());
+
+        // Act
+        String first = store.save(createResult("POL001"));
+        store.save(createResult("POL002"));
+
+        // Assert
+        assertTrue(store.find(first).isEmpty());
+    }
+
+    private ComparisonResult createResult(String policyNo) {
+        DocumentMetadata doc = new DocumentMetadata(
+                policyNo, "Location1", "Folder1", "Document1.pdf",
+                "CLAIM001", "John Doe", "2023-01-01", "Adjustor1",
+                "PDF", "Restricted", "Active", "No", "Y"
+        );
+        ComparisonStatistics statistics = new ComparisonStatistics(1, 0, 0, 0, 0, 1, Map.of());
+        return new ComparisonResult(statistics, List.of(doc), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList());
+    }
+}
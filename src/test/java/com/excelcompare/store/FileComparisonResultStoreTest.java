@@ -0,0 +1,143 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ComparisonResult.DocumentMismatch;
+import com.excelcompare.dto.ResultFilter;
+import com.excelcompare.dto.ResultSection;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.service.ComparisonService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileComparisonResultStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testResultSurvivesRestart() {
+        // Arrange
+        ComparisonResult result = createResult();
+        String comparisonId = new FileComparisonResultStore(
+                directory, Duration.ofHours(1), 4, new ObjectMapper()).save(result);
+
+        // Act
+        FileComparisonResultStore restarted = new FileComparisonResultStore(
+                directory, Duration.ofHours(1), 4, new ObjectMapper());
+        ComparisonResult stored = restarted.find(comparisonId).orElseThrow();
+
+        // Assert
+        assertEquals(result.getStatistics().getMetadataMismatches(), stored.getStatistics().getMetadataMismatches());
+        assertEquals(result.getStatistics().getMismatchTypesCounts(), stored.getStatistics().getMismatchTypesCounts());
+        assertDocumentsEqual(result.getMissingInA(), stored.getMissingInA());
+        assertDocumentsEqual(result.getMissingInB(), stored.getMissingInB());
+        assertDocumentsEqual(result.getMatchedDocuments(), stored.getMatchedDocuments());
+        assertEquals(result.getMetadataMismatches().size(), stored.getMetadataMismatches().size());
+        for (int i = 0; i < result.getMetadataMismatches().size(); i++) {
+            DocumentMismatch expected = result.getMetadataMismatches().get(i);
+            DocumentMismatch actual = stored.getMetadataMismatches().get(i);
+            assertEquals(expected.getFieldName(), actual.getFieldName());
+            assertEquals(expected.getValueA(), actual.getValueA());
+            assertEquals(expected.getValueB(), actual.getValueB());
+            assertDocumentEquals(expected.getDocumentB(), actual.getDocumentB());
+        }
+        assertEquals(1, restarted.getStatistics().getEntries());
+        assertEquals(1, restarted.getStatistics().getSpilledReads());
+    }
+
+    @Test
+    void testStoredResultIsIndexedAndUnknownIdsMiss() {
+        // Arrange
+        FileComparisonResultStore store = new FileComparisonResultStore(
+                directory, Duration.ofHours(1), 4, new ObjectMapper());
+        ComparisonResult result = createResult();
+        String comparisonId = store.save(result);
+        ResultFilter filter = new ResultFilter("documentLocation", null, null, null);
+
+        // Act
+        ResultIndex index = store.findIndexed(comparisonId).orElseThrow();
+
+        // Assert
+        assertEquals(new ResultIndex(result).count(ResultSection.MISMATCHES, filter),
+                index.count(ResultSection.MISMATCHES, filter));
+        assertSame(index, store.findIndexed(comparisonId).orElseThrow());
+        assertTrue(store.find("unknown").isEmpty());
+        assertTrue(store.find("../" + comparisonId).isEmpty());
+        assertEquals(2, store.getStatistics().getMisses());
+    }
+
+    @Test
+    void testIndexIsReadFromTheIndexedFieldsOfTheFile() {
+        // Arrange
+        FileComparisonResultStore store = new FileComparisonResultStore(
+                directory, Duration.ofHours(1), 4, new ObjectMapper());
+        ComparisonResult result = createResult();
+        ResultIndex expected = new ResultIndex(result);
+        ResultFilter migrated = new ResultFilter(null, "y", "pdf", "POL0");
+        ResultFilter folders = new ResultFilter("folderHierarchy", null, null, "POL0");
+
+        // Act
+        ResultIndex index = store.findIndexed(store.save(result)).orElseThrow();
+        ComparisonResult stored = index.getResult();
+
+        // Assert
+        assertTrue(stored.getMatchedDocuments() instanceof ResultColumns.Documents);
+        assertTrue(stored.getMetadataMismatches() instanceof ResultColumns.Mismatches);
+        ResultColumns.Mismatches mismatches = (ResultColumns.Mismatches) stored.getMetadataMismatches();
+        assertEquals(result.getMetadataMismatches().get(0).getPolicyNo(), mismatches.policyNo(0));
+        assertEquals(result.getMetadataMismatches().get(0).getValueA(), mismatches.valueA(0));
+        assertEquals(result.getMetadataMismatches().get(0).getValueB(), mismatches.valueB(0));
+        for (ResultSection section : List.of(ResultSection.MISSING_IN_A, ResultSection.MISSING_IN_B, ResultSection.MATCHED)) {
+            assertArrayEquals(expected.select(section, migrated), index.select(section, migrated), section.name());
+        }
+        assertArrayEquals(expected.select(ResultSection.MISMATCHES, folders), index.select(ResultSection.MISMATCHES, folders));
+    }
+
+    private ComparisonResult createResult() {
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            String policyNo = String.format("POL%03d", i);
+            documentsA.add(new DocumentMetadata(
+                    policyNo, "Location1", "Folder1", "Dokument-" + i + "-é.pdf",
+                    "CLAIM" + i, "John Doe", "2023-01-01", null,
+                    "PDF", "Restricted", "Active", "No", "Y"
+            ));
+            if (i % 7 != 0) {
+                documentsB.add(new DocumentMetadata(
+                        policyNo, i % 3 == 0 ? "Location2" : "Location1", i % 4 == 0 ? "Folder2" : "Folder1",
+                        "Dokument-" + i + "-é.pdf", "CLAIM" + i, "John Doe", "2023-01-01", null,
+                        "PDF", "Restricted", "Active", "No", i % 2 == 0 ? "Y" : "N"
+                ));
+            }
+        }
+        documentsB.add(new DocumentMetadata(
+                "POL999", "Location1", "Folder1", "Extra.pdf",
+                "CLAIM999", "Jane Doe", "2023-01-01", "Adjustor1",
+                "PDF", "Restricted", "Active", "No", "Y"
+        ));
+        return new ComparisonService().compareDocuments(documentsA, documentsB);
+    }
+
+    private void assertDocumentsEqual(List<DocumentMetadata> expected, List<DocumentMetadata> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertDocumentEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private void assertDocumentEquals(DocumentMetadata expected, DocumentMetadata actual) {
+        for (DocumentField field : DocumentField.values()) {
+            assertEquals(field.get(expected), field.get(actual), field.getFieldName());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.excelcompare.store;
+
+import com.excelcompare.model.ColumnarManifest;
+import com.excelcompare.model.DocumentField;
+import com.excelcompare.model.DocumentMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestCacheTest {
+
+    private static final String HASH_A = "a".repeat(64);
+    private static final String HASH_B = "b".repeat(64);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testManifestIsReadBackFromDiskAfterRestart() {
+        // Arrange
+        ColumnarManifest manifest = createManifest(1000);
+        new ManifestCache(64 * 1024 * 1024, directory, 64 * 1024 * 1024).put(HASH_A, manifest);
+
+        // Act
+        ManifestCache restarted = new ManifestCache(64 * 1024 * 1024, directory, 64 * 1024 * 1024);
+        ColumnarManifest cached = restarted.get(HASH_A).orElseThrow();
+
+        // Assert
+        assertEquals(manifest.size(), cached.size());
+        for (int row = 0; row < manifest.size(); row++) {
+            for (DocumentField field : DocumentField.values()) {
+                assertEquals(manifest.value(row, field), cached.value(row, field));
+            }
+        }
+        assertEquals(1, restarted.getStatistics().getDiskHits());
+        assertTrue(restarted.get(HASH_A).isPresent());
+        assertEquals(1, restarted.getStatistics().getMemoryHits());
+        assertTrue(restarted.get(HASH_B).isEmpty());
+        assertEquals(2.0 / 3, restarted.getStatistics().getHitRate(), 1e-9);
+    }
+
+    @Test
+    void testLeastRecentlyUsedManifestIsEvictedFromMemory() {
+        // Arrange
+        ColumnarManifest first = createManifest(100);
+        ColumnarManifest second = createManifest(100);
+        ManifestCache cache = new ManifestCache(first.getRetainedBytes() + 1, null, 0);
+
+        // Act
+        cache.put(HASH_A, first);
+        cache.put(HASH_B, second);
+
+        // Assert
+        assertTrue(cache.get(HASH_A).isEmpty());
+        assertSame(second, cache.get(HASH_B).orElseThrow());
+        assertEquals(1, cache.getStatistics().getMemoryEntries());
+        assertEquals(1, cache.getStatistics().getEvictions());
+    }
+
+    private ColumnarManifest createManifest(int rows) {
+        ColumnarManifest manifest = new ColumnarManifest();
+        for (int i = 0; i < rows; i++) {
+            // Claim numbers are unique so that column needs wider codes than the others
+            manifest.add(new DocumentMetadata(
+                    String.format("POL%05d", i), "Location1", i % 3 == 0 ? null : "Folder1", "Document" + i + ".pdf",
+                    "CLAIM" + i, "Claimant", "2023-01-01", "Adjustor1",
+                    "PDF", "Restricted", "Active", "No", i % 2 == 0 ? "Y" : "N"
+            ));
+        }
+        manifest.trimToSize();
+        return manifest;
+    }
+}
@@ -0,0 +1,122 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult;
+import com.excelcompare.dto.ResultFilter;
+import com.excelcompare.dto.ResultSection;
+import com.excelcompare.model.DocumentMetadata;
+import com.excelcompare.service.ComparisonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultIndexTest {
+
+    private ComparisonResult result;
+    private ResultIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<DocumentMetadata> documentsA = new ArrayList<>();
+        List<DocumentMetadata> documentsB = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String policyNo = (i % 3 == 0 ? "AB" : "AC") + String.format("%04d", i);
+            documentsA.add(document(policyNo, i % 4 == 0 ? "PDF" : "DOCX", "Document" + i, i % 2 == 0 ? "Y" : "n"));
+            if (i % 5 != 0) {
+                documentsB.add(document(policyNo, i % 4 == 0 ? "PDF" : "DOCX",
+                        i % 7 == 0 ? "Renamed" + i : "Document" + i, i % 2 == 0 ? "Y" : "n"));
+            }
+        }
+        result = new ComparisonService().compareDocuments(documentsA, documentsB);
+        index = new ResultIndex(result);
+    }
+
+    @Test
+    void testCombinedFiltersMatchLinearScan() {
+        ResultFilter filter = new ResultFilter(null, "y", "pdf", "AB");
+
+        List<DocumentMetadata> expected = result.getMissingInB().stream()
+                .filter(doc -> "y".equalsIgnoreCase(doc.getMigration()))
+                .filter(doc -> "pdf".equalsIgnoreCase(doc.getDocumentType()))
+                .filter(doc -> doc.getPolicyNo().startsWith("AB"))
+                .collect(Collectors.toList());
+
+        List<DocumentMetadata> selected = ResultIndex.rowsAt(result.getMissingInB(),
+                index.select(ResultSection.MISSING_IN_B, filter));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, new ArrayList<>(selected));
+        assertEquals(expected.size(), index.count(ResultSection.MISSING_IN_B, filter));
+    }
+
+    @Test
+    void testMismatchFieldAndPolicyPrefix() {
+        ResultFilter filter = new ResultFilter("DOCUMENTNAME", null, null, "AC00");
+
+        long expected = result.getMetadataMismatches().stream()
+                .filter(mismatch -> mismatch.getFieldName().toLowerCase(Locale.ROOT).equals("documentname"))
+                .filter(mismatch -> mismatch.getPolicyNo().startsWith("AC00"))
+                .count();
+
+        assertTrue(expected > 0);
+        assertEquals(expected, index.count(ResultSection.MISMATCHES, filter));
+        assertEquals(0, index.count(ResultSection.MISMATCHES, new ResultFilter(null, null, null, "ZZ")));
+        assertNull(index.select(ResultSection.MATCHED, new ResultFilter()));
+        assertThrows(IllegalArgumentException.class,
+                () -> index.select(ResultSection.MISMATCHES, new ResultFilter(null, "Y", null, null)));
+    }
+
+    @Test
+    void testSelectionFromOneFilterIsACopy() {
+        ResultFilter filter = new ResultFilter(null, null, "docx", null);
+        int[] selected = index.select(ResultSection.MISSING_IN_B, filter);
+        int[] original = selected.clone();
+
+        Arrays.fill(selected, -1);
+
+        assertArrayEquals(original, index.select(ResultSection.MISSING_IN_B, filter));
+    }
+
+    @Test
+    void testUnsortedPlainListsMatchLinearScan() {
+        // Arrange
+        List<DocumentMetadata> shuffled = new ArrayList<>(result.getMissingInB());
+        Collections.shuffle(shuffled, new Random(7));
+        shuffled.add(document(null, "PDF", "NoPolicy", "Y"));
+        ComparisonResult unsorted = new ComparisonResult(result.getStatistics(), shuffled,
+                new ArrayList<>(result.getMissingInA()), new ArrayList<>(result.getMetadataMismatches()),
+                new ArrayList<>(result.getMatchedDocuments()));
+        ResultFilter filter = new ResultFilter(null, null, "docx", "AC");
+
+        // Act
+        ResultIndex unsortedIndex = new ResultIndex(unsorted);
+        List<DocumentMetadata> selected = ResultIndex.rowsAt(shuffled,
+                unsortedIndex.select(ResultSection.MISSING_IN_B, filter));
+
+        // Assert
+        List<DocumentMetadata> expected = shuffled.stream()
+                .filter(doc -> "docx".equalsIgnoreCase(doc.getDocumentType()))
+                .filter(doc -> doc.getPolicyNo() != null && doc.getPolicyNo().startsWith("AC"))
+                .collect(Collectors.toList());
+        assertTrue(expected.size() > 16);
+        assertEquals(expected, new ArrayList<>(selected));
+        assertEquals(index.count(ResultSection.MISMATCHES, new ResultFilter("documentName", null, null, "AC")),
+                unsortedIndex.count(ResultSection.MISMATCHES, new ResultFilter("documentName", null, null, "AC")));
+    }
+
+    private DocumentMetadata document(String policyNo, String documentType, String documentName, String migration) {
+        return new DocumentMetadata(
+                policyNo, "Location1", "Folder1", documentName,
+                "CLAIM001", "John Doe", "2023-01-01", "Adjustor1",
+                documentType, "Restricted", "Active", "No", migration
+        );
+    }
+}
@@ -0,0 +1,142 @@
+package com.excelcompare.store;
+
+import com.excelcompare.dto.ComparisonResult.ComparisonStatistics;
+import com.excelcompare.dto.TrendBucket;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendHistoryTest {
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock(Instant.now());
+
+    // The last Wednesday at least eight days ago, so its week is complete and within the retention
+    private final LocalDate wednesday = LocalDate.now(ZoneOffset.UTC).minusDays(8)
+            .with(TemporalAdjusters.previousOrSame(DayOfWeek.WEDNESDAY));
+
+    @Test
+    void testSnapshotsAreRolledUpPerDayAndWeek() {
+        // Arrange
+        TrendHistory history = new TrendHistory(null, Duration.ofDays(30), ZoneOffset.UTC, new ObjectMapper(), clock);
+
+        // Act
+        history.record("run-1", statistics(3, 2, Map.of("claimNo", 2)), at(wednesday, 1));
+        history.record("run-2", statistics(1, 4, Map.of("claimNo", 1, "status", 3)), at(wednesday, 23));
+        history.record("run-3", statistics(5, 0, Map.of()), at(wednesday.plusDays(6), 2));
+
+        // Assert
+        List<TrendBucket> days = history.getRollup(TrendHistory.Period.DAY, null, null);
+        assertEquals(2, days.size());
+        assertEquals(wednesday.toString(), days.get(0).getPeriodStart());
+        assertEquals(2, days.get(0).getComparisons());
+        assertEquals(4, days.get(0).getFailedMigrations());
+        assertEquals(3L, days.get(0).getMismatchTypesCounts().get("claimNo"));
+        assertEquals("run-2", days.get(0).getLastComparisonId());
+
+        List<TrendBucket> weeks = history.getRollup(TrendHistory.Period.WEEK, null, null);
+        assertEquals(2, weeks.size());
+        assertEquals(wednesday.minusDays(2).toString(), weeks.get(0).getPeriodStart());
+        assertEquals(wednesday.plusDays(5).toString(), weeks.get(1).getPeriodStart());
+
+        assertEquals(1, history.getRollup(TrendHistory.Period.DAY, wednesday.plusDays(1), null).size());
+        assertEquals(2, history.getRollup(TrendHistory.Period.WEEK, wednesday, null).size());
+        assertEquals(2, history.getSnapshots(wednesday, wednesday).size());
+    }
+
+    @Test
+    void testHistoryIsReplayedAfterRestart() {
+        // Arrange
+        Path file = directory.resolve("trends.ndjson");
+        TrendHistory history = new TrendHistory(file, Duration.ofDays(30), ZoneOffset.UTC, new ObjectMapper(), clock);
+        history.record("old", statistics(1, 1, Map.of()), clock.instant().minus(40, ChronoUnit.DAYS));
+        history.record("recent", statistics(2, 6, Map.of("status", 6)), at(wednesday, 12));
+
+        // Act
+        TrendHistory restarted = new TrendHistory(file, Duration.ofDays(30), ZoneOffset.UTC, new ObjectMapper(), clock);
+
+        // Assert
+        assertEquals(1, restarted.getSnapshots(null, null).size());
+        assertEquals("recent", restarted.getSnapshots(null, null).get(0).getComparisonId());
+        List<TrendBucket> days = restarted.getRollup(TrendHistory.Period.DAY, null, null);
+        assertEquals(1, days.size());
+        assertEquals(6, days.get(0).getMetadataMismatches());
+    }
+
+    @Test
+    void testExpiredSnapshotsAreDroppedWhileRecording() throws IOException {
+        // Arrange
+        Path file = directory.resolve("trends.ndjson");
+        TrendHistory history = new TrendHistory(file, Duration.ofDays(30), ZoneOffset.UTC, new ObjectMapper(), clock);
+        Instant expiring = clock.instant().minus(30, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS);
+        for (int i = 0; i < 70; i++) {
+            history.record("expiring-" + i, statistics(1, 1, Map.of()), expiring);
+        }
+        history.record("old", statistics(1, 1, Map.of()), clock.instant().minus(40, ChronoUnit.DAYS));
+        int recorded = history.getSnapshots(null, null).size();
+        clock.advance(Duration.ofHours(2));
+
+        // Act
+        history.record("recent", statistics(2, 6, Map.of("status", 6)), at(wednesday, 12));
+
+        // Assert
+        assertEquals(70, recorded);
+        assertEquals(1, history.getSnapshots(null, null).size());
+        assertEquals("recent", history.getSnapshots(null, null).get(0).getComparisonId());
+        assertEquals(1, Files.readAllLines(file).size());
+    }
+
+    private static Instant at(LocalDate day, int hour) {
+        return day.atTime(hour, 0).toInstant(ZoneOffset.UTC);
+    }
+
+    private static ComparisonStatistics statistics(int failedMigrations, int mismatches, Map<String, Integer> types) {
+        return new ComparisonStatistics(100, 100, 100 - failedMigrations, failedMigrations, mismatches, 0, types);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}